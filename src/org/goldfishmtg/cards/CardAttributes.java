@@ -0,0 +1,130 @@
+package org.goldfishmtg.cards;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The attributes of a card that agents commonly count by: its types, mana
+ * value, colors and the colors of mana it produces
+ *
+ * @author skaspersen
+ *
+ */
+public final class CardAttributes {
+
+    private final Set<CardType> types;
+    private final int manaValue;
+    private final Set<Color> colors;
+    private final Set<Color> produces;
+    private final int[] categories;
+
+    /**
+     * Creates the attributes of a card
+     *
+     * @param types
+     *            the types of the card
+     * @param manaValue
+     *            the mana value of the card
+     * @param colors
+     *            the colors of the card, empty for a colorless card
+     * @param produces
+     *            the colors of mana the card produces, empty if it produces
+     *            none
+     * @throws IllegalArgumentException
+     *             if any set is null, <code>types</code> is empty or
+     *             <code>manaValue</code> is negative
+     */
+    public CardAttributes(Set<CardType> types, int manaValue,
+            Set<Color> colors, Set<Color> produces) {
+        if (types == null || colors == null || produces == null) {
+            throw new IllegalArgumentException(
+                    "types, colors and produces cannot be null");
+        }
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("types cannot be empty");
+        }
+        if (manaValue < 0) {
+            throw new IllegalArgumentException("manaValue cannot be negative");
+        }
+        this.types = Collections.unmodifiableSet(EnumSet.copyOf(types));
+        this.manaValue = manaValue;
+        this.colors = Collections.unmodifiableSet(colors.isEmpty() ? EnumSet
+                .noneOf(Color.class) : EnumSet.copyOf(colors));
+        this.produces = Collections.unmodifiableSet(produces.isEmpty() ? EnumSet
+                .noneOf(Color.class) : EnumSet.copyOf(produces));
+
+        int[] ids = new int[this.types.size() + 1 + Math.max(1, colors.size())
+                + produces.size()];
+        int i = 0;
+        for (CardType type : this.types) {
+            ids[i++] = Category.type(type).getId();
+        }
+        ids[i++] = Category.manaValue(manaValue).getId();
+        if (this.colors.isEmpty()) {
+            ids[i++] = Category.color(Color.COLORLESS).getId();
+        }
+        for (Color color : this.colors) {
+            ids[i++] = Category.color(color).getId();
+        }
+        for (Color color : this.produces) {
+            ids[i++] = Category.source(color).getId();
+        }
+        this.categories = ids;
+    }
+
+    /**
+     * Returns the attributes of a land producing the specified colors of mana
+     */
+    public static CardAttributes land(Color... produces) {
+        return new CardAttributes(EnumSet.of(CardType.LAND), 0,
+                EnumSet.noneOf(Color.class), asSet(produces));
+    }
+
+    /**
+     * Returns the attributes of a spell of a single type that produces no
+     * mana
+     */
+    public static CardAttributes spell(CardType type, int manaValue,
+            Color... colors) {
+        return new CardAttributes(EnumSet.of(type), manaValue, asSet(colors),
+                EnumSet.noneOf(Color.class));
+    }
+
+    public Set<CardType> getTypes() {
+        return this.types;
+    }
+
+    public int getManaValue() {
+        return this.manaValue;
+    }
+
+    public Set<Color> getColors() {
+        return this.colors;
+    }
+
+    public Set<Color> getProduces() {
+        return this.produces;
+    }
+
+    /**
+     * Returns the ids of the categories the card belongs to
+     */
+    int[] getCategories() {
+        return this.categories;
+    }
+
+    @Override
+    public String toString() {
+        return "CardAttributes[types=" + this.types + ", manaValue="
+                + this.manaValue + ", colors=" + this.colors + ", produces="
+                + this.produces + "]";
+    }
+
+    private static Set<Color> asSet(Color... colors) {
+        Set<Color> set = EnumSet.noneOf(Color.class);
+        Collections.addAll(set, colors);
+        return set;
+    }
+
+}
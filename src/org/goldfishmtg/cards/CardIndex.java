@@ -0,0 +1,137 @@
+package org.goldfishmtg.cards;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns an ordinal to each distinct card of a card list. Ordinals follow the
+ * natural ordering of the cards, starting at 0, and never change once the
+ * index is created.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public final class CardIndex<T extends Comparable<T>> {
+
+    private final Object[] cards;
+
+    /**
+     * Creates a new index of the distinct cards contained in the specified
+     * card list
+     *
+     * @param cards
+     *            the cards to index
+     * @throws IllegalArgumentException
+     *             if <code>cards</code> is null
+     */
+    public CardIndex(CardList<T> cards) {
+        if (cards == null) {
+            throw new IllegalArgumentException("cards cannot be null");
+        }
+        List<T> list = cards.asList();
+        Object[] distinct = new Object[list.size()];
+        int size = 0;
+        for (T card : list) {
+            if (size == 0 || !distinct[size - 1].equals(card)) {
+                distinct[size++] = card;
+            }
+        }
+        this.cards = Arrays.copyOf(distinct, size);
+    }
+
+    private CardIndex(Object[] cards) {
+        this.cards = cards;
+    }
+
+    /**
+     * Returns an index containing the cards of this index and the specified
+     * card. This index is returned if it already contains the card, otherwise
+     * the ordinals of the cards that follow the new card are shifted by one.
+     */
+    CardIndex<T> with(T card) {
+        int ordinal = ordinalOf(card);
+        if (ordinal >= 0) {
+            return this;
+        }
+        int insertAt = insertionPoint(card);
+        Object[] newCards = new Object[this.cards.length + 1];
+        System.arraycopy(this.cards, 0, newCards, 0, insertAt);
+        newCards[insertAt] = card;
+        System.arraycopy(this.cards, insertAt, newCards, insertAt + 1,
+                this.cards.length - insertAt);
+        return new CardIndex<T>(newCards);
+    }
+
+    /**
+     * Returns the ordinal the specified card has, or would have once added to
+     * this index
+     */
+    @SuppressWarnings("unchecked")
+    int insertionPoint(T card) {
+        int low = 0;
+        int high = this.cards.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (((T) this.cards[mid]).compareTo(card) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of distinct cards in this index
+     */
+    public int size() {
+        return this.cards.length;
+    }
+
+    /**
+     * Returns the card with the specified ordinal
+     *
+     * @param ordinal
+     *            the ordinal of the card
+     * @return the card with the specified ordinal
+     * @throws IndexOutOfBoundsException
+     *             if there is no card with the specified ordinal
+     */
+    @SuppressWarnings("unchecked")
+    public T getCard(int ordinal) {
+        return (T) this.cards[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the specified card
+     *
+     * @param card
+     *            the card to look up
+     * @return the ordinal of the specified card, or <code>-1</code> if the card
+     *         is not part of this index
+     */
+    @SuppressWarnings("unchecked")
+    public int ordinalOf(T card) {
+        if (card == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = this.cards.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = ((T) this.cards[mid]).compareTo(card);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+}
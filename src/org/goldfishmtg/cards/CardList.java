@@ -1,6 +1,7 @@
 package org.goldfishmtg.cards;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -11,6 +12,9 @@ import org.goldfishmtg.util.MutableInt;
 
 /**
  * A general purpose list of cards
+ * <p>
+ * A card list given a {@link CardRegistry} also keeps a counter for each
+ * {@link Category} of cards, so that category counts never walk the list.
  *
  * @author skaspersen
  *
@@ -21,20 +25,74 @@ import org.goldfishmtg.util.MutableInt;
 public class CardList<T extends Comparable<T>> {
 
     private final Map<T, MutableInt> cards;
+    private CardRegistry<T> registry;
+    private int[] categoryCounts;
 
     public CardList() {
-        this.cards = new TreeMap<T, MutableInt>();
+        this(true);
+    }
+
+    /**
+     * Creates an empty card list, without a map of cards if
+     * <code>withMap</code> is <code>false</code>. Subclasses that keep their
+     * cards elsewhere use it and must override every method reading the cards.
+     */
+    protected CardList(boolean withMap) {
+        this.cards = withMap ? new TreeMap<T, MutableInt>() : null;
     }
 
+    /**
+     * Creates a copy of the specified card list, using the same card registry
+     */
     public CardList(CardList<T> cardList) {
         this.cards = new TreeMap<T, MutableInt>();
-        Set<Entry<T, MutableInt>> es = cardList.cards.entrySet();
-        for (Entry<T, MutableInt> entry : es) {
-            T card = entry.getKey();
-            int amount = entry.getValue().get();
-            addCards(card, amount);
+        setCardRegistry(cardList.getCardRegistry());
+        cardList.addAllTo(this);
+    }
+
+    /**
+     * Changes the registry used to count the cards of this list by category.
+     * The category counters are computed from the cards already in the list,
+     * and then kept up to date as cards are added and removed.
+     *
+     * @param registry
+     *            the registry of the cards, or null to stop counting by
+     *            category
+     */
+    public void setCardRegistry(CardRegistry<T> registry) {
+        this.registry = registry;
+        if (registry == null) {
+            this.categoryCounts = null;
+        } else {
+            this.categoryCounts = new int[Category.count()];
+            for (Entry<T, MutableInt> entry : this.cards.entrySet()) {
+                registry.count(entry.getKey(), entry.getValue().get(),
+                        this.categoryCounts);
+            }
         }
+    }
 
+    /**
+     * Returns the registry used to count the cards of this list by category,
+     * or null if there is none
+     */
+    public CardRegistry<T> getCardRegistry() {
+        return this.registry;
+    }
+
+    /**
+     * Returns the number of cards of the specified category contained in this
+     * card list
+     *
+     * @throws IllegalStateException
+     *             if this card list has no card registry
+     * @see #setCardRegistry(CardRegistry)
+     */
+    public int getCount(Category category) {
+        if (this.categoryCounts == null) {
+            throw new IllegalStateException("card list has no card registry");
+        }
+        return this.categoryCounts[category.getId()];
     }
 
     /**
@@ -111,6 +169,9 @@ public class CardList<T extends Comparable<T>> {
             } else {
                 this.cards.get(card).add(amount);
             }
+            if (this.registry != null) {
+                this.registry.count(card, amount, this.categoryCounts);
+            }
         } else if (amount < 0) {
             throw new IllegalArgumentException("amount cannot be negative");
         }
@@ -159,6 +220,9 @@ public class CardList<T extends Comparable<T>> {
         }
         if (amount > 0 && getCount(card) >= amount) {
             this.cards.get(card).add(-amount);
+            if (this.registry != null) {
+                this.registry.count(card, -amount, this.categoryCounts);
+            }
             return true;
         } else if (amount < 0) {
             throw new IllegalArgumentException("amount cannot be negative");
@@ -201,11 +265,26 @@ public class CardList<T extends Comparable<T>> {
         return list;
     }
 
+    /**
+     * Adds every card of this card list to the specified card list
+     */
+    void addAllTo(CardList<T> cardList) {
+        Set<Entry<T, MutableInt>> es = this.cards.entrySet();
+        for (Entry<T, MutableInt> entry : es) {
+            T card = entry.getKey();
+            int amount = entry.getValue().get();
+            cardList.addCards(card, amount);
+        }
+    }
+
     /**
      * Removes all of the cards in this card list
      */
     public void clear() {
         this.cards.clear();
+        if (this.categoryCounts != null) {
+            Arrays.fill(this.categoryCounts, 0);
+        }
     }
 
 }
@@ -0,0 +1,98 @@
+package org.goldfishmtg.cards;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Attaches {@link CardAttributes} to cards, allowing the card lists and hands
+ * using the registry to count cards by {@link Category} in constant time.
+ * <p>
+ * Cards that have not been registered belong to no category. Cards must be
+ * registered before the registry is given to a card list, the counters of
+ * card lists that already use the registry are not updated.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public class CardRegistry<T extends Comparable<T>> {
+
+    private static final int[] NO_CATEGORIES = new int[0];
+
+    private final Map<T, CardAttributes> attributes;
+
+    /**
+     * Creates a new empty registry
+     */
+    public CardRegistry() {
+        this.attributes = new TreeMap<T, CardAttributes>();
+    }
+
+    /**
+     * Registers the attributes of a card, replacing any previous attributes
+     *
+     * @throws IllegalArgumentException
+     *             if <code>card</code> or <code>attributes</code> is null
+     */
+    public void register(T card, CardAttributes attributes) {
+        if (card == null || attributes == null) {
+            throw new IllegalArgumentException(
+                    "card and attributes cannot be null");
+        }
+        this.attributes.put(card, attributes);
+    }
+
+    /**
+     * Returns the attributes of the specified card, or null if it has not been
+     * registered
+     */
+    public CardAttributes getAttributes(T card) {
+        return this.attributes.get(card);
+    }
+
+    /**
+     * Returns <code>true</code> if the specified card has been registered with
+     * attributes that belong to the specified category
+     */
+    public boolean belongsTo(T card, Category category) {
+        for (int id : categoriesOf(card)) {
+            if (id == category.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the specified amount to the counter of each category of the card
+     */
+    void count(T card, int amount, int[] categoryCounts) {
+        for (int category : categoriesOf(card)) {
+            categoryCounts[category] += amount;
+        }
+    }
+
+    /**
+     * Returns the ids of the categories of the specified card
+     */
+    int[] categoriesOf(T card) {
+        CardAttributes cardAttributes = this.attributes.get(card);
+        return cardAttributes == null ? NO_CATEGORIES : cardAttributes
+                .getCategories();
+    }
+
+    /**
+     * Returns the ids of the categories of each card of the specified index,
+     * by ordinal
+     */
+    int[][] categoriesOf(CardIndex<T> index) {
+        int[][] categories = new int[index.size()][];
+        for (int ordinal = 0; ordinal < categories.length; ordinal++) {
+            categories[ordinal] = categoriesOf(index.getCard(ordinal));
+        }
+        return categories;
+    }
+
+}
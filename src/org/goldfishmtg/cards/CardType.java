@@ -0,0 +1,11 @@
+package org.goldfishmtg.cards;
+
+/**
+ * The card types a card can have
+ *
+ * @author skaspersen
+ *
+ */
+public enum CardType {
+    LAND, CREATURE, ARTIFACT, ENCHANTMENT, PLANESWALKER, INSTANT, SORCERY, BATTLE
+}
@@ -0,0 +1,128 @@
+package org.goldfishmtg.cards;
+
+/**
+ * A category of cards that card lists can count in constant time once they
+ * have a {@link CardRegistry}. A card belongs to the category of each of its
+ * types, the category of its mana value, the category of each of its colors
+ * (or the {@link Color#COLORLESS} category if it has none), and the source
+ * category of each color of mana it produces.
+ *
+ * @author skaspersen
+ *
+ * @see CardList#getCount(Category)
+ */
+public final class Category {
+
+    /**
+     * The largest mana value with its own category, cards with a larger mana
+     * value are counted in this category
+     */
+    public static final int MAX_MANA_VALUE = 16;
+
+    private static final Category[] TYPES;
+    private static final Category[] MANA_VALUES;
+    private static final Category[] COLORS;
+    private static final Category[] SOURCES;
+    private static final int COUNT;
+
+    static {
+        int id = 0;
+        TYPES = new Category[CardType.values().length];
+        for (CardType type : CardType.values()) {
+            TYPES[type.ordinal()] = new Category(id++, type.toString());
+        }
+        MANA_VALUES = new Category[MAX_MANA_VALUE + 1];
+        for (int i = 0; i <= MAX_MANA_VALUE; i++) {
+            MANA_VALUES[i] = new Category(id++, "MANA_VALUE_" + i);
+        }
+        COLORS = new Category[Color.values().length];
+        for (Color color : Color.values()) {
+            COLORS[color.ordinal()] = new Category(id++, color.toString());
+        }
+        SOURCES = new Category[Color.values().length];
+        for (Color color : Color.values()) {
+            SOURCES[color.ordinal()] = new Category(id++, color + "_SOURCE");
+        }
+        COUNT = id;
+    }
+
+    private final int id;
+    private final String name;
+
+    private Category(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Returns the category of the cards of the specified type
+     */
+    public static Category type(CardType type) {
+        return TYPES[type.ordinal()];
+    }
+
+    /**
+     * Returns the category of the cards with the specified mana value
+     *
+     * @throws IllegalArgumentException
+     *             if <code>manaValue</code> is negative
+     */
+    public static Category manaValue(int manaValue) {
+        if (manaValue < 0) {
+            throw new IllegalArgumentException("manaValue cannot be negative");
+        }
+        return MANA_VALUES[Math.min(manaValue, MAX_MANA_VALUE)];
+    }
+
+    /**
+     * Returns the category of the cards of the specified color
+     */
+    public static Category color(Color color) {
+        return COLORS[color.ordinal()];
+    }
+
+    /**
+     * Returns the category of the cards producing mana of the specified color
+     */
+    public static Category source(Color color) {
+        return SOURCES[color.ordinal()];
+    }
+
+    /**
+     * Returns the category with the specified name, such as
+     * <code>LAND</code>, <code>MANA_VALUE_2</code>, <code>RED</code> or
+     * <code>RED_SOURCE</code>
+     *
+     * @throws IllegalArgumentException
+     *             if there is no category with the name
+     */
+    public static Category valueOf(String name) {
+        for (Category[] categories : new Category[][] { TYPES, MANA_VALUES,
+                COLORS, SOURCES }) {
+            for (Category category : categories) {
+                if (category.name.equals(name)) {
+                    return category;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No category named '" + name
+                + "'");
+    }
+
+    /**
+     * Returns the number of categories
+     */
+    static int count() {
+        return COUNT;
+    }
+
+    int getId() {
+        return this.id;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
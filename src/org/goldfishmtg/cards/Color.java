@@ -0,0 +1,12 @@
+package org.goldfishmtg.cards;
+
+/**
+ * The colors of cards and of the mana they produce. {@link #COLORLESS} stands
+ * for cards without a color, and for colorless mana.
+ *
+ * @author skaspersen
+ *
+ */
+public enum Color {
+    WHITE, BLUE, BLACK, RED, GREEN, COLORLESS
+}
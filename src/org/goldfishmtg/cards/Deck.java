@@ -0,0 +1,260 @@
+package org.goldfishmtg.cards;
+
+import java.util.Arrays;
+
+/**
+ * An immutable list of cards that makes up a library. Unlike a
+ * {@link CardList} a deck can safely be shared between simulations running on
+ * different threads, and it keeps its size and its cards expanded by ordinal so
+ * that libraries can be created from it without walking a tree of cards.
+ * <p>
+ * Variants of a deck created with {@link #withCards(Comparable, int)} and
+ * {@link #withoutCards(Comparable, int)} share the card index of the deck they
+ * are made from whenever the card is already part of it, so a variant costs
+ * little more than one counter per distinct card.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public final class Deck<T extends Comparable<T>> {
+
+    private final CardIndex<T> index;
+    private final int[] counts;
+    private final int size;
+    private final int hash;
+    /*
+     * The ordinal of every card in the deck, created when first needed and
+     * shared by every library created from this deck
+     */
+    private volatile int[] ordinals;
+
+    private Deck(CardIndex<T> index, int[] counts) {
+        this.index = index;
+        this.counts = counts;
+        int total = 0;
+        int h = 1;
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            total += counts[ordinal];
+            if (counts[ordinal] > 0) {
+                h += index.getCard(ordinal).hashCode() ^ counts[ordinal];
+            }
+        }
+        this.size = total;
+        this.hash = h;
+    }
+
+    /**
+     * Returns a deck containing the cards of the specified card list. Later
+     * changes to the card list do not affect the deck.
+     *
+     * @param cardList
+     *            the cards of the deck
+     * @return a deck containing the cards of the card list
+     * @throws IllegalArgumentException
+     *             if <code>cardList</code> is null
+     */
+    public static <T extends Comparable<T>> Deck<T> of(CardList<T> cardList) {
+        CardIndex<T> index = new CardIndex<T>(cardList);
+        int[] counts = new int[index.size()];
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            counts[ordinal] = cardList.getCount(index.getCard(ordinal));
+        }
+        return new Deck<T>(index, counts);
+    }
+
+    /**
+     * Returns the index assigning an ordinal to each card of this deck. The
+     * index may contain cards this deck has none of.
+     */
+    public CardIndex<T> getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the total amount of cards in this deck
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of the specified card contained in this deck
+     */
+    public int getCount(T card) {
+        int ordinal = this.index.ordinalOf(card);
+        return ordinal < 0 ? 0 : this.counts[ordinal];
+    }
+
+    /**
+     * Returns the number of the card with the specified ordinal contained in
+     * this deck
+     *
+     * @throws IndexOutOfBoundsException
+     *             if there is no card with the specified ordinal
+     */
+    public int countOf(int ordinal) {
+        return this.counts[ordinal];
+    }
+
+    /**
+     * Returns a deck containing the cards of this deck and the specified
+     * amount of the specified card
+     *
+     * @param card
+     *            the card to add
+     * @param amount
+     *            the amount of the card to add
+     * @return a variant of this deck
+     * @throws IllegalArgumentException
+     *             if <code>amount</code> is negative, or <code>card</code> is
+     *             null
+     */
+    public Deck<T> withCards(T card, int amount) {
+        if (card == null) {
+            throw new IllegalArgumentException("card cannot be null");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("amount cannot be negative");
+        }
+        if (amount == 0) {
+            return this;
+        }
+        int ordinal = this.index.ordinalOf(card);
+        if (ordinal >= 0) {
+            int[] newCounts = this.counts.clone();
+            newCounts[ordinal] += amount;
+            return new Deck<T>(this.index, newCounts);
+        }
+        CardIndex<T> newIndex = this.index.with(card);
+        int insertAt = newIndex.ordinalOf(card);
+        int[] newCounts = new int[this.counts.length + 1];
+        System.arraycopy(this.counts, 0, newCounts, 0, insertAt);
+        newCounts[insertAt] = amount;
+        System.arraycopy(this.counts, insertAt, newCounts, insertAt + 1,
+                this.counts.length - insertAt);
+        return new Deck<T>(newIndex, newCounts);
+    }
+
+    /**
+     * Returns a deck containing the cards of this deck without the specified
+     * amount of the specified card
+     *
+     * @param card
+     *            the card to remove
+     * @param amount
+     *            the amount of the card to remove
+     * @return a variant of this deck
+     * @throws IllegalArgumentException
+     *             if <code>amount</code> is negative, <code>card</code> is
+     *             null, or this deck has fewer than <code>amount</code> of the
+     *             card
+     */
+    public Deck<T> withoutCards(T card, int amount) {
+        if (card == null) {
+            throw new IllegalArgumentException("card cannot be null");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("amount cannot be negative");
+        }
+        if (getCount(card) < amount) {
+            throw new IllegalArgumentException("Deck has fewer than " + amount
+                    + " of '" + card + "'");
+        }
+        if (amount == 0) {
+            return this;
+        }
+        int[] newCounts = this.counts.clone();
+        newCounts[this.index.ordinalOf(card)] -= amount;
+        return new Deck<T>(this.index, newCounts);
+    }
+
+    /**
+     * Returns a new card list containing all the cards in this deck
+     */
+    public CardList<T> toCardList() {
+        CardList<T> cardList = new CardList<T>();
+        for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+            if (this.counts[ordinal] > 0) {
+                cardList.addCards(this.index.getCard(ordinal),
+                        this.counts[ordinal]);
+            }
+        }
+        return cardList;
+    }
+
+    /**
+     * Returns the ordinal of every card in this deck, ordered by ordinal. The
+     * returned array is shared and must not be modified.
+     */
+    int[] ordinals() {
+        int[] result = this.ordinals;
+        if (result == null) {
+            result = new int[this.size];
+            int position = 0;
+            for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+                for (int i = 0; i < this.counts[ordinal]; i++) {
+                    result[position++] = ordinal;
+                }
+            }
+            this.ordinals = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified object is a deck containing
+     * the same cards as this deck
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Deck)) {
+            return false;
+        }
+        Deck<?> other = (Deck<?>) obj;
+        if (this.size != other.size || this.hash != other.hash) {
+            return false;
+        }
+        if (this.index == other.index) {
+            return Arrays.equals(this.counts, other.counts);
+        }
+        return containsAll(other);
+    }
+
+    /**
+     * Returns <code>true</code> if the specified deck has at least as many of
+     * each card as this deck
+     */
+    @SuppressWarnings("unchecked")
+    private boolean containsAll(Deck<?> other) {
+        try {
+            for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+                if (this.counts[ordinal] > 0
+                        && ((Deck<T>) other).getCount(this.index
+                                .getCard(ordinal)) < this.counts[ordinal]) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (ClassCastException e) {
+            // The decks hold different types of cards
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toCardList().toString();
+    }
+
+}
@@ -0,0 +1,387 @@
+package org.goldfishmtg.cards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hand of cards drawn from a library. The hand keeps one counter per card of
+ * a {@link CardIndex}, along with its size and hash code, so that counting,
+ * snapshots and comparisons never need to walk a tree of cards.
+ * <p>
+ * A hand is a {@link CardList} and can be used wherever one is expected, but
+ * it can only hold cards that are part of its card index. Given a
+ * {@link CardRegistry}, the categories of each ordinal are looked up once and
+ * the category counters are updated along with the card counters.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public class Hand<T extends Comparable<T>> extends CardList<T> {
+
+    private final CardIndex<T> index;
+    private int[] counts;
+    /*
+     * Set when the counts are shared with a snapshot, the counts are copied
+     * before they are next modified
+     */
+    private boolean shared;
+    private int size;
+    private int hash;
+    private CardRegistry<T> registry;
+    /*
+     * The categories of each ordinal and the category counters, null without a
+     * registry. The counters are shared along with the counts.
+     */
+    private int[][] categories;
+    private int[] categoryCounts;
+
+    /**
+     * Creates a new empty hand for the cards of the specified index
+     *
+     * @param index
+     *            the index of the cards that can be held in this hand
+     * @throws IllegalArgumentException
+     *             if <code>index</code> is null
+     */
+    public Hand(CardIndex<T> index) {
+        super(false);
+        if (index == null) {
+            throw new IllegalArgumentException("index cannot be null");
+        }
+        this.index = index;
+        this.counts = new int[index.size()];
+        this.shared = false;
+        this.size = 0;
+        this.hash = 0;
+    }
+
+    /**
+     * Creates a new hand for the cards of the specified index, initially
+     * containing all the cards of the specified card list
+     *
+     * @param index
+     *            the index of the cards that can be held in this hand
+     * @param cardList
+     *            the initial cards of this hand
+     * @throws IllegalArgumentException
+     *             if <code>index</code> is null, or any of the cards are not
+     *             part of the index
+     */
+    public Hand(CardIndex<T> index, CardList<T> cardList) {
+        this(index);
+        setCardRegistry(cardList.getCardRegistry());
+        cardList.addAllTo(this);
+    }
+
+    private Hand(Hand<T> hand) {
+        super(false);
+        this.index = hand.index;
+        this.counts = hand.counts;
+        this.shared = true;
+        this.size = hand.size;
+        this.hash = hand.hash;
+        this.registry = hand.registry;
+        this.categories = hand.categories;
+        this.categoryCounts = hand.categoryCounts;
+    }
+
+    /**
+     * Returns the index of the cards that can be held in this hand
+     */
+    public CardIndex<T> getIndex() {
+        return this.index;
+    }
+
+    @Override
+    public void setCardRegistry(CardRegistry<T> registry) {
+        this.registry = registry;
+        if (registry == null) {
+            this.categories = null;
+            this.categoryCounts = null;
+        } else {
+            this.categories = registry.categoriesOf(this.index);
+            this.categoryCounts = new int[Category.count()];
+            for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+                for (int category : this.categories[ordinal]) {
+                    this.categoryCounts[category] += this.counts[ordinal];
+                }
+            }
+        }
+    }
+
+    @Override
+    public CardRegistry<T> getCardRegistry() {
+        return this.registry;
+    }
+
+    @Override
+    public int getCount(Category category) {
+        if (this.categoryCounts == null) {
+            throw new IllegalStateException("hand has no card registry");
+        }
+        return this.categoryCounts[category.getId()];
+    }
+
+    /**
+     * Returns a copy of this hand. The copy shares the counters of this hand
+     * until either of them is modified, which makes taking a snapshot a
+     * constant time operation.
+     *
+     * @return a hand equal to this hand
+     */
+    public Hand<T> snapshot() {
+        this.shared = true;
+        return new Hand<T>(this);
+    }
+
+    /**
+     * Returns the number of cards with the specified ordinal contained in this
+     * hand
+     *
+     * @param ordinal
+     *            the ordinal of the card in the index of this hand
+     * @throws IndexOutOfBoundsException
+     *             if there is no card with the specified ordinal
+     */
+    public int countOf(int ordinal) {
+        return this.counts[ordinal];
+    }
+
+    /**
+     * Adds 1 of the card with the specified ordinal to this hand
+     *
+     * @param ordinal
+     *            the ordinal of the card in the index of this hand
+     * @throws IndexOutOfBoundsException
+     *             if there is no card with the specified ordinal
+     */
+    public void addOrdinal(int ordinal) {
+        modify()[ordinal]++;
+        this.size++;
+        this.hash += mix(ordinal);
+        if (this.categories != null) {
+            countCategories(ordinal, 1);
+        }
+    }
+
+    /**
+     * Removes 1 of the card with the specified ordinal from this hand.
+     * Returns <code>true</code> if the card was in this hand
+     *
+     * @param ordinal
+     *            the ordinal of the card in the index of this hand
+     * @return <code>true</code> if this hand changed as a result of this call
+     * @throws IndexOutOfBoundsException
+     *             if there is no card with the specified ordinal
+     */
+    public boolean removeOrdinal(int ordinal) {
+        if (this.counts[ordinal] == 0) {
+            return false;
+        }
+        modify()[ordinal]--;
+        this.size--;
+        this.hash -= mix(ordinal);
+        if (this.categories != null) {
+            countCategories(ordinal, -1);
+        }
+        return true;
+    }
+
+    /**
+     * Draws a card from the specified library into this hand
+     *
+     * @param library
+     *            a library sharing the card index of this hand
+     * @return <code>true</code> if a card was drawn, <code>false</code> if the
+     *         library had no cards left
+     */
+    public boolean drawFrom(Library<T> library) {
+        int ordinal = library.drawOrdinal();
+        if (ordinal < 0) {
+            return false;
+        }
+        addOrdinal(ordinal);
+        return true;
+    }
+
+    @Override
+    public int getCount(T card) {
+        int ordinal = this.index.ordinalOf(card);
+        return ordinal < 0 ? 0 : this.counts[ordinal];
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException
+     *             if <code>card</code> is not part of the index of this hand
+     */
+    @Override
+    public void addCards(T card, int amount) {
+        if (card == null) {
+            throw new IllegalArgumentException("card cannot be null");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("amount cannot be negative");
+        }
+        int ordinal = this.index.ordinalOf(card);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Card '" + card
+                    + "' is not part of the index");
+        }
+        if (amount > 0) {
+            modify()[ordinal] += amount;
+            this.size += amount;
+            this.hash += amount * mix(ordinal);
+            if (this.categories != null) {
+                countCategories(ordinal, amount);
+            }
+        }
+    }
+
+    @Override
+    public boolean removeCards(T card, int amount) {
+        if (card == null) {
+            throw new IllegalArgumentException("card cannot be null");
+        }
+        int ordinal = this.index.ordinalOf(card);
+        if (amount > 0 && ordinal >= 0 && this.counts[ordinal] >= amount) {
+            modify()[ordinal] -= amount;
+            this.size -= amount;
+            this.hash -= amount * mix(ordinal);
+            if (this.categories != null) {
+                countCategories(ordinal, -amount);
+            }
+            return true;
+        } else if (amount < 0) {
+            throw new IllegalArgumentException("amount cannot be negative");
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public List<T> asList() {
+        List<T> list = new ArrayList<T>(this.size);
+        for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+            T card = this.index.getCard(ordinal);
+            for (int i = 0; i < this.counts[ordinal]; i++) {
+                list.add(card);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void clear() {
+        if (this.shared) {
+            this.counts = new int[this.counts.length];
+            if (this.categoryCounts != null) {
+                this.categoryCounts = new int[this.categoryCounts.length];
+            }
+            this.shared = false;
+        } else {
+            Arrays.fill(this.counts, 0);
+            if (this.categoryCounts != null) {
+                Arrays.fill(this.categoryCounts, 0);
+            }
+        }
+        this.size = 0;
+        this.hash = 0;
+    }
+
+    @Override
+    void addAllTo(CardList<T> cardList) {
+        for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+            if (this.counts[ordinal] > 0) {
+                cardList.addCards(this.index.getCard(ordinal),
+                        this.counts[ordinal]);
+            }
+        }
+    }
+
+    /**
+     * Returns a new general purpose card list containing all the cards in this
+     * hand
+     */
+    public CardList<T> toCardList() {
+        return new CardList<T>(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder bld = new StringBuilder();
+        for (int ordinal = 0; ordinal < this.counts.length; ordinal++) {
+            if (this.counts[ordinal] > 0) {
+                bld.append(this.counts[ordinal]).append(" x ")
+                        .append(this.index.getCard(ordinal));
+                bld.append("\n");
+            }
+        }
+        bld.append("Total ").append(this.size).append(" cards");
+        return bld.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified object is a hand over the same
+     * card index holding the same cards as this hand
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Hand)) {
+            return false;
+        }
+        Hand<?> other = (Hand<?>) obj;
+        return this.index == other.index && this.size == other.size
+                && this.hash == other.hash
+                && (this.counts == other.counts || Arrays.equals(this.counts,
+                        other.counts));
+    }
+
+    private int[] modify() {
+        if (this.shared) {
+            this.counts = this.counts.clone();
+            if (this.categoryCounts != null) {
+                this.categoryCounts = this.categoryCounts.clone();
+            }
+            this.shared = false;
+        }
+        return this.counts;
+    }
+
+    private void countCategories(int ordinal, int amount) {
+        for (int category : this.categories[ordinal]) {
+            this.categoryCounts[category] += amount;
+        }
+    }
+
+    /**
+     * Spreads the ordinals over the int range so that the sum of the mixed
+     * values of the cards in a hand makes a well distributed hash code
+     */
+    private static int mix(int ordinal) {
+        int h = (ordinal + 1) * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+}
@@ -1,10 +1,10 @@
 package org.goldfishmtg.cards;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
+import org.goldfishmtg.util.IntDeque;
+
 /**
  * Acts as a library to draw cards from. Also provides mechanisms for tutoring
  * and placing cards on the top or bottom of the library
@@ -17,16 +17,61 @@ import java.util.Random;
  */
 public class Library<T extends Comparable<T>> {
 
-    private final CardList<T> cards;
+    private final Deck<T> deck;
+    private final CardIndex<T> index;
     private final Random rng;
-    private List<T> list;
-    private List<T> drawn;
-    private LinkedList<T> top;
-    private LinkedList<T> bottom;
+    private int[] order;
+    private IntDeque top;
+    private IntDeque bottom;
+    /*
+     * The order array always holds the ordinal of every card of the deck. It
+     * is split in three regions: [0, pool) are the cards left to be drawn at
+     * random, [pool, order.length - drawn) are the cards that were placed on
+     * the top or bottom of this library, and the last drawn positions hold the
+     * cards that have been drawn. Since draws pick uniformly from the pool
+     * region the order within it never matters, so resetting only has to move
+     * the boundaries back.
+     */
+    private int pool;
+    private int drawn;
+    /*
+     * Set when the pool was loaded with a shuffled order, the pool is then
+     * drawn from its end without using the random number generator
+     */
+    private boolean preordered;
+    /*
+     * The number of each card in the pool region, only maintained once a
+     * probability has been asked for since the last reset or shuffle, so that
+     * libraries that are never queried do not pay for it
+     */
+    private int[] poolCounts;
+    private boolean poolCounted;
+    /*
+     * The weight of each ordinal when drawing at random, null when drawing
+     * uniformly. The array is replaced rather than modified so that forks can
+     * share it. The likelihood ratio is the product, over the cards drawn at
+     * random since it was cleared, of the probability of drawing the card
+     * uniformly over the probability of drawing it with the weights.
+     */
+    private double[] drawWeights;
+    private double likelihoodRatio = 1;
+    /*
+     * The total weight of the pool and the largest weight of a card in it,
+     * computed from the pool counts on the first weighted draw and then kept
+     * up to date as cards are drawn from the pool
+     */
+    private double poolWeight;
+    private double maxPoolWeight;
+    private boolean poolWeighted;
+    /*
+     * Set when the arrays above are shared with a fork, they are copied before
+     * they are next modified
+     */
+    private boolean shared;
 
     /**
      * Creates a new library initially containing all the cards in the specified
-     * card list
+     * card list. Later changes to the card list do not affect the library.
      *
      * @param cards
      *            the initial list of cards
@@ -37,7 +82,7 @@ public class Library<T extends Comparable<T>> {
 
     /**
      * Creates a new library initially containing all the cards in the specified
-     * card list
+     * card list. Later changes to the card list do not affect the library.
      *
      *
      *
@@ -47,35 +92,177 @@ public class Library<T extends Comparable<T>> {
      *            the initial list of cards
      */
     public Library(Random rng, CardList<T> cards) {
+        this(rng, toDeck(cards));
+    }
+
+    /**
+     * Creates a new library initially containing all the cards in the specified
+     * deck
+     *
+     * @param deck
+     *            the initial cards
+     */
+    public Library(Deck<T> deck) {
+        this(new Random(), deck);
+    }
+
+    /**
+     * Creates a new library initially containing all the cards in the specified
+     * deck
+     *
+     * @param rng
+     *            the random number generator to use
+     * @param deck
+     *            the initial cards
+     */
+    public Library(Random rng, Deck<T> deck) {
         if (rng == null) {
             throw new IllegalArgumentException("random cannot be null");
         }
-        if (cards == null) {
-            throw new IllegalArgumentException("cards cannot be null");
+        if (deck == null) {
+            throw new IllegalArgumentException("deck cannot be null");
         }
-        this.cards = cards;
+        this.deck = deck;
         this.rng = rng;
+        this.index = deck.getIndex();
+        this.order = deck.ordinals().clone();
+        this.top = new IntDeque(this.order.length);
+        this.bottom = new IntDeque(this.order.length);
+        this.poolCounts = new int[this.index.size()];
+        this.shared = false;
 
-        int totalCards = this.cards.size();
+        reset();
+    }
 
-        this.list = new LinkedList<T>();
-        this.drawn = new ArrayList<T>(totalCards);
-        this.top = new LinkedList<T>();
-        this.bottom = new LinkedList<T>();
+    private Library(Library<T> library, Random rng) {
+        this.deck = library.deck;
+        this.rng = rng;
+        this.index = library.index;
+        this.order = library.order;
+        this.top = library.top;
+        this.bottom = library.bottom;
+        this.pool = library.pool;
+        this.drawn = library.drawn;
+        this.poolCounts = library.poolCounts;
+        this.poolCounted = library.poolCounted;
+        // A fork draws its pool at random, never in the order of this library
+        this.preordered = false;
+        this.drawWeights = library.drawWeights;
+        this.likelihoodRatio = library.likelihoodRatio;
+        this.poolWeight = library.poolWeight;
+        this.maxPoolWeight = library.maxPoolWeight;
+        this.poolWeighted = library.poolWeighted;
+        this.shared = true;
+    }
 
-        reset();
+    /**
+     * Returns a copy of this library in its current state, drawing with a
+     * random number generator seeded from the generator of this library. The
+     * copy shares the state of this library until either of them is modified,
+     * which makes forking a constant time operation. Together with
+     * {@link Hand#snapshot()} this allows agents to play games ahead from the
+     * current state without disturbing it.
+     * <p>
+     * The copy of a library reset with a shuffled order draws the cards left in
+     * that order at random, so that it does not see the cards this library will
+     * draw next.
+     *
+     * @return a library holding the same cards in the same places
+     */
+    public Library<T> fork() {
+        return fork(new Random(this.rng.nextLong()));
+    }
+
+    /**
+     * Returns a copy of this library in its current state, drawing with the
+     * specified random number generator
+     *
+     * @param rng
+     *            the random number generator of the copy
+     * @return a library holding the same cards in the same places
+     * @see #fork()
+     */
+    public Library<T> fork(Random rng) {
+        if (rng == null) {
+            throw new IllegalArgumentException("random cannot be null");
+        }
+        this.shared = true;
+        return new Library<T>(this, rng);
+    }
+
+    private static <T extends Comparable<T>> Deck<T> toDeck(CardList<T> cards) {
+        if (cards == null) {
+            throw new IllegalArgumentException("cards cannot be null");
+        }
+        return Deck.of(cards);
     }
 
     /**
      * Resets this library to its original state, this equates to adding all
-     * cards back into this library and shuffling it
+     * cards back into this library and shuffling it. Only the cards placed on
+     * the top or bottom of this library are touched, the cost of a reset does
+     * not depend on the size of the library.
+     * <p>
+     * A library that has not been touched since it was reset with a shuffled
+     * order keeps that order.
      */
     public void reset() {
-        this.list.clear();
+        if (this.pool == this.order.length) {
+            // Every card is already in the pool
+            return;
+        }
+        modify();
         this.top.clear();
         this.bottom.clear();
-        this.drawn.clear();
-        this.list.addAll(this.cards.asList());
+        this.pool = this.order.length;
+        this.drawn = 0;
+        this.poolCounted = false;
+        this.poolWeighted = false;
+        this.preordered = false;
+    }
+
+    /**
+     * Resets this library to its original state with the cards in an order
+     * that was shuffled in advance. The cards that would be drawn at random
+     * are drawn in the specified order instead, without using the random
+     * number generator, until this library is next shuffled or reset.
+     *
+     * @param ordinals
+     *            an array holding a uniformly shuffled permutation of the
+     *            ordinals of the cards of the deck of this library, such as
+     *            the ones produced by a {@link ShufflePipeline}
+     * @param offset
+     *            the position of the first card of the permutation, which is
+     *            the first card to be drawn
+     * @throws IllegalArgumentException
+     *             if the array does not hold a whole deck at the offset, or
+     *             holds ordinals outside of the card index of this library
+     */
+    public void reset(int[] ordinals, int offset) {
+        if (offset < 0 || offset + this.order.length > ordinals.length) {
+            throw new IllegalArgumentException(
+                    "ordinals do not hold a whole deck at offset " + offset);
+        }
+        int cards = this.index.size();
+        for (int i = offset; i < offset + this.order.length; i++) {
+            if (ordinals[i] < 0 || ordinals[i] >= cards) {
+                throw new IllegalArgumentException("ordinal " + ordinals[i]
+                        + " is not part of the card index");
+            }
+        }
+        modify();
+        this.top.clear();
+        this.bottom.clear();
+        // The pool is drawn from its end
+        int last = this.order.length - 1;
+        for (int i = 0; i <= last; i++) {
+            this.order[i] = ordinals[offset + last - i];
+        }
+        this.pool = this.order.length;
+        this.drawn = 0;
+        this.poolCounted = false;
+        this.poolWeighted = false;
+        this.preordered = true;
     }
 
     /**
@@ -84,11 +271,80 @@ public class Library<T extends Comparable<T>> {
      * does not add drawn cards back to this library.
      */
     public void shuffle() {
-        this.list.addAll(this.top);
+        modify();
         this.top.clear();
-
-        this.list.addAll(this.bottom);
         this.bottom.clear();
+        this.pool = this.order.length - this.drawn;
+        this.poolCounted = false;
+        this.poolWeighted = false;
+        this.preordered = false;
+    }
+
+    /**
+     * Biases the cards drawn at random towards or away from the specified
+     * card, for importance sampling of rare events. A card of the pool is
+     * drawn with a probability proportional to its weight instead of
+     * uniformly, every card having a weight of 1 by default. Each card drawn
+     * at random multiplies the {@link #getLikelihoodRatio() likelihood ratio}
+     * so that statistics weighted by it remain unbiased. Cards drawn from a
+     * preordered library are not biased.
+     *
+     * @param card
+     *            the card to bias
+     * @param weight
+     *            the weight of the card
+     * @throws IllegalArgumentException
+     *             if the card is not part of the deck of this library, or the
+     *             weight is not positive and finite
+     */
+    public void setDrawWeight(T card, double weight) {
+        int ordinal = this.index.ordinalOf(card);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Card '" + card
+                    + "' is not part of the deck");
+        }
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException(
+                    "weight must be positive and finite");
+        }
+        double[] weights;
+        if (this.drawWeights == null) {
+            weights = new double[this.index.size()];
+            Arrays.fill(weights, 1);
+        } else {
+            weights = this.drawWeights.clone();
+        }
+        weights[ordinal] = weight;
+        this.drawWeights = weights;
+        this.poolWeighted = false;
+    }
+
+    /**
+     * Removes the weights of all cards, drawing uniformly again
+     */
+    public void clearDrawWeights() {
+        this.drawWeights = null;
+        this.poolWeighted = false;
+    }
+
+    /**
+     * Returns the likelihood ratio of the cards drawn at random since the
+     * ratio was last cleared: the probability of drawing them uniformly over
+     * the probability of drawing them with the current weights. Weighting the
+     * outcome of a game by this ratio gives an unbiased estimate of its
+     * expected value under uniform draws. The ratio is 1 without weights.
+     *
+     * @see #setDrawWeight(Comparable, double)
+     */
+    public double getLikelihoodRatio() {
+        return this.likelihoodRatio;
+    }
+
+    /**
+     * Sets the likelihood ratio back to 1, typically at the start of a game
+     */
+    public void clearLikelihoodRatio() {
+        this.likelihoodRatio = 1;
     }
 
     /**
@@ -100,21 +356,41 @@ public class Library<T extends Comparable<T>> {
      *         no cards left
      */
     public T draw() {
-        T card;
-        if (this.top.size() > 0) {
-            card = this.top.removeFirst();
-        } else if (this.list.size() > 0) {
-            int cardIndex = this.rng.nextInt(this.list.size());
-            card = this.list.remove(cardIndex);
-        } else if (this.bottom.size() > 0) {
-            card = this.bottom.removeFirst();
+        int ordinal = drawOrdinal();
+        return ordinal < 0 ? null : this.index.getCard(ordinal);
+    }
+
+    /**
+     * Draws a card from this library the same way as {@link #draw()} does, but
+     * returns the ordinal of the card in the {@link #getIndex() card index}
+     * instead of the card itself.
+     *
+     * @return the ordinal of the card on top of this library, <code>-1</code>
+     *         if there were no cards left
+     */
+    public int drawOrdinal() {
+        modify();
+        int ordinal;
+        if (!this.top.isEmpty()) {
+            ordinal = this.top.removeFirst();
+            markDrawn(ordinal);
+        } else if (this.pool > 0) {
+            int cardIndex;
+            if (this.preordered) {
+                cardIndex = this.pool - 1;
+            } else if (this.drawWeights == null) {
+                cardIndex = this.rng.nextInt(this.pool);
+            } else {
+                cardIndex = weightedIndex();
+            }
+            ordinal = drawFromPool(cardIndex);
+        } else if (!this.bottom.isEmpty()) {
+            ordinal = this.bottom.removeFirst();
+            markDrawn(ordinal);
         } else {
-            card = null;
-        }
-        if (card != null) {
-            this.drawn.add(card);
+            ordinal = -1;
         }
-        return card;
+        return ordinal;
     }
 
     /**
@@ -128,12 +404,14 @@ public class Library<T extends Comparable<T>> {
      */
     public T tutor(T card) {
         shuffle();
-        if (this.list.remove(card)) {
-            this.drawn.add(card);
-            return card;
-        } else {
-            return null;
+        int ordinal = this.index.ordinalOf(card);
+        for (int i = 0; i < this.pool; i++) {
+            if (this.order[i] == ordinal) {
+                drawFromPool(i);
+                return card;
+            }
         }
+        return null;
     }
 
     /**
@@ -146,8 +424,10 @@ public class Library<T extends Comparable<T>> {
      *             if the card was never drawn from this library
      */
     public final void top(T card) throws IllegalArgumentException {
-        if (this.drawn.remove(card)) {
-            this.top.addFirst(card);
+        modify();
+        int ordinal = this.index.ordinalOf(card);
+        if (returnDrawn(ordinal)) {
+            this.top.addFirst(ordinal);
         } else {
             throw cardNotDrawn(card);
         }
@@ -167,7 +447,7 @@ public class Library<T extends Comparable<T>> {
     @SafeVarargs
     public final void top(T... cards) throws IllegalArgumentException {
         for (T card : cards) {
-            if (!this.drawn.contains(card)) {
+            if (indexOfDrawn(this.index.ordinalOf(card)) < 0) {
                 throw cardNotDrawn(card);
             }
         }
@@ -187,8 +467,10 @@ public class Library<T extends Comparable<T>> {
      *             if the card was never drawn from this library
      */
     public void bottom(T card) {
-        if (this.drawn.remove(card)) {
-            this.bottom.addLast(card);
+        modify();
+        int ordinal = this.index.ordinalOf(card);
+        if (returnDrawn(ordinal)) {
+            this.bottom.addLast(ordinal);
         } else {
             throw cardNotDrawn(card);
         }
@@ -208,7 +490,7 @@ public class Library<T extends Comparable<T>> {
     @SafeVarargs
     public final void bottom(T... cards) {
         for (T card : cards) {
-            if (!this.drawn.contains(card)) {
+            if (indexOfDrawn(this.index.ordinalOf(card)) < 0) {
                 throw cardNotDrawn(card);
             }
         }
@@ -221,7 +503,301 @@ public class Library<T extends Comparable<T>> {
      * Returns the number of cards left to draw from this library
      */
     public int cardsRemaining() {
-        return this.cards.size() - this.drawn.size();
+        return this.order.length - this.drawn;
+    }
+
+    /**
+     * Returns the number of the specified card left to draw from this library
+     */
+    public int getCount(T card) {
+        int ordinal = this.index.ordinalOf(card);
+        if (ordinal < 0) {
+            return 0;
+        }
+        countPool();
+        int count = this.poolCounts[ordinal];
+        for (int i = this.pool; i < this.order.length - this.drawn; i++) {
+            if (this.order[i] == ordinal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the exact probability of drawing at least the specified number
+     * of the specified cards in the next draws from this library. The cards
+     * placed on the top of this library are drawn first, and the cards placed
+     * on the bottom are only drawn once all other cards have been drawn.
+     *
+     * @param atLeast
+     *            the least number of the cards to draw
+     * @param draws
+     *            the number of cards drawn, draws past the last card of this
+     *            library draw nothing
+     * @param cards
+     *            the cards to count, each distinct card is counted once
+     * @return the probability of drawing at least <code>atLeast</code> of the
+     *         cards
+     * @throws IllegalArgumentException
+     *             if <code>atLeast</code> or <code>draws</code> is negative
+     */
+    @SafeVarargs
+    public final double probabilityOfDrawing(int atLeast, int draws,
+            T... cards) {
+        int[] ordinals = new int[cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            ordinals[i] = this.index.ordinalOf(cards[i]);
+        }
+        return probabilityOfDrawingOrdinals(atLeast, draws, ordinals);
+    }
+
+    /**
+     * Returns the exact probability of drawing at least the specified number
+     * of the cards with the specified ordinals in the next draws from this
+     * library, the same way as {@link #probabilityOfDrawing(int, int, Comparable...)}
+     * does. Ordinals that are negative are ignored.
+     *
+     * @param atLeast
+     *            the least number of the cards to draw
+     * @param draws
+     *            the number of cards drawn
+     * @param ordinals
+     *            the ordinals of the cards to count in the card index
+     * @return the probability of drawing at least <code>atLeast</code> of the
+     *         cards
+     * @throws IllegalArgumentException
+     *             if <code>atLeast</code> or <code>draws</code> is negative
+     */
+    public double probabilityOfDrawingOrdinals(int atLeast, int draws,
+            int... ordinals) {
+        if (atLeast < 0) {
+            throw new IllegalArgumentException("atLeast cannot be negative");
+        }
+        if (draws < 0) {
+            throw new IllegalArgumentException("draws cannot be negative");
+        }
+        // Cards known to be drawn from the top
+        int fromTop = Math.min(draws, this.top.size());
+        int known = 0;
+        for (int i = 0; i < fromTop; i++) {
+            known += contains(ordinals, this.top.get(i)) ? 1 : 0;
+        }
+        // Cards drawn at random, then cards known to be drawn from the bottom
+        int fromPool = Math.min(draws - fromTop, this.pool);
+        int fromBottom = Math.min(draws - fromTop - fromPool,
+                this.bottom.size());
+        for (int i = 0; i < fromBottom; i++) {
+            known += contains(ordinals, this.bottom.get(i)) ? 1 : 0;
+        }
+        if (known >= atLeast) {
+            return 1;
+        }
+
+        countPool();
+        int successes = 0;
+        for (int i = 0; i < ordinals.length; i++) {
+            int ordinal = ordinals[i];
+            if (ordinal >= 0 && indexOf(ordinals, ordinal) == i) {
+                successes += this.poolCounts[ordinal];
+            }
+        }
+        return hypergeometricTail(this.pool, successes, fromPool, atLeast
+                - known);
+    }
+
+    /**
+     * Returns the probability of drawing at least <code>atLeast</code>
+     * successes in <code>draws</code> draws without replacement from a
+     * population of <code>size</code> holding <code>successes</code>
+     */
+    static double hypergeometricTail(int size, int successes, int draws,
+            int atLeast) {
+        int low = Math.max(0, draws - (size - successes));
+        int high = Math.min(successes, draws);
+        if (atLeast <= low) {
+            return 1;
+        }
+        if (atLeast > high) {
+            return 0;
+        }
+        if (draws == 1) {
+            // The probability of the next draw, asked for at every draw step by
+            // conditional agents
+            return (double) successes / size;
+        }
+        // Start at the smallest possible count, each term following from the
+        // previous one
+        double p = Math.exp(logChoose(successes, low)
+                + logChoose(size - successes, draws - low)
+                - logChoose(size, draws));
+        double tail = 0;
+        for (int x = low; x <= high; x++) {
+            if (x >= atLeast) {
+                tail += p;
+            }
+            p *= (double) (successes - x) * (draws - x)
+                    / ((double) (x + 1) * (size - successes - draws + x + 1));
+        }
+        return Math.min(1, tail);
+    }
+
+    private static double logChoose(int n, int k) {
+        k = Math.min(k, n - k);
+        double log = 0;
+        for (int i = 1; i <= k; i++) {
+            log += Math.log((double) (n - k + i) / i);
+        }
+        return log;
+    }
+
+    private static boolean contains(int[] ordinals, int ordinal) {
+        return indexOf(ordinals, ordinal) >= 0;
+    }
+
+    private static int indexOf(int[] ordinals, int ordinal) {
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the cards of the pool region, unless they are already counted
+     */
+    private void countPool() {
+        if (!this.poolCounted) {
+            modify();
+            Arrays.fill(this.poolCounts, 0);
+            for (int i = 0; i < this.pool; i++) {
+                this.poolCounts[this.order[i]]++;
+            }
+            this.poolCounted = true;
+        }
+    }
+
+    /**
+     * Weighs the cards of the pool region, unless they are already weighed
+     */
+    private void weighPool() {
+        if (!this.poolWeighted) {
+            countPool();
+            double[] weights = this.drawWeights;
+            this.poolWeight = 0;
+            this.maxPoolWeight = 0;
+            for (int ordinal = 0; ordinal < weights.length; ordinal++) {
+                if (this.poolCounts[ordinal] > 0) {
+                    this.poolWeight += this.poolCounts[ordinal]
+                            * weights[ordinal];
+                    this.maxPoolWeight = Math.max(this.maxPoolWeight,
+                            weights[ordinal]);
+                }
+            }
+            this.poolWeighted = true;
+        }
+    }
+
+    /**
+     * Picks the index of a pool card with a probability proportional to its
+     * weight by rejection sampling, and accounts for it in the likelihood
+     * ratio
+     */
+    private int weightedIndex() {
+        double[] weights = this.drawWeights;
+        weighPool();
+        int cardIndex;
+        do {
+            cardIndex = this.rng.nextInt(this.pool);
+        } while (this.rng.nextDouble() * this.maxPoolWeight
+                >= weights[this.order[cardIndex]]);
+        this.likelihoodRatio *= this.poolWeight
+                / (this.pool * weights[this.order[cardIndex]]);
+        return cardIndex;
+    }
+
+    /**
+     * Moves the pool card at the specified index into the drawn region
+     */
+    private int drawFromPool(int cardIndex) {
+        int ordinal = this.order[cardIndex];
+        if (this.poolCounted) {
+            this.poolCounts[ordinal]--;
+            if (this.poolWeighted) {
+                double weight = this.drawWeights[ordinal];
+                this.poolWeight -= weight;
+                if (this.poolCounts[ordinal] == 0
+                        && weight == this.maxPoolWeight) {
+                    // The heaviest card left the pool, weigh it again
+                    this.poolWeighted = false;
+                }
+            }
+        }
+        this.pool--;
+        this.order[cardIndex] = this.order[this.pool];
+        this.order[this.pool] = ordinal;
+        markDrawn(ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Moves a card that is out of the pool but not yet drawn into the drawn
+     * region
+     */
+    private void markDrawn(int ordinal) {
+        int last = this.order.length - this.drawn - 1;
+        for (int i = this.pool; i <= last; i++) {
+            if (this.order[i] == ordinal) {
+                swap(i, last);
+                this.drawn++;
+                return;
+            }
+        }
+        throw new IllegalStateException("Card '" + this.index.getCard(ordinal)
+                + "' is not in play");
+    }
+
+    /**
+     * Moves a drawn card out of the drawn region, returns <code>false</code>
+     * if the card was never drawn
+     */
+    private boolean returnDrawn(int ordinal) {
+        int position = indexOfDrawn(ordinal);
+        if (position < 0) {
+            return false;
+        }
+        swap(position, this.order.length - this.drawn);
+        this.drawn--;
+        return true;
+    }
+
+    private int indexOfDrawn(int ordinal) {
+        if (ordinal < 0) {
+            return -1;
+        }
+        for (int i = this.order.length - this.drawn; i < this.order.length; i++) {
+            if (this.order[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void modify() {
+        if (this.shared) {
+            this.order = this.order.clone();
+            this.top = new IntDeque(this.top);
+            this.bottom = new IntDeque(this.bottom);
+            this.poolCounts = this.poolCounts.clone();
+            this.shared = false;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int ordinal = this.order[i];
+        this.order[i] = this.order[j];
+        this.order[j] = ordinal;
     }
 
     private IllegalArgumentException cardNotDrawn(T card) {
@@ -229,8 +805,27 @@ public class Library<T extends Comparable<T>> {
         throw new IllegalArgumentException(message);
     }
 
+    /**
+     * Returns a new card list containing all the cards this library was
+     * created with
+     */
     public CardList<T> getCards() {
-        return this.cards;
+        return this.deck.toCardList();
+    }
+
+    /**
+     * Returns the deck this library was created with
+     */
+    public Deck<T> getDeck() {
+        return this.deck;
+    }
+
+    /**
+     * Returns the index that assigns the ordinals used by
+     * {@link #drawOrdinal()}
+     */
+    public CardIndex<T> getIndex() {
+        return this.index;
     }
 
 }
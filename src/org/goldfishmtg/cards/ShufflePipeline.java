@@ -0,0 +1,175 @@
+package org.goldfishmtg.cards;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shuffles a deck ahead of time on dedicated producer threads. The producers
+ * fill blocks of shuffled permutations of the ordinals of the deck, which
+ * consumers take, load into their libraries with
+ * {@link Library#reset(int[], int)}, and hand back once used. The blocks are
+ * exchanged through lock-free queues and reused, so that a running pipeline
+ * does not allocate.
+ *
+ * @author skaspersen
+ *
+ */
+public class ShufflePipeline {
+
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private final Deck<?> deck;
+    private final int permutations;
+    private final int maxBlocks;
+    private final ConcurrentLinkedQueue<int[]> ready;
+    private final ConcurrentLinkedQueue<int[]> free;
+    private final AtomicInteger blocks;
+    private final Thread[] producers;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pipeline and starts its producers
+     *
+     * @param deck
+     *            the deck to shuffle
+     * @param producerCount
+     *            the number of producer threads
+     * @param permutations
+     *            the number of permutations in each block
+     * @param maxBlocks
+     *            the largest number of blocks allocated, bounding how far
+     *            ahead the producers shuffle
+     * @param seed
+     *            the seed of the random number generators of the producers
+     * @throws IllegalArgumentException
+     *             if <code>deck</code> is null or any count is not positive
+     */
+    public ShufflePipeline(Deck<?> deck, int producerCount, int permutations,
+            int maxBlocks, long seed) {
+        if (deck == null) {
+            throw new IllegalArgumentException("deck cannot be null");
+        }
+        if (producerCount < 1 || permutations < 1 || maxBlocks < 1) {
+            throw new IllegalArgumentException("counts must be positive");
+        }
+        this.deck = deck;
+        this.permutations = permutations;
+        this.maxBlocks = maxBlocks;
+        this.ready = new ConcurrentLinkedQueue<int[]>();
+        this.free = new ConcurrentLinkedQueue<int[]>();
+        this.blocks = new AtomicInteger();
+        this.closed = false;
+        SplittableRandom root = new SplittableRandom(seed);
+        this.producers = new Thread[producerCount];
+        for (int i = 0; i < producerCount; i++) {
+            this.producers[i] = new Thread(new Producer(root.split()),
+                    "shuffle-producer-" + i);
+            this.producers[i].setDaemon(true);
+            this.producers[i].start();
+        }
+    }
+
+    /**
+     * Returns the deck shuffled by this pipeline
+     */
+    public Deck<?> getDeck() {
+        return this.deck;
+    }
+
+    /**
+     * Returns the number of permutations in each block
+     */
+    public int getPermutations() {
+        return this.permutations;
+    }
+
+    /**
+     * Takes a block of shuffled permutations, waiting for one if none is
+     * ready. Permutation <code>i</code> of the block starts at
+     * <code>i * deck.size()</code>.
+     *
+     * @return a block of permutations, to be handed back with
+     *         {@link #recycle(int[])} once used
+     * @throws IllegalStateException
+     *             if the pipeline has been closed
+     */
+    public int[] take() {
+        int[] block;
+        while ((block = this.ready.poll()) == null) {
+            if (this.closed) {
+                throw new IllegalStateException("pipeline has been closed");
+            }
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+        return block;
+    }
+
+    /**
+     * Hands back a block taken from this pipeline so that it can be filled
+     * again
+     */
+    public void recycle(int[] block) {
+        this.free.add(block);
+    }
+
+    /**
+     * Stops the producers
+     */
+    public void close() {
+        this.closed = true;
+    }
+
+    private class Producer implements Runnable {
+        private final SplittableRandom rng;
+
+        Producer(SplittableRandom rng) {
+            this.rng = rng;
+        }
+
+        @Override
+        public void run() {
+            int[] ordinals = ShufflePipeline.this.deck.ordinals();
+            while (!ShufflePipeline.this.closed) {
+                int[] block = nextBlock(ordinals.length);
+                if (block == null) {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                for (int p = 0; p < ShufflePipeline.this.permutations; p++) {
+                    shuffle(ordinals, block, p * ordinals.length);
+                }
+                ShufflePipeline.this.ready.add(block);
+            }
+        }
+
+        private int[] nextBlock(int deckSize) {
+            int[] block = ShufflePipeline.this.free.poll();
+            if (block == null) {
+                int allocated = ShufflePipeline.this.blocks.get();
+                if (allocated < ShufflePipeline.this.maxBlocks
+                        && ShufflePipeline.this.blocks.compareAndSet(allocated,
+                                allocated + 1)) {
+                    block = new int[ShufflePipeline.this.permutations
+                            * deckSize];
+                }
+            }
+            return block;
+        }
+
+        /**
+         * Writes a uniformly shuffled copy of the ordinals into the block with
+         * an inside-out Fisher-Yates shuffle
+         */
+        private void shuffle(int[] ordinals, int[] block, int offset) {
+            for (int i = 0; i < ordinals.length; i++) {
+                int j = this.rng.nextInt(i + 1);
+                block[offset + i] = block[offset + j];
+                block[offset + j] = ordinals[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package org.goldfishmtg.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.simulation.Agent;
+import org.goldfishmtg.simulation.SimulationService;
+
+/**
+ * Searches for the best deck in a {@link MutationSpace} by hill climbing. Each
+ * step races the current deck against all its neighbours with successive
+ * halving: every candidate is simulated for a few games, the worse half is
+ * eliminated, and the games of the next round are doubled for the survivors.
+ * Obviously worse decks are dropped cheaply while close contenders get most of
+ * the games, the last two being simulated for the largest number of games.
+ * The search stops once the current deck wins its race, or after the maximum
+ * number of steps.
+ * <p>
+ * The simulations run on a {@link SimulationService}, so that the candidates
+ * of a round are simulated concurrently and share the service fairly with
+ * other submitters.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ * @param <A>
+ *            the agent used to simulate candidate decks
+ */
+public class DeckOptimizer<T extends Comparable<T>, A extends Agent<T>> {
+
+    public static final String SUBMITTER = "optimizer";
+
+    private final SimulationService<T> service;
+    private final Supplier<A> agents;
+    private final Objective<? super A> objective;
+    private int initialGames;
+    private int maxGames;
+    private int maxSteps;
+    private boolean skipFirstDrawStep;
+    private long gamesPlayed;
+    private double score;
+
+    /**
+     * Creates a new optimizer. By default candidates are first simulated for
+     * 1000 games, and for at most 64000 games, and the search takes at most 50
+     * steps.
+     *
+     * @param service
+     *            the service used to simulate candidate decks
+     * @param agents
+     *            creates a new agent for each simulation
+     * @param objective
+     *            scores the simulations
+     * @throws IllegalArgumentException
+     *             if any argument is null
+     */
+    public DeckOptimizer(SimulationService<T> service, Supplier<A> agents,
+            Objective<? super A> objective) {
+        if (service == null || agents == null || objective == null) {
+            throw new IllegalArgumentException(
+                    "service, agents and objective cannot be null");
+        }
+        this.service = service;
+        this.agents = agents;
+        this.objective = objective;
+        this.initialGames = 1000;
+        this.maxGames = 64000;
+        this.maxSteps = 50;
+        this.skipFirstDrawStep = false;
+    }
+
+    /**
+     * Changes the number of games every candidate is simulated for in the
+     * first round of a race
+     *
+     * @throws IllegalArgumentException
+     *             if <code>initialGames</code> is not positive
+     */
+    public void setInitialGames(int initialGames) {
+        if (initialGames < 1) {
+            throw new IllegalArgumentException("initialGames must be positive");
+        }
+        this.initialGames = initialGames;
+    }
+
+    /**
+     * Changes the largest number of games a single round may simulate a
+     * candidate for. A race ends when it is reached, the best candidate so far
+     * winning.
+     *
+     * @throws IllegalArgumentException
+     *             if <code>maxGames</code> is not positive
+     */
+    public void setMaxGames(int maxGames) {
+        if (maxGames < 1) {
+            throw new IllegalArgumentException("maxGames must be positive");
+        }
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * Changes the largest number of mutations applied to the base deck
+     *
+     * @throws IllegalArgumentException
+     *             if <code>maxSteps</code> is negative
+     */
+    public void setMaxSteps(int maxSteps) {
+        if (maxSteps < 0) {
+            throw new IllegalArgumentException("maxSteps cannot be negative");
+        }
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Changes whether the candidates are simulated on the play. By default
+     * this is set to false.
+     */
+    public void setSkipFirstDrawStep(boolean skipFirstDrawStep) {
+        this.skipFirstDrawStep = skipFirstDrawStep;
+    }
+
+    /**
+     * Returns the number of games simulated by the last search
+     */
+    public long getGamesPlayed() {
+        return this.gamesPlayed;
+    }
+
+    /**
+     * Returns the score of the deck found by the last search
+     */
+    public double getScore() {
+        return this.score;
+    }
+
+    /**
+     * Searches for the best deck reachable from the specified deck
+     *
+     * @see #optimize(Deck, MutationSpace)
+     */
+    public Deck<T> optimize(CardList<T> base, MutationSpace<T> space)
+            throws InterruptedException, ExecutionException {
+        return optimize(Deck.of(base), space);
+    }
+
+    /**
+     * Searches for the best deck reachable from the specified deck
+     *
+     * @param base
+     *            the deck the search starts from
+     * @param space
+     *            the mutations the search may apply
+     * @return the best deck found
+     * @throws ExecutionException
+     *             if a simulation failed
+     */
+    public Deck<T> optimize(Deck<T> base, MutationSpace<T> space)
+            throws InterruptedException, ExecutionException {
+        this.gamesPlayed = 0;
+        Candidate<T> current = new Candidate<T>(base);
+        for (int step = 0; step < this.maxSteps; step++) {
+            /*
+             * The current deck races again with fresh games, the score of the
+             * race it won is biased upwards by the win
+             */
+            Candidate<T> incumbent = new Candidate<T>(current.deck);
+            List<Candidate<T>> candidates = new ArrayList<Candidate<T>>();
+            candidates.add(incumbent);
+            for (Deck<T> neighbour : space.neighbours(current.deck)) {
+                candidates.add(new Candidate<T>(neighbour));
+            }
+            current = race(candidates);
+            if (current == incumbent) {
+                break;
+            }
+        }
+        if (current.games == 0) {
+            // The base deck had no neighbours to race against
+            simulate(Collections.singletonList(current), this.initialGames);
+        }
+        this.score = current.getScore();
+        return current.deck;
+    }
+
+    /**
+     * Runs successive halving rounds until two candidates are left, then
+     * settles them with a round of the largest number of games
+     */
+    private Candidate<T> race(List<Candidate<T>> candidates)
+            throws InterruptedException, ExecutionException {
+        List<Candidate<T>> alive = candidates;
+        int games = this.initialGames;
+        while (alive.size() > 1) {
+            simulate(alive, games);
+            Collections.sort(alive, BY_SCORE);
+            if (games >= this.maxGames) {
+                break;
+            }
+            if (alive.size() == 2) {
+                // Settle the final two with the largest number of games
+                games = this.maxGames;
+            } else {
+                alive = new ArrayList<Candidate<T>>(alive.subList(0,
+                        (alive.size() + 1) / 2));
+                games = (int) Math.min(2L * games, this.maxGames);
+            }
+        }
+        return alive.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void simulate(List<Candidate<T>> candidates, int games)
+            throws InterruptedException, ExecutionException {
+        List<CompletableFuture<Agent<T>>> futures = new ArrayList<CompletableFuture<Agent<T>>>();
+        for (Candidate<T> candidate : candidates) {
+            futures.add(this.service.simulateAsync(SUBMITTER, candidate.deck,
+                    this.agents.get(), games, this.skipFirstDrawStep));
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            A agent = (A) futures.get(i).get();
+            candidates.get(i).add(this.objective.score(agent), games);
+            this.gamesPlayed += games;
+        }
+    }
+
+    private static final Comparator<Candidate<?>> BY_SCORE = new Comparator<Candidate<?>>() {
+        @Override
+        public int compare(Candidate<?> o1, Candidate<?> o2) {
+            return Double.compare(o2.getScore(), o1.getScore());
+        }
+    };
+
+    /**
+     * A deck in a race, with the score of all the games it was simulated for
+     */
+    private static class Candidate<T extends Comparable<T>> {
+        private final Deck<T> deck;
+        private double scoreSum;
+        private long games;
+
+        Candidate(Deck<T> deck) {
+            this.deck = deck;
+        }
+
+        void add(double score, int games) {
+            this.scoreSum += score * games;
+            this.games += games;
+        }
+
+        double getScore() {
+            return this.games == 0 ? Double.NEGATIVE_INFINITY : this.scoreSum
+                    / this.games;
+        }
+    }
+
+}
@@ -0,0 +1,351 @@
+package org.goldfishmtg.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.simulation.Agent;
+import org.goldfishmtg.simulation.SimulationService;
+
+/**
+ * Decides which of two decks scores better with a sequential test, simulating
+ * only as many games as the difference between the decks requires.
+ * <p>
+ * The decks are simulated in rounds of interleaved batches, all batches of a
+ * round running concurrently on a {@link SimulationService}. Each pair of
+ * batches gives one observation of the difference between the scores of the
+ * decks, and after each round an always-valid confidence sequence for the
+ * mean difference is computed. The variance of the differences is unknown, so
+ * the sequence mixes the likelihood over the standardized difference and over
+ * the variance with a scale invariant prior, the t mixture of Lai. It assumes
+ * the differences are close to normal, which the mean scores of batches of
+ * many games are. Because the confidence sequence holds at every round at
+ * once, the test can stop as soon as it excludes zero, or lies within the
+ * margin of equivalence, without inflating the error rate.
+ * <p>
+ * The sequence is unbounded until enough pairs have been observed for the
+ * confidence level, and as long as all differences are identical, since they
+ * then give no estimate of their spread.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ * @param <A>
+ *            the agent used to simulate the decks
+ */
+public class HeadToHead<T extends Comparable<T>, A extends Agent<T>> {
+
+    public static final String SUBMITTER = "head-to-head";
+
+    /*
+     * The precision of the normal prior of the standardized difference, in
+     * observations
+     */
+    private static final double RHO = 1;
+
+    /**
+     * The outcome of a comparison
+     */
+    public enum Outcome {
+        /** The first deck scores better */
+        FIRST_BETTER,
+        /** The second deck scores better */
+        SECOND_BETTER,
+        /** The scores of the decks differ by less than the margin */
+        NO_DIFFERENCE,
+        /** The maximum number of games was reached before deciding */
+        INCONCLUSIVE
+    }
+
+    private final SimulationService<T> service;
+    private final Supplier<A> agents;
+    private final Objective<? super A> objective;
+    private int batchGames;
+    private int batchesPerRound;
+    private long maxGames;
+    private double alpha;
+    private double margin;
+    private boolean skipFirstDrawStep;
+
+    /**
+     * Creates a new test. By default batches are of 1000 games, 4 batches of
+     * each deck are simulated per round, at most 1000000 games are simulated
+     * per deck, the confidence level is 95% and the margin is 0, so that decks
+     * are never found equivalent.
+     *
+     * @param service
+     *            the service used to simulate the decks
+     * @param agents
+     *            creates a new agent for each batch
+     * @param objective
+     *            scores the batches
+     * @throws IllegalArgumentException
+     *             if any argument is null
+     */
+    public HeadToHead(SimulationService<T> service, Supplier<A> agents,
+            Objective<? super A> objective) {
+        if (service == null || agents == null || objective == null) {
+            throw new IllegalArgumentException(
+                    "service, agents and objective cannot be null");
+        }
+        this.service = service;
+        this.agents = agents;
+        this.objective = objective;
+        this.batchGames = 1000;
+        this.batchesPerRound = 4;
+        this.maxGames = 1000000;
+        this.alpha = 0.05;
+        this.margin = 0;
+        this.skipFirstDrawStep = false;
+    }
+
+    /**
+     * Changes the number of games of each batch
+     *
+     * @throws IllegalArgumentException
+     *             if <code>batchGames</code> is not positive
+     */
+    public void setBatchGames(int batchGames) {
+        if (batchGames < 1) {
+            throw new IllegalArgumentException("batchGames must be positive");
+        }
+        this.batchGames = batchGames;
+    }
+
+    /**
+     * Changes the number of batches of each deck simulated concurrently in a
+     * round, which should be about half the threads of the service
+     *
+     * @throws IllegalArgumentException
+     *             if <code>batchesPerRound</code> is less than 2
+     */
+    public void setBatchesPerRound(int batchesPerRound) {
+        if (batchesPerRound < 2) {
+            throw new IllegalArgumentException(
+                    "batchesPerRound must be at least 2");
+        }
+        this.batchesPerRound = batchesPerRound;
+    }
+
+    /**
+     * Changes the largest number of games simulated for each deck
+     *
+     * @throws IllegalArgumentException
+     *             if <code>maxGames</code> is not positive
+     */
+    public void setMaxGames(long maxGames) {
+        if (maxGames < 1) {
+            throw new IllegalArgumentException("maxGames must be positive");
+        }
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * Changes the probability that the confidence sequence ever fails to hold
+     * the true difference
+     *
+     * @throws IllegalArgumentException
+     *             if <code>alpha</code> is not between 0 and 1
+     */
+    public void setAlpha(double alpha) {
+        if (!(alpha > 0 && alpha < 1)) {
+            throw new IllegalArgumentException("alpha must be between 0 and 1");
+        }
+        this.alpha = alpha;
+    }
+
+    /**
+     * Changes the largest difference between the scores of decks considered
+     * equivalent
+     *
+     * @throws IllegalArgumentException
+     *             if <code>margin</code> is negative
+     */
+    public void setMargin(double margin) {
+        if (!(margin >= 0)) {
+            throw new IllegalArgumentException("margin cannot be negative");
+        }
+        this.margin = margin;
+    }
+
+    /**
+     * Changes whether the decks are simulated on the play. By default this is
+     * set to false.
+     */
+    public void setSkipFirstDrawStep(boolean skipFirstDrawStep) {
+        this.skipFirstDrawStep = skipFirstDrawStep;
+    }
+
+    /**
+     * Compares the specified decks
+     *
+     * @see #compare(Deck, Deck)
+     */
+    public Result compare(CardList<T> first, CardList<T> second)
+            throws InterruptedException, ExecutionException {
+        return compare(Deck.of(first), Deck.of(second));
+    }
+
+    /**
+     * Simulates rounds of batches of both decks until the confidence sequence
+     * of the difference of their scores settles the comparison, or the
+     * maximum number of games is reached
+     *
+     * @param first
+     *            the first deck
+     * @param second
+     *            the second deck
+     * @return the outcome of the comparison
+     * @throws ExecutionException
+     *             if a simulation failed
+     */
+    public Result compare(Deck<T> first, Deck<T> second)
+            throws InterruptedException, ExecutionException {
+        long pairs = 0;
+        double mean = 0;
+        double squares = 0;
+        long games = 0;
+        double radius = Double.POSITIVE_INFINITY;
+        Outcome outcome = Outcome.INCONCLUSIVE;
+        while (games < this.maxGames) {
+            int batches = (int) Math.min(this.batchesPerRound,
+                    (this.maxGames - games + this.batchGames - 1)
+                            / this.batchGames);
+            for (double difference : round(first, second, batches)) {
+                // Welford's update of the mean and squared deviations
+                pairs++;
+                double delta = difference - mean;
+                mean += delta / pairs;
+                squares += delta * (difference - mean);
+            }
+            games += (long) batches * this.batchGames;
+            if (pairs < this.batchesPerRound) {
+                continue;
+            }
+            radius = radius(pairs, squares);
+            if (mean - radius > 0) {
+                outcome = Outcome.FIRST_BETTER;
+            } else if (mean + radius < 0) {
+                outcome = Outcome.SECOND_BETTER;
+            } else if (this.margin > 0 && mean - radius >= -this.margin
+                    && mean + radius <= this.margin) {
+                outcome = Outcome.NO_DIFFERENCE;
+            } else {
+                continue;
+            }
+            break;
+        }
+        return new Result(outcome, mean, radius, games);
+    }
+
+    /**
+     * Simulates the specified number of batches of each deck concurrently,
+     * interleaving the decks
+     *
+     * @return the differences between the scores of each pair of batches
+     */
+    @SuppressWarnings("unchecked")
+    private double[] round(Deck<T> first, Deck<T> second, int batches)
+            throws InterruptedException, ExecutionException {
+        List<CompletableFuture<Agent<T>>> futures = new ArrayList<CompletableFuture<Agent<T>>>();
+        for (int i = 0; i < batches; i++) {
+            futures.add(this.service.simulateAsync(SUBMITTER, first,
+                    this.agents.get(), this.batchGames, this.skipFirstDrawStep));
+            futures.add(this.service.simulateAsync(SUBMITTER, second,
+                    this.agents.get(), this.batchGames, this.skipFirstDrawStep));
+        }
+        double[] differences = new double[batches];
+        for (int i = 0; i < batches; i++) {
+            double firstScore = this.objective.score((A) futures.get(2 * i)
+                    .get());
+            double secondScore = this.objective.score((A) futures.get(
+                    2 * i + 1).get());
+            differences[i] = firstScore - secondScore;
+        }
+        return differences;
+    }
+
+    /**
+     * Returns the radius of the two-sided t mixture confidence sequence of the
+     * mean of the specified number of observations, given the sum of their
+     * squared deviations from their mean. The mixture exceeds 1 / alpha for
+     * every mean further from the observed mean than the radius.
+     */
+    private double radius(long pairs, double squares) {
+        if (!(squares > 0)) {
+            // Identical differences give no estimate of their spread
+            return Double.POSITIVE_INFINITY;
+        }
+        double threshold = Math.log(Math.sqrt((pairs + RHO) / RHO)
+                / this.alpha);
+        double excess = Math.expm1(2 * threshold / pairs);
+        double denominator = pairs - RHO * excess;
+        if (denominator <= 0) {
+            // Too few pairs for this confidence level
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.sqrt(excess * squares * (pairs + RHO)
+                / (pairs * denominator));
+    }
+
+    /**
+     * The outcome of a comparison, with the confidence interval of the
+     * difference between the scores of the first and second decks when the
+     * comparison stopped
+     */
+    public static final class Result {
+
+        private final Outcome outcome;
+        private final double difference;
+        private final double radius;
+        private final long games;
+
+        Result(Outcome outcome, double difference, double radius, long games) {
+            this.outcome = outcome;
+            this.difference = difference;
+            this.radius = radius;
+            this.games = games;
+        }
+
+        public Outcome getOutcome() {
+            return this.outcome;
+        }
+
+        /**
+         * Returns the estimated score of the first deck minus the score of the
+         * second deck
+         */
+        public double getDifference() {
+            return this.difference;
+        }
+
+        public double getLowerBound() {
+            return this.difference - this.radius;
+        }
+
+        public double getUpperBound() {
+            return this.difference + this.radius;
+        }
+
+        /**
+         * Returns the number of games simulated for each deck
+         */
+        public long getGames() {
+            return this.games;
+        }
+
+        @Override
+        public String toString() {
+            return this.outcome + " difference=" + this.difference + " ["
+                    + getLowerBound() + ", " + getUpperBound() + "] games="
+                    + this.games;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.goldfishmtg.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.goldfishmtg.cards.Deck;
+
+/**
+ * The changes a {@link DeckOptimizer} may make to a deck. A mutation swaps one
+ * copy of a flexible card for one copy of another flexible card, so the size
+ * of the deck never changes. Cards that have not been made flexible are never
+ * added or removed.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public class MutationSpace<T extends Comparable<T>> {
+
+    private final Map<T, int[]> ranges;
+
+    /**
+     * Creates a new mutation space without any flexible cards
+     */
+    public MutationSpace() {
+        this.ranges = new TreeMap<T, int[]>();
+    }
+
+    /**
+     * Allows the amount of a card to vary within the specified range
+     *
+     * @param card
+     *            the card whose amount may change
+     * @param min
+     *            the least amount of the card a deck may contain
+     * @param max
+     *            the largest amount of the card a deck may contain
+     * @throws IllegalArgumentException
+     *             if <code>card</code> is null, <code>min</code> is negative,
+     *             or <code>max</code> is less than <code>min</code>
+     */
+    public void addCard(T card, int min, int max) {
+        if (card == null) {
+            throw new IllegalArgumentException("card cannot be null");
+        }
+        if (min < 0) {
+            throw new IllegalArgumentException("min cannot be negative");
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("max cannot be less than min");
+        }
+        this.ranges.put(card, new int[] { min, max });
+    }
+
+    /**
+     * Returns every deck that differs from the specified deck by a single
+     * mutation. The mutated decks share structure with the specified deck.
+     *
+     * @param deck
+     *            the deck to mutate
+     * @return the neighbouring decks, empty if the deck cannot be mutated
+     */
+    public List<Deck<T>> neighbours(Deck<T> deck) {
+        List<Deck<T>> neighbours = new ArrayList<Deck<T>>();
+        for (Map.Entry<T, int[]> removed : this.ranges.entrySet()) {
+            if (deck.getCount(removed.getKey()) <= removed.getValue()[0]) {
+                continue;
+            }
+            Deck<T> smaller = deck.withoutCards(removed.getKey(), 1);
+            for (Map.Entry<T, int[]> added : this.ranges.entrySet()) {
+                if (added.getKey().compareTo(removed.getKey()) != 0
+                        && deck.getCount(added.getKey()) < added.getValue()[1]) {
+                    neighbours.add(smaller.withCards(added.getKey(), 1));
+                }
+            }
+        }
+        return neighbours;
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.goldfishmtg.optimizer;
+
+import org.goldfishmtg.simulation.Agent;
+
+/**
+ * Scores the result of a simulation, allowing a {@link DeckOptimizer} to
+ * compare decks
+ *
+ * @author skaspersen
+ *
+ * @param <A>
+ *            the agent whose observations are scored
+ */
+public interface Objective<A extends Agent<?>> {
+
+    /**
+     * Returns the score of the games observed by the agent, higher scores
+     * being better. The score should be an average over the games played,
+     * such as the rate of games won by turn 4, so that scores of simulations
+     * with different numbers of games can be compared.
+     *
+     * @param agent
+     *            an agent that has completed its simulation
+     * @return the score of the simulated deck
+     */
+    double score(A agent);
+
+}
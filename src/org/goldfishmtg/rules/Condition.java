@@ -0,0 +1,16 @@
+package org.goldfishmtg.rules;
+
+/**
+ * A condition of a rule, compiled once when the rules are parsed
+ *
+ * @author skaspersen
+ *
+ */
+interface Condition {
+
+    /**
+     * Returns <code>true</code> if the condition holds in the specified game
+     */
+    boolean test(Context context);
+
+}
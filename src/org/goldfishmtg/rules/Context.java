@@ -0,0 +1,72 @@
+package org.goldfishmtg.rules;
+
+/**
+ * The state of a game as seen by compiled rules. A context is bound to the
+ * hand of a {@link org.goldfishmtg.simulation.Goldfish} or to a game of a
+ * batch of the {@link org.goldfishmtg.simulation.BatchedGoldfish}, and is
+ * reused for every evaluation so that rules never allocate.
+ *
+ * @author skaspersen
+ *
+ */
+abstract class Context {
+
+    /**
+     * The ordinals of the cards of each group of the rules
+     */
+    int[][] groups;
+    int turn;
+
+    /**
+     * Returns the number of cards with the specified ordinal in the hand
+     */
+    abstract int count(int ordinal);
+
+    /**
+     * Returns the number of cards in the hand
+     */
+    abstract int handSize();
+
+    /**
+     * Removes a card with the specified ordinal from the hand
+     */
+    abstract void remove(int ordinal);
+
+    /**
+     * Returns the number of cards of the specified group played this game
+     */
+    abstract int played(int group);
+
+    /**
+     * Records that a card of the specified group was played
+     */
+    abstract void addPlayed(int group);
+
+    /**
+     * Returns the number of cards of the specified group in the hand
+     */
+    final int groupCount(int group) {
+        int count = 0;
+        for (int ordinal : this.groups[group]) {
+            count += count(ordinal);
+        }
+        return count;
+    }
+
+    /**
+     * Plays the first card of the specified group found in the hand
+     *
+     * @return <code>true</code> if a card was played
+     */
+    final boolean play(int group) {
+        for (int ordinal : this.groups[group]) {
+            if (count(ordinal) > 0) {
+                remove(ordinal);
+                addPlayed(group);
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
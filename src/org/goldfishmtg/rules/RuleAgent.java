@@ -0,0 +1,355 @@
+package org.goldfishmtg.rules;
+
+import java.util.Arrays;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Hand;
+import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.simulation.Agent;
+import org.goldfishmtg.simulation.BatchAgent;
+
+/**
+ * An agent playing by the rules of a {@link RuleProgram}. The agent can be
+ * used with both the {@link org.goldfishmtg.simulation.Goldfish}, in which
+ * case it counts the cards of the {@link Hand} it is given by ordinal, and
+ * with the {@link org.goldfishmtg.simulation.BatchedGoldfish}.
+ * <p>
+ * The report holds the number of games and mulligans, and for each
+ * <code>track</code> rule the number of games in which its condition held.
+ *
+ * @author skaspersen
+ *
+ */
+public class RuleAgent implements Agent<String>, BatchAgent<String> {
+
+    private final RuleProgram program;
+    private final HandContext handContext;
+    private final BatchContext batchContext;
+    private final long[] trackHits;
+    private final boolean[] tracked;
+    private CardIndex<String> index;
+    private boolean stopped;
+    private long games;
+    private long mulligans;
+
+    RuleAgent(RuleProgram program) {
+        this.program = program;
+        this.handContext = new HandContext(program.groupCount());
+        this.batchContext = new BatchContext();
+        this.trackHits = new long[program.tracks.length];
+        this.tracked = new boolean[program.tracks.length];
+    }
+
+    /**
+     * Returns the rules this agent plays by
+     */
+    public RuleProgram getProgram() {
+        return this.program;
+    }
+
+    /**
+     * Returns the number of games in which the condition of the specified
+     * <code>track</code> rule held
+     *
+     * @param track
+     *            the position of the rule among the <code>track</code> rules
+     */
+    public long getTrackCount(int track) {
+        return this.trackHits[track];
+    }
+
+    /**
+     * Returns the number of games played
+     */
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * Returns the number of mulligans taken
+     */
+    public long getMulligans() {
+        return this.mulligans;
+    }
+
+    @Override
+    public void simulationStarted() {
+        Arrays.fill(this.trackHits, 0);
+        this.games = 0;
+        this.mulligans = 0;
+    }
+
+    @Override
+    public void simulationStarted(CardIndex<String> index) {
+        simulationStarted();
+        resolve(index);
+    }
+
+    @Override
+    public void simulationDone() {
+    }
+
+    @Override
+    public void newGame() {
+        Arrays.fill(this.handContext.played, 0);
+        Arrays.fill(this.tracked, false);
+        this.stopped = false;
+        this.games++;
+    }
+
+    @Override
+    public void gameDone() {
+    }
+
+    @Override
+    public boolean keepOpeningHand(int cardCount, CardList<String> hand) {
+        HandContext context = bind(hand);
+        context.turn = 0;
+        Condition condition = this.program.keepCondition(cardCount);
+        if (condition == null || condition.test(context)) {
+            return true;
+        }
+        this.mulligans++;
+        return false;
+    }
+
+    @Override
+    public String chooseCardToBottom(CardList<String> hand) {
+        HandContext context = bind(hand);
+        for (int group : this.program.bottoms) {
+            for (int ordinal : context.groups[group]) {
+                if (context.hand.countOf(ordinal) > 0) {
+                    return this.index.getCard(ordinal);
+                }
+            }
+        }
+        for (int ordinal = 0; ordinal < this.index.size(); ordinal++) {
+            if (context.hand.countOf(ordinal) > 0) {
+                return this.index.getCard(ordinal);
+            }
+        }
+        throw new IllegalArgumentException("hand is empty");
+    }
+
+    @Override
+    public boolean simulateAnotherTurn() {
+        return !this.stopped;
+    }
+
+    @Override
+    public void takeTurn(int turn, Library<String> library,
+            CardList<String> hand) {
+        HandContext context = bind(hand);
+        context.turn = turn;
+        for (int group : this.program.plays) {
+            context.play(group);
+        }
+        Condition[] tracks = this.program.tracks;
+        for (int track = 0; track < tracks.length; track++) {
+            if (!this.tracked[track] && tracks[track].test(context)) {
+                this.tracked[track] = true;
+                this.trackHits[track]++;
+            }
+        }
+        Condition stop = this.program.stop;
+        this.stopped = stop != null && stop.test(context);
+    }
+
+    @Override
+    public void keepOpeningHands(int cardCount, int[][] hands, int games,
+            boolean[] keep) {
+        BatchContext context = this.batchContext;
+        context.bind(hands, games, this.program.groupCount(),
+                this.tracked.length);
+        context.turn = 0;
+        Condition condition = this.program.keepCondition(cardCount);
+        for (int game = 0; game < games; game++) {
+            if (!keep[game]) {
+                context.game = game;
+                context.clear(game);
+                if (condition == null || condition.test(context)) {
+                    keep[game] = true;
+                } else {
+                    this.mulligans++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void takeTurn(int turn, int[][] hands, int games, boolean[] active) {
+        BatchContext context = this.batchContext;
+        context.bind(hands, games, this.program.groupCount(),
+                this.tracked.length);
+        context.turn = turn;
+        if (turn == 1) {
+            for (int game = 0; game < games; game++) {
+                context.clear(game);
+            }
+            this.games += games;
+        }
+        int[] plays = this.program.plays;
+        Condition[] tracks = this.program.tracks;
+        Condition stop = this.program.stop;
+        for (int game = 0; game < games; game++) {
+            if (!active[game]) {
+                continue;
+            }
+            context.game = game;
+            for (int group : plays) {
+                context.play(group);
+            }
+            for (int track = 0; track < tracks.length; track++) {
+                if (!context.tracked[track][game]
+                        && tracks[track].test(context)) {
+                    context.tracked[track][game] = true;
+                    this.trackHits[track]++;
+                }
+            }
+            if (stop != null && stop.test(context)) {
+                active[game] = false;
+            }
+        }
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder bld = new StringBuilder();
+        bld.append("Games: ").append(this.games).append("\n");
+        bld.append("Mulligans: ").append(this.mulligans).append("\n");
+        for (int track = 0; track < this.trackHits.length; track++) {
+            bld.append(this.program.trackLabels[track]).append(": ")
+                    .append(this.trackHits[track]);
+            if (this.games > 0) {
+                bld.append(String.format(" (%.2f%%)", 100.0
+                        * this.trackHits[track] / this.games));
+            }
+            bld.append("\n");
+        }
+        return bld.toString();
+    }
+
+    private void resolve(CardIndex<String> index) {
+        this.index = index;
+        int[][] groups = this.program.resolve(index);
+        this.handContext.groups = groups;
+        this.batchContext.groups = groups;
+    }
+
+    private HandContext bind(CardList<String> hand) {
+        if (!(hand instanceof Hand)) {
+            throw new IllegalArgumentException(
+                    "rule agents can only play with hands of a Goldfish");
+        }
+        Hand<String> cards = (Hand<String>) hand;
+        if (cards.getIndex() != this.index) {
+            resolve(cards.getIndex());
+        }
+        this.handContext.hand = cards;
+        return this.handContext;
+    }
+
+    /**
+     * Evaluates rules on a {@link Hand}
+     */
+    private static final class HandContext extends Context {
+
+        private final int[] played;
+        private Hand<String> hand;
+
+        HandContext(int groups) {
+            this.played = new int[groups];
+        }
+
+        @Override
+        int count(int ordinal) {
+            return this.hand.countOf(ordinal);
+        }
+
+        @Override
+        int handSize() {
+            return this.hand.size();
+        }
+
+        @Override
+        void remove(int ordinal) {
+            this.hand.removeOrdinal(ordinal);
+        }
+
+        @Override
+        int played(int group) {
+            return this.played[group];
+        }
+
+        @Override
+        void addPlayed(int group) {
+            this.played[group]++;
+        }
+
+    }
+
+    /**
+     * Evaluates rules on a game of a batch, keeping the cards played and the
+     * conditions tracked by group then game
+     */
+    private static final class BatchContext extends Context {
+
+        private int[][] hands;
+        private int game;
+        private int[][] played = new int[0][0];
+        private boolean[][] tracked = new boolean[0][0];
+
+        void bind(int[][] hands, int games, int groups, int tracks) {
+            this.hands = hands;
+            if (this.played.length != groups
+                    || (groups > 0 && this.played[0].length < games)) {
+                this.played = new int[groups][games];
+            }
+            if (this.tracked.length != tracks
+                    || (tracks > 0 && this.tracked[0].length < games)) {
+                this.tracked = new boolean[tracks][games];
+            }
+        }
+
+        void clear(int game) {
+            for (int[] row : this.played) {
+                row[game] = 0;
+            }
+            for (boolean[] row : this.tracked) {
+                row[game] = false;
+            }
+        }
+
+        @Override
+        int count(int ordinal) {
+            return this.hands[ordinal][this.game];
+        }
+
+        @Override
+        int handSize() {
+            int size = 0;
+            for (int[] row : this.hands) {
+                size += row[this.game];
+            }
+            return size;
+        }
+
+        @Override
+        void remove(int ordinal) {
+            this.hands[ordinal][this.game]--;
+        }
+
+        @Override
+        int played(int group) {
+            return this.played[group][this.game];
+        }
+
+        @Override
+        void addPlayed(int group) {
+            this.played[group][this.game]++;
+        }
+
+    }
+
+}
@@ -0,0 +1,408 @@
+package org.goldfishmtg.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.Category;
+
+/**
+ * Parses the text of a {@link RuleProgram} and compiles each condition into a
+ * tree of {@link Condition} and {@link Term} instances, so that nothing is
+ * looked up by name once the rules are evaluated
+ *
+ * @author skaspersen
+ *
+ */
+final class RuleParser {
+
+    private static final Pattern TOKEN = Pattern
+            .compile("\\s*(>=|<=|==|!=|[<>()+\\-]|@?[A-Za-z_][A-Za-z0-9_]*|[0-9]+)");
+    private static final Pattern GROUP = Pattern
+            .compile("group\\s+([A-Za-z_][A-Za-z0-9_]*)\\s*=\\s*(.+)");
+    private static final Pattern KEEP = Pattern
+            .compile("keep\\s+([0-9]+)(?:\\s+when\\s+(.+))?");
+    private static final Pattern PLAY = Pattern
+            .compile("(play|bottom)\\s+(@?[A-Za-z_][A-Za-z0-9_]*)");
+    private static final Pattern STOP = Pattern.compile("stop\\s+when\\s+(.+)");
+    private static final Pattern TRACK = Pattern
+            .compile("track\\s+\"([^\"]+)\"\\s+when\\s+(.+)");
+    private static final List<String> RESERVED = Arrays.asList(
+            "turn", "hand", "played", "and", "or", "not", "when");
+
+    private final CardRegistry<String> registry;
+    final List<String> groupNames = new ArrayList<String>();
+    final List<List<String>> groupCards = new ArrayList<List<String>>();
+    final List<List<Category>> groupCategories = new ArrayList<List<Category>>();
+    final List<Condition> keep = new ArrayList<Condition>();
+    final List<Integer> plays = new ArrayList<Integer>();
+    final List<Integer> bottoms = new ArrayList<Integer>();
+    final List<String> trackLabels = new ArrayList<String>();
+    final List<Condition> tracks = new ArrayList<Condition>();
+    Condition stop;
+
+    private int line;
+    private List<String> tokens;
+    private int position;
+
+    RuleParser(CardRegistry<String> registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Parses all the lines of the specified rules
+     *
+     * @throws IllegalArgumentException
+     *             if the rules are not valid
+     */
+    void parse(String rules) {
+        String[] lines = rules.split("\r?\n");
+        for (this.line = 1; this.line <= lines.length; this.line++) {
+            String text = lines[this.line - 1];
+            int comment = text.indexOf('#');
+            if (comment >= 0) {
+                text = text.substring(0, comment);
+            }
+            text = text.trim();
+            if (!text.isEmpty()) {
+                parseRule(text);
+            }
+        }
+    }
+
+    private void parseRule(String text) {
+        Matcher matcher;
+        if ((matcher = GROUP.matcher(text)).matches()) {
+            defineGroup(matcher.group(1), matcher.group(2));
+        } else if ((matcher = KEEP.matcher(text)).matches()) {
+            int size = number(matcher.group(1));
+            if (size < 1 || size > 7) {
+                throw error("cannot keep a hand of " + size + " cards");
+            }
+            Condition condition = matcher.group(2) == null ? always()
+                    : parseCondition(matcher.group(2));
+            while (this.keep.size() <= size) {
+                this.keep.add(null);
+            }
+            this.keep.set(size, or(this.keep.get(size), condition));
+        } else if ((matcher = PLAY.matcher(text)).matches()) {
+            int group = groupOf(matcher.group(2));
+            if (matcher.group(1).equals("play")) {
+                this.plays.add(group);
+            } else {
+                this.bottoms.add(group);
+            }
+        } else if ((matcher = STOP.matcher(text)).matches()) {
+            this.stop = or(this.stop, parseCondition(matcher.group(1)));
+        } else if ((matcher = TRACK.matcher(text)).matches()) {
+            this.trackLabels.add(matcher.group(1));
+            this.tracks.add(parseCondition(matcher.group(2)));
+        } else {
+            throw error("unknown rule '" + text + "'");
+        }
+    }
+
+    private void defineGroup(String name, String items) {
+        if (RESERVED.contains(name)) {
+            throw error("'" + name + "' is a reserved word");
+        }
+        if (this.groupNames.contains(name)) {
+            throw error("group '" + name + "' is already defined");
+        }
+        List<String> cards = new ArrayList<String>();
+        List<Category> categories = new ArrayList<Category>();
+        for (String item : items.split(",", -1)) {
+            item = item.trim();
+            if (item.isEmpty()) {
+                throw error("empty card name in group '" + name + "'");
+            } else if (item.startsWith("@")) {
+                categories.add(category(item.substring(1)));
+            } else {
+                cards.add(item);
+            }
+        }
+        addGroup(name, cards, categories);
+    }
+
+    private int addGroup(String name, List<String> cards,
+            List<Category> categories) {
+        this.groupNames.add(name);
+        this.groupCards.add(cards);
+        this.groupCategories.add(categories);
+        return this.groupNames.size() - 1;
+    }
+
+    /**
+     * Returns the group with the specified name, a name starting with
+     * <code>@</code> designates the group of the cards of a category
+     */
+    private int groupOf(String name) {
+        int group = this.groupNames.indexOf(name);
+        if (group >= 0) {
+            return group;
+        } else if (name.startsWith("@")) {
+            List<Category> categories = new ArrayList<Category>();
+            categories.add(category(name.substring(1)));
+            return addGroup(name, new ArrayList<String>(), categories);
+        } else {
+            throw error("unknown group '" + name + "'");
+        }
+    }
+
+    private Category category(String name) {
+        if (this.registry == null) {
+            throw error("category '" + name + "' needs a card registry");
+        }
+        try {
+            return Category.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw error("unknown category '" + name + "'");
+        }
+    }
+
+    private Condition parseCondition(String text) {
+        this.tokens = new ArrayList<String>();
+        Matcher matcher = TOKEN.matcher(text);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            this.tokens.add(matcher.group(1));
+            end = matcher.end();
+        }
+        if (!text.substring(end).trim().isEmpty()) {
+            throw error("unexpected '" + text.substring(end).trim() + "'");
+        }
+        this.position = 0;
+        Condition condition = parseOr();
+        if (this.position < this.tokens.size()) {
+            throw error("unexpected '" + this.tokens.get(this.position) + "'");
+        }
+        return condition;
+    }
+
+    private Condition parseOr() {
+        Condition condition = parseAnd();
+        while (accept("or")) {
+            condition = or(condition, parseAnd());
+        }
+        return condition;
+    }
+
+    private Condition parseAnd() {
+        Condition condition = parseNot();
+        while (accept("and")) {
+            final Condition left = condition;
+            final Condition right = parseNot();
+            condition = new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.test(context) && right.test(context);
+                }
+            };
+        }
+        return condition;
+    }
+
+    private Condition parseNot() {
+        if (accept("not")) {
+            final Condition negated = parseNot();
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return !negated.test(context);
+                }
+            };
+        } else if (accept("(")) {
+            Condition condition = parseOr();
+            expect(")");
+            return condition;
+        } else {
+            Term left = parseSum();
+            String operator = next();
+            return compare(left, operator, parseSum());
+        }
+    }
+
+    private Term parseSum() {
+        Term term = parseTerm();
+        while (true) {
+            final Term left = term;
+            if (accept("+")) {
+                final Term right = parseTerm();
+                term = new Term() {
+                    @Override
+                    public int evaluate(Context context) {
+                        return left.evaluate(context) + right.evaluate(context);
+                    }
+                };
+            } else if (accept("-")) {
+                final Term right = parseTerm();
+                term = new Term() {
+                    @Override
+                    public int evaluate(Context context) {
+                        return left.evaluate(context) - right.evaluate(context);
+                    }
+                };
+            } else {
+                return term;
+            }
+        }
+    }
+
+    private Term parseTerm() {
+        String token = next();
+        if (Character.isDigit(token.charAt(0))) {
+            final int value = number(token);
+            return new Term() {
+                @Override
+                public int evaluate(Context context) {
+                    return value;
+                }
+            };
+        } else if (token.equals("turn")) {
+            return new Term() {
+                @Override
+                public int evaluate(Context context) {
+                    return context.turn;
+                }
+            };
+        } else if (token.equals("hand")) {
+            return new Term() {
+                @Override
+                public int evaluate(Context context) {
+                    return context.handSize();
+                }
+            };
+        } else if (token.equals("played")) {
+            expect("(");
+            final int group = groupOf(next());
+            expect(")");
+            return new Term() {
+                @Override
+                public int evaluate(Context context) {
+                    return context.played(group);
+                }
+            };
+        } else if (Character.isLetter(token.charAt(0))
+                || token.charAt(0) == '_' || token.charAt(0) == '@') {
+            final int group = groupOf(token);
+            return new Term() {
+                @Override
+                public int evaluate(Context context) {
+                    return context.groupCount(group);
+                }
+            };
+        } else {
+            throw error("unexpected '" + token + "'");
+        }
+    }
+
+    private Condition compare(final Term left, String operator,
+            final Term right) {
+        switch (operator) {
+        case ">=":
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.evaluate(context) >= right.evaluate(context);
+                }
+            };
+        case "<=":
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.evaluate(context) <= right.evaluate(context);
+                }
+            };
+        case ">":
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.evaluate(context) > right.evaluate(context);
+                }
+            };
+        case "<":
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.evaluate(context) < right.evaluate(context);
+                }
+            };
+        case "==":
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.evaluate(context) == right.evaluate(context);
+                }
+            };
+        case "!=":
+            return new Condition() {
+                @Override
+                public boolean test(Context context) {
+                    return left.evaluate(context) != right.evaluate(context);
+                }
+            };
+        default:
+            throw error("expected a comparison but found '" + operator + "'");
+        }
+    }
+
+    private static Condition always() {
+        return new Condition() {
+            @Override
+            public boolean test(Context context) {
+                return true;
+            }
+        };
+    }
+
+    private static Condition or(final Condition left, final Condition right) {
+        if (left == null) {
+            return right;
+        }
+        return new Condition() {
+            @Override
+            public boolean test(Context context) {
+                return left.test(context) || right.test(context);
+            }
+        };
+    }
+
+    private boolean accept(String token) {
+        if (this.position < this.tokens.size()
+                && this.tokens.get(this.position).equals(token)) {
+            this.position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("expected '" + token + "'");
+        }
+    }
+
+    private String next() {
+        if (this.position >= this.tokens.size()) {
+            throw error("unexpected end of rule");
+        }
+        return this.tokens.get(this.position++);
+    }
+
+    private int number(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw error("number " + token + " is too large");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("line " + this.line + ": "
+                + message);
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.goldfishmtg.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.Category;
+
+/**
+ * A set of rules for keeping hands, playing cards, ending games and tracking
+ * data points, parsed and compiled once and shared by any number of
+ * {@link RuleAgent} instances.
+ * <p>
+ * Each line of the rules is one of the following, <code>#</code> starting a
+ * comment:
+ * <ul>
+ * <li><code>group lands = Forest, Island, @LAND</code> defines a group of
+ * cards, <code>@</code> designating the cards of a {@link Category}</li>
+ * <li><code>keep 7 when lands &gt;= 2 and lands &lt;= 5</code> keeps a hand of
+ * the specified size, from 1 to 7, when the condition holds, hands of a size
+ * without any keep rule are always kept</li>
+ * <li><code>play lands</code> plays a card of the group from the hand each
+ * turn, if there is one</li>
+ * <li><code>bottom lands</code> chooses the cards to put on the bottom with the
+ * {@link org.goldfishmtg.simulation.LondonMulligan}, from the first group
+ * found in the hand</li>
+ * <li><code>stop when played(lands) &gt;= 4</code> ends the game after a turn
+ * when the condition holds</li>
+ * <li><code>track "4 lands" when played(lands) &gt;= 4</code> counts the games
+ * in which the condition held after any turn</li>
+ * </ul>
+ * Conditions compare sums of numbers, <code>turn</code>, <code>hand</code> (the
+ * size of the hand), groups (the number of their cards in the hand) and
+ * <code>played(group)</code>, and combine comparisons with <code>and</code>,
+ * <code>or</code>, <code>not</code> and parentheses. Groups are resolved to
+ * card ordinals when a simulation starts, so that rules count cards without
+ * looking them up or allocating.
+ *
+ * @author skaspersen
+ *
+ */
+public final class RuleProgram {
+
+    private final String rules;
+    private final CardRegistry<String> registry;
+    private final String[] groupNames;
+    private final List<List<String>> groupCards;
+    private final List<List<Category>> groupCategories;
+    final Condition[] keep;
+    final int[] plays;
+    final int[] bottoms;
+    final Condition stop;
+    final String[] trackLabels;
+    final Condition[] tracks;
+
+    private RuleProgram(String rules, CardRegistry<String> registry,
+            RuleParser parser) {
+        this.rules = rules;
+        this.registry = registry;
+        this.groupNames = parser.groupNames.toArray(new String[0]);
+        this.groupCards = parser.groupCards;
+        this.groupCategories = parser.groupCategories;
+        this.keep = parser.keep.toArray(new Condition[0]);
+        this.plays = toArray(parser.plays);
+        this.bottoms = toArray(parser.bottoms);
+        this.stop = parser.stop;
+        this.trackLabels = parser.trackLabels.toArray(new String[0]);
+        this.tracks = parser.tracks.toArray(new Condition[0]);
+    }
+
+    /**
+     * Compiles the specified rules
+     *
+     * @param rules
+     *            the text of the rules
+     * @return the compiled rules
+     * @throws IllegalArgumentException
+     *             if the rules are not valid or use categories
+     */
+    public static RuleProgram compile(String rules) {
+        return compile(rules, null);
+    }
+
+    /**
+     * Compiles the specified rules, resolving categories with the specified
+     * registry
+     *
+     * @param rules
+     *            the text of the rules
+     * @param registry
+     *            the registry of the attributes of the cards, can be null if
+     *            the rules do not use categories
+     * @return the compiled rules
+     * @throws IllegalArgumentException
+     *             if the rules are not valid
+     */
+    public static RuleProgram compile(String rules,
+            CardRegistry<String> registry) {
+        if (rules == null) {
+            throw new IllegalArgumentException("rules cannot be null");
+        }
+        RuleParser parser = new RuleParser(registry);
+        parser.parse(rules);
+        return new RuleProgram(rules, registry, parser);
+    }
+
+    /**
+     * Returns a new agent playing by these rules. Each simulation running at
+     * the same time needs its own agent.
+     */
+    public RuleAgent newAgent() {
+        return new RuleAgent(this);
+    }
+
+    /**
+     * Returns the ordinals of the cards of each group in the specified index
+     */
+    int[][] resolve(CardIndex<String> index) {
+        int[][] groups = new int[this.groupNames.length][];
+        for (int group = 0; group < groups.length; group++) {
+            List<Integer> ordinals = new ArrayList<Integer>();
+            for (String card : this.groupCards.get(group)) {
+                int ordinal = index.ordinalOf(card);
+                if (ordinal >= 0 && !ordinals.contains(ordinal)) {
+                    ordinals.add(ordinal);
+                }
+            }
+            for (Category category : this.groupCategories.get(group)) {
+                for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+                    if (this.registry.belongsTo(index.getCard(ordinal),
+                            category) && !ordinals.contains(ordinal)) {
+                        ordinals.add(ordinal);
+                    }
+                }
+            }
+            groups[group] = toArray(ordinals);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the condition for keeping a hand of the specified size, or null
+     * if such a hand is always kept
+     */
+    Condition keepCondition(int cardCount) {
+        return cardCount < this.keep.length ? this.keep[cardCount] : null;
+    }
+
+    int groupCount() {
+        return this.groupNames.length;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        return this.rules;
+    }
+
+}
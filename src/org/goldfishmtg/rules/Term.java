@@ -0,0 +1,16 @@
+package org.goldfishmtg.rules;
+
+/**
+ * An integer expression of a rule, compiled once when the rules are parsed
+ *
+ * @author skaspersen
+ *
+ */
+interface Term {
+
+    /**
+     * Returns the value of the expression in the specified game
+     */
+    int evaluate(Context context);
+
+}
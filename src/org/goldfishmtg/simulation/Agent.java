@@ -1,6 +1,7 @@
 package org.goldfishmtg.simulation;
 
 import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Hand;
 import org.goldfishmtg.cards.Library;
 
 /**
@@ -14,6 +15,11 @@ import org.goldfishmtg.cards.Library;
  * As an observer it can perform inspections on the library, hand, and keep its
  * own internal game state to keep track of data points for analysis as each
  * turn is played
+ * <p>
+ * The hands given to an agent by a {@link Goldfish} are {@link Hand} instances,
+ * agents can cast to {@link Hand} to count cards by ordinal. The same hand is
+ * changed across turns and games, so agents caching decisions by hand must use
+ * {@link Hand#snapshot() hand.snapshot()} as the key, never the hand itself.
  *
  * @author skaspersen
  *
@@ -59,6 +65,31 @@ public interface Agent<T extends Comparable<T>> {
      */
     boolean keepOpeningHand(int cardCount, CardList<T> hand);
 
+    /**
+     * Returns the card of the specified hand that should be put on the bottom
+     * of the library. This is called once for each card that has to be put on
+     * the bottom after keeping a hand with the {@link LondonMulligan}. By
+     * default the card with the most copies in the hand is put on the bottom,
+     * the first of them in card order on ties.
+     *
+     * @param hand
+     *            the hand that was kept, without the cards already put on the
+     *            bottom
+     * @return the card of the hand to put on the bottom of the library
+     */
+    default T chooseCardToBottom(CardList<T> hand) {
+        T choice = null;
+        int most = 0;
+        for (T card : hand.asList()) {
+            int count = hand.getCount(card);
+            if (count > most) {
+                choice = card;
+                most = count;
+            }
+        }
+        return choice;
+    }
+
     /**
      * Returns <code>true</code> if the agent needs to simulate another turn
      */
@@ -0,0 +1,75 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.CardIndex;
+
+/**
+ * An agent for the {@link BatchedGoldfish}, which plays many games in
+ * lockstep. Instead of a hand per game the agent is given a matrix of card
+ * counts, <code>hands[ordinal][game]</code>, and decides for all games of the
+ * batch at once. Agents that loop over the games of a row of the matrix let
+ * the JIT compiler vectorize their loops.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public interface BatchAgent<T extends Comparable<T>> {
+
+    /**
+     * A new simulation has started, all data points should be discarded
+     *
+     * @param index
+     *            the index assigning the ordinals of the rows of the hands
+     */
+    void simulationStarted(CardIndex<T> index);
+
+    /**
+     * All games of the simulation have been completed
+     */
+    void simulationDone();
+
+    /**
+     * Decides which opening hands of the specified size are kept. Games whose
+     * hand is not kept take a mulligan and draw a hand of one card fewer,
+     * games that decline every hand start with an empty hand.
+     *
+     * @param cardCount
+     *            the number of cards in the hands being decided on
+     * @param hands
+     *            the card counts of the hands, by ordinal then game
+     * @param games
+     *            the number of games in the batch
+     * @param keep
+     *            set to <code>true</code> for the games whose hand is kept,
+     *            only the games that are <code>false</code> are being decided
+     *            on
+     */
+    void keepOpeningHands(int cardCount, int[][] hands, int games,
+            boolean[] keep);
+
+    /**
+     * Takes the specified turn in every active game. The hands already contain
+     * the cards drawn for the turn.
+     *
+     * @param turn
+     *            the number of the turn being played, the first turn is 1
+     * @param hands
+     *            the card counts of the hands, by ordinal then game, which the
+     *            agent may lower to remove cards from the hands
+     * @param games
+     *            the number of games in the batch
+     * @param active
+     *            the games still being played, the agent sets a game to
+     *            <code>false</code> to end it after this turn
+     */
+    void takeTurn(int turn, int[][] hands, int games, boolean[] active);
+
+    /**
+     * Returns a human readable report of what the agent has observed in all
+     * games
+     */
+    String getReport();
+
+}
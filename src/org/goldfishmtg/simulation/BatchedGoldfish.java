@@ -0,0 +1,212 @@
+package org.goldfishmtg.simulation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.cards.Deck;
+
+/**
+ * Simulates games of a deck in batches played in lockstep, for agents whose
+ * decisions only depend on card counts. The hands of a batch are stored as a
+ * matrix of counts, one row per card and one column per game, so that the
+ * {@link BatchAgent} evaluates each turn of the whole batch with tight loops
+ * over primitive arrays instead of a call per game.
+ * <p>
+ * Each game of a batch has its own row of the deck order, cards being drawn
+ * with one step of a Fisher-Yates shuffle each, so that starting a new game
+ * never has to restore the order. Opening hands follow the
+ * {@link TraditionalMulligan}.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ * @param <A>
+ *            the agent used to make game decisions
+ */
+public class BatchedGoldfish<T extends Comparable<T>, A extends BatchAgent<T>>
+        implements Callable<A> {
+
+    private final Deck<T> deck;
+    private final A agent;
+    private final int batchSize;
+    private final SplittableRandom rng;
+    private final int deckSize;
+    // The order of each game's library, game after game
+    private final int[] order;
+    // The number of cards drawn in each game
+    private final int[] position;
+    private final int[][] hands;
+    private final boolean[] keep;
+    private final boolean[] active;
+    private int gameCount;
+    private boolean skipFirstDrawStep;
+
+    /**
+     * Creates a new batched simulation of the specified deck. By default the
+     * first draw step is not skipped and 1 game is simulated.
+     *
+     * @param deck
+     *            the cards of the library
+     * @param agent
+     *            the agent deciding for every game of a batch
+     * @param batchSize
+     *            the number of games played in lockstep
+     * @param seed
+     *            the seed of the random number generator
+     * @throws IllegalArgumentException
+     *             if <code>deck</code> or <code>agent</code> is null, or
+     *             <code>batchSize</code> is not positive
+     */
+    public BatchedGoldfish(Deck<T> deck, A agent, int batchSize, long seed) {
+        if (deck == null || agent == null) {
+            throw new IllegalArgumentException("deck and agent cannot be null");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.deck = deck;
+        this.agent = agent;
+        this.batchSize = batchSize;
+        this.rng = new SplittableRandom(seed);
+        this.deckSize = deck.size();
+        this.order = new int[batchSize * this.deckSize];
+        int[] ordinals = new int[this.deckSize];
+        int size = 0;
+        CardIndex<T> index = deck.getIndex();
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            for (int i = 0; i < deck.countOf(ordinal); i++) {
+                ordinals[size++] = ordinal;
+            }
+        }
+        for (int game = 0; game < batchSize; game++) {
+            System.arraycopy(ordinals, 0, this.order, game * this.deckSize,
+                    this.deckSize);
+        }
+        this.position = new int[batchSize];
+        this.hands = new int[index.size()][batchSize];
+        this.keep = new boolean[batchSize];
+        this.active = new boolean[batchSize];
+        this.gameCount = 1;
+        this.skipFirstDrawStep = false;
+    }
+
+    /**
+     * Changes whether the games are simulated on the draw or on the play. By
+     * default this is set to false.
+     */
+    public void setSkipFirstDrawStep(boolean skip) {
+        this.skipFirstDrawStep = skip;
+    }
+
+    /**
+     * Changes the number of games to simulate. The default value is 1.
+     */
+    public void setGames(int gameCount) {
+        this.gameCount = gameCount;
+    }
+
+    @Override
+    public A call() throws Exception {
+        this.agent.simulationStarted(this.deck.getIndex());
+        for (int played = 0; played < this.gameCount; played += this.batchSize) {
+            playBatch(Math.min(this.batchSize, this.gameCount - played));
+        }
+        this.agent.simulationDone();
+        return this.agent;
+    }
+
+    private void playBatch(int games) {
+        Arrays.fill(this.keep, 0, games, false);
+        for (int cardCount = 7; cardCount > 0; cardCount--) {
+            for (int game = 0; game < games; game++) {
+                if (!this.keep[game]) {
+                    returnHand(game);
+                    for (int i = 0; i < cardCount; i++) {
+                        draw(game);
+                    }
+                }
+            }
+            this.agent.keepOpeningHands(cardCount, this.hands, games,
+                    this.keep);
+            if (allSet(this.keep, games)) {
+                break;
+            }
+        }
+        for (int game = 0; game < games; game++) {
+            if (!this.keep[game]) {
+                returnHand(game);
+            }
+        }
+
+        Arrays.fill(this.active, 0, games, true);
+        int activeGames = games;
+        for (int turn = 1; activeGames > 0; turn++) {
+            if (turn > 1 || !this.skipFirstDrawStep) {
+                for (int game = 0; game < games; game++) {
+                    if (this.active[game]) {
+                        draw(game);
+                    }
+                }
+            }
+            this.agent.takeTurn(turn, this.hands, games, this.active);
+            activeGames = 0;
+            for (int game = 0; game < games; game++) {
+                // Like Goldfish, no turn follows once the library is empty
+                if (this.position[game] == this.deckSize) {
+                    this.active[game] = false;
+                }
+                activeGames += this.active[game] ? 1 : 0;
+            }
+        }
+        for (int[] row : this.hands) {
+            Arrays.fill(row, 0, games, 0);
+        }
+        Arrays.fill(this.position, 0, games, 0);
+    }
+
+    /**
+     * Draws the next card of a game with one step of a Fisher-Yates shuffle
+     * of its row of the order, does nothing once its library is empty like
+     * {@link org.goldfishmtg.cards.Library#draw()}
+     */
+    private void draw(int game) {
+        if (this.position[game] == this.deckSize) {
+            return;
+        }
+        int start = game * this.deckSize;
+        int next = start + this.position[game]++;
+        int chosen = next + this.rng.nextInt(start + this.deckSize - next);
+        int ordinal = this.order[chosen];
+        this.order[chosen] = this.order[next];
+        this.order[next] = ordinal;
+        this.hands[ordinal][game]++;
+    }
+
+    /**
+     * Empties the hand of a game and puts all its cards back in its library.
+     * Only the counts of the cards drawn can be set, as agents only remove
+     * cards from hands. The order of the row does not need restoring, the
+     * shuffle stays uniform whatever order it starts from.
+     */
+    private void returnHand(int game) {
+        int start = game * this.deckSize;
+        for (int i = start; i < start + this.position[game]; i++) {
+            this.hands[this.order[i]][game] = 0;
+        }
+        this.position[game] = 0;
+    }
+
+    private static boolean allSet(boolean[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.goldfishmtg.simulation;
+
+import java.io.Serializable;
+
+/**
+ * An agent whose results can be kept by a {@link SimulationCache}. The agent is
+ * serialized once its simulation has completed, so everything it has observed
+ * must be serializable.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ * @param <A>
+ *            the type of the agent itself
+ */
+public interface CacheableAgent<T extends Comparable<T>, A extends CacheableAgent<T, A>>
+        extends Agent<T>, Serializable {
+
+    /**
+     * Returns a key identifying how the agent plays and what it observes,
+     * including any configuration it was created with. Two agents with the
+     * same class, key and version must produce the same results for the same
+     * games.
+     */
+    String getCacheKey();
+
+    /**
+     * Returns the version of the agent's logic. The version must be changed
+     * whenever a change to the agent changes its results, so that results
+     * cached by older versions are no longer used.
+     */
+    int getCacheVersion();
+
+    /**
+     * Adds the observations of another agent to the observations of this
+     * agent, as if this agent had also played the games of the other agent
+     *
+     * @param other
+     *            an agent with the same key and version that has completed a
+     *            simulation of the same deck
+     */
+    void merge(A other);
+
+}
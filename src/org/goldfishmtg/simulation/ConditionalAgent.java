@@ -0,0 +1,41 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+
+/**
+ * An agent that observes the library right before each draw step, for
+ * conditional Monte Carlo estimates.
+ * <p>
+ * Many outcomes only depend on whether the next card drawn belongs to some
+ * set, such as hitting the land drop of a given turn. Instead of recording
+ * whether the sampled card hit, the agent can record the exact probability of
+ * a hit given the cards left in the library, for example with
+ * {@link Library#probabilityOfDrawing(int, int, Comparable...)}. Both have the
+ * same expected value, but the probability does not carry the variance of the
+ * draw itself, so the estimate is tighter for the same number of games. The
+ * game then goes on with the card actually drawn.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public interface ConditionalAgent<T extends Comparable<T>> extends Agent<T> {
+
+    /**
+     * Called before the card of the draw step of the specified turn is drawn.
+     * Agents only interested in some turns return right away for the others.
+     * The agent must not draw cards or otherwise change the library or hand.
+     *
+     * @param turn
+     *            the number of the turn whose card is about to be drawn
+     * @param library
+     *            the library the card will be drawn from
+     * @param hand
+     *            the hand before the card is drawn
+     */
+    void beforeDraw(int turn, Library<T> library, CardList<T> hand);
+
+}
@@ -0,0 +1,27 @@
+package org.goldfishmtg.simulation;
+
+/**
+ * Processes the events published to an {@link EventStream}, on a consumer
+ * thread of the stream
+ *
+ * @author skaspersen
+ *
+ * @see Events
+ */
+public interface EventHandler {
+
+    /**
+     * Processes a batch of events published by a single simulation, in the
+     * order they were published. The array is reused for the next batch.
+     *
+     * @param simulation
+     *            identifies the simulation that published the events, unique
+     *            within the stream
+     * @param events
+     *            the events, decoded with {@link Events}
+     * @param length
+     *            the number of events in the array
+     */
+    void onEvents(int simulation, long[] events, int length);
+
+}
@@ -0,0 +1,102 @@
+package org.goldfishmtg.simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded ring of events with a single producer and a single consumer. The
+ * producer waits for the consumer when the ring is full, unless the consumer
+ * has failed.
+ *
+ * @author skaspersen
+ *
+ */
+class EventRing {
+
+    private final int id;
+    private final long[] buffer;
+    private final int mask;
+    // The next position to read, only written by the consumer
+    private final AtomicLong head;
+    // The next position to write, only written by the producer
+    private final AtomicLong tail;
+    // The producer's last view of the head
+    private long headCache;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    /**
+     * @param capacity
+     *            the number of events held, rounded up to a power of two
+     */
+    EventRing(int id, int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.id = id;
+        this.buffer = new long[size];
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.closed = false;
+    }
+
+    int getId() {
+        return this.id;
+    }
+
+    /**
+     * Publishes an event, waiting for the consumer if the ring is full
+     *
+     * @throws IllegalStateException
+     *             if the ring is full and the consumer failed
+     */
+    void offer(long event) {
+        long position = this.tail.get();
+        if (position - this.headCache >= this.buffer.length) {
+            this.headCache = this.head.get();
+            while (position - this.headCache >= this.buffer.length) {
+                if (this.failure != null) {
+                    throw new IllegalStateException("event handler failed",
+                            this.failure);
+                }
+                Thread.yield();
+                this.headCache = this.head.get();
+            }
+        }
+        this.buffer[(int) position & this.mask] = event;
+        this.tail.lazySet(position + 1);
+    }
+
+    /**
+     * Moves the available events into the batch
+     *
+     * @return the number of events moved
+     */
+    int drain(long[] batch) {
+        long position = this.head.get();
+        int length = (int) Math.min(this.tail.get() - position, batch.length);
+        for (int i = 0; i < length; i++) {
+            batch[i] = this.buffer[(int) (position + i) & this.mask];
+        }
+        this.head.lazySet(position + length);
+        return length;
+    }
+
+    /**
+     * Marks the end of the events, the ring is dropped by the consumer once
+     * drained
+     */
+    void close() {
+        this.closed = true;
+    }
+
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Marks the consumer as failed, the ring is no longer drained
+     */
+    void fail(Throwable failure) {
+        this.failure = failure;
+    }
+
+}
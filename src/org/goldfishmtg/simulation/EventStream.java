@@ -0,0 +1,190 @@
+package org.goldfishmtg.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves the events of simulations to consumer threads, so that expensive
+ * analysis does not slow the simulations down. Each simulation publishing to
+ * the stream gets its own ring of events that only its {@link Goldfish}
+ * writes to, the consumer threads take the events out in batches and hand
+ * them to the {@link EventHandler}.
+ * <p>
+ * A simulation waits for the consumers when its ring is full, so a handler
+ * that cannot keep up eventually slows the simulations down to its own pace.
+ * <p>
+ * If the handler throws, the ring of the events it was handling is dropped and
+ * the simulation publishing to it fails once the ring fills up, the first
+ * error is also thrown by {@link #close()}.
+ *
+ * @author skaspersen
+ *
+ * @see Goldfish#setEventStream(EventStream)
+ */
+public class EventStream {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final EventHandler handler;
+    private final int capacity;
+    private final List<ConcurrentLinkedQueue<EventRing>> opened;
+    private final Thread[] consumers;
+    private final AtomicInteger nextId;
+    private volatile boolean closing;
+    private volatile Throwable failure;
+
+    /**
+     * Creates a new stream with a single consumer thread
+     *
+     * @param handler
+     *            the handler of the events
+     * @param capacity
+     *            the number of events each simulation can publish before
+     *            waiting for the consumer
+     */
+    public EventStream(EventHandler handler, int capacity) {
+        this(handler, capacity, 1);
+    }
+
+    /**
+     * Creates a new stream. The simulations are spread over the consumer
+     * threads, all events of a simulation being handled by the same thread.
+     *
+     * @param handler
+     *            the handler of the events, must be thread safe if there is
+     *            more than one consumer
+     * @param capacity
+     *            the number of events each simulation can publish before
+     *            waiting for the consumer
+     * @param consumerCount
+     *            the number of consumer threads
+     * @throws IllegalArgumentException
+     *             if <code>handler</code> is null, or <code>capacity</code> or
+     *             <code>consumerCount</code> is not positive
+     */
+    public EventStream(EventHandler handler, int capacity, int consumerCount) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler cannot be null");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (consumerCount < 1) {
+            throw new IllegalArgumentException("consumerCount must be positive");
+        }
+        this.handler = handler;
+        this.capacity = capacity;
+        this.nextId = new AtomicInteger();
+        this.closing = false;
+        this.opened = new ArrayList<ConcurrentLinkedQueue<EventRing>>();
+        this.consumers = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            this.opened.add(new ConcurrentLinkedQueue<EventRing>());
+            this.consumers[i] = new Thread(new Consumer(this.opened.get(i)),
+                    "event-stream-" + i);
+            this.consumers[i].setDaemon(true);
+            this.consumers[i].start();
+        }
+    }
+
+    /**
+     * Opens a ring for a new simulation
+     *
+     * @throws IllegalStateException
+     *             if the stream has been closed
+     */
+    EventRing open() {
+        if (this.closing) {
+            throw new IllegalStateException("event stream has been closed");
+        }
+        int id = this.nextId.getAndIncrement();
+        EventRing ring = new EventRing(id, this.capacity);
+        this.opened.get(Math.floorMod(id, this.opened.size())).add(ring);
+        return ring;
+    }
+
+    /**
+     * Closes the stream once the events already published have been handled.
+     * Simulations publishing to the stream must have completed first.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the consumers
+     * @throws IllegalStateException
+     *             if the handler failed, with the first error as cause
+     */
+    public void close() throws InterruptedException {
+        this.closing = true;
+        for (Thread consumer : this.consumers) {
+            LockSupport.unpark(consumer);
+            consumer.join();
+        }
+        if (this.failure != null) {
+            throw new IllegalStateException("event handler failed",
+                    this.failure);
+        }
+    }
+
+    private void fail(EventRing ring, Throwable t) {
+        synchronized (this) {
+            if (this.failure == null) {
+                this.failure = t;
+            }
+        }
+        ring.fail(t);
+    }
+
+    private class Consumer implements Runnable {
+        private final ConcurrentLinkedQueue<EventRing> opened;
+        private final List<EventRing> rings;
+        private final long[] batch;
+
+        Consumer(ConcurrentLinkedQueue<EventRing> opened) {
+            this.opened = opened;
+            this.rings = new ArrayList<EventRing>();
+            this.batch = new long[BATCH_SIZE];
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                boolean closing = EventStream.this.closing;
+                EventRing ring;
+                while ((ring = this.opened.poll()) != null) {
+                    this.rings.add(ring);
+                }
+                int handled = 0;
+                for (int i = 0; i < this.rings.size(); i++) {
+                    ring = this.rings.get(i);
+                    // Read the flag first, the events before it was set are
+                    // then all visible
+                    boolean closed = ring.isClosed();
+                    int length = ring.drain(this.batch);
+                    if (length > 0) {
+                        try {
+                            EventStream.this.handler.onEvents(ring.getId(),
+                                    this.batch, length);
+                        } catch (Throwable t) {
+                            fail(ring, t);
+                            this.rings.remove(i--);
+                        }
+                        handled += length;
+                    } else if (closed) {
+                        this.rings.remove(i--);
+                    }
+                }
+                if (handled == 0) {
+                    if (closing && this.opened.isEmpty()) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.goldfishmtg.simulation;
+
+/**
+ * Encodes and decodes the events published to an {@link EventStream}. Each
+ * event is a single long holding its type, the turn it happened on and an int
+ * value whose meaning depends on the type.
+ *
+ * @author skaspersen
+ *
+ */
+public final class Events {
+
+    /**
+     * A game has started, the value is the number of the game in the
+     * simulation, starting at 0
+     */
+    public static final int GAME_STARTED = 1;
+    /**
+     * An opening hand has been kept on turn 0, the value is the number of
+     * mulligans taken
+     */
+    public static final int MULLIGAN = 2;
+    /**
+     * A card has been drawn for the turn, the value is its ordinal in the card
+     * index of the library
+     */
+    public static final int DRAW = 3;
+    /**
+     * The agent has taken the turn, the value is the size of the hand
+     * afterwards
+     */
+    public static final int TURN = 4;
+    /**
+     * The game has ended on the turn, the value is the number of cards left in
+     * the library
+     */
+    public static final int GAME_ENDED = 5;
+
+    private static final int TURN_BITS = 24;
+    private static final long TURN_MASK = (1L << TURN_BITS) - 1;
+
+    private Events() {
+    }
+
+    /**
+     * Returns the event of the specified type
+     */
+    static long encode(int type, int turn, int value) {
+        return (long) type << (32 + TURN_BITS) | (turn & TURN_MASK) << 32
+                | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the type of the event
+     */
+    public static int type(long event) {
+        return (int) (event >>> (32 + TURN_BITS));
+    }
+
+    /**
+     * Returns the turn the event happened on
+     */
+    public static int turn(long event) {
+        return (int) ((event >>> 32) & TURN_MASK);
+    }
+
+    /**
+     * Returns the value of the event
+     */
+    public static int value(long event) {
+        return (int) event;
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.goldfishmtg.simulation;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Orders the jobs of a {@link SimulationService} by weighted fair share across
+ * submitters. Every submitter has a virtual time that advances by the number
+ * of games played for it divided by its weight, and the next job is always
+ * taken from the ready submitter with the lowest virtual time. The jobs of a
+ * submitter take turns, one batch each.
+ * <p>
+ * This class is not thread safe, the service accesses it while holding its
+ * lock.
+ *
+ * @author skaspersen
+ *
+ */
+class FairShareScheduler {
+
+    private static final class Submitter {
+        private final ArrayDeque<SimulationJob<?>> ready = new ArrayDeque<>();
+        private int weight = 1;
+        private double virtualTime = 0;
+    }
+
+    private final Map<String, Submitter> submitters;
+    private double virtualTime;
+    private int jobs;
+
+    FairShareScheduler() {
+        this.submitters = new HashMap<>();
+        this.virtualTime = 0;
+        this.jobs = 0;
+    }
+
+    /**
+     * Changes the share of the pool given to the specified submitter relative
+     * to other submitters, all submitters have a weight of 1 by default
+     */
+    void setWeight(String submitter, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        submitter(submitter).weight = weight;
+    }
+
+    int getWeight(String submitter) {
+        Submitter s = this.submitters.get(submitter);
+        return s == null ? 1 : s.weight;
+    }
+
+    /**
+     * Adds a new job, ready to run its first batch
+     */
+    void add(SimulationJob<?> job) {
+        this.jobs++;
+        ready(job);
+    }
+
+    /**
+     * Returns a job that has finished its batch and still has games to play to
+     * the scheduler
+     */
+    void ready(SimulationJob<?> job) {
+        Submitter s = submitter(job.getSubmitter());
+        if (s.ready.isEmpty()) {
+            // A submitter that was idle does not get credit for the time it
+            // was idle
+            s.virtualTime = Math.max(s.virtualTime, this.virtualTime);
+        }
+        s.ready.addLast(job);
+    }
+
+    /**
+     * Removes and returns the next job to run a batch of, or <code>null</code>
+     * if no job is ready
+     */
+    SimulationJob<?> next() {
+        Submitter next = null;
+        for (Submitter s : this.submitters.values()) {
+            if (!s.ready.isEmpty()
+                    && (next == null || s.virtualTime < next.virtualTime)) {
+                next = s;
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+        this.virtualTime = next.virtualTime;
+        return next.ready.removeFirst();
+    }
+
+    /**
+     * Accounts for a batch of a job having played the specified number of
+     * games
+     */
+    void charge(SimulationJob<?> job, int games) {
+        Submitter s = submitter(job.getSubmitter());
+        s.virtualTime += (double) Math.max(games, 1) / s.weight;
+    }
+
+    /**
+     * Forgets a job that has completed
+     */
+    void remove(SimulationJob<?> job) {
+        this.jobs--;
+    }
+
+    /**
+     * Returns <code>true</code> if there are no jobs that are waiting or
+     * running
+     */
+    boolean isEmpty() {
+        return this.jobs == 0;
+    }
+
+    private Submitter submitter(String name) {
+        Submitter s = this.submitters.get(name);
+        if (s == null) {
+            s = new Submitter();
+            this.submitters.put(name, s);
+        }
+        return s;
+    }
+
+}
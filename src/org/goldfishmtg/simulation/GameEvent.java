@@ -0,0 +1,37 @@
+package org.goldfishmtg.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event spanning one game played by a {@link Goldfish}. The
+ * event is disabled by default and can be enabled with the
+ * <code>org.goldfishmtg.Game#enabled=true</code> recording setting.
+ *
+ * @author skaspersen
+ *
+ */
+@Name("org.goldfishmtg.Game")
+@Label("Game")
+@Category("Goldfish")
+@Description("A game simulated by a goldfish")
+@Enabled(false)
+@StackTrace(false)
+class GameEvent extends Event {
+
+    @Label("Turns")
+    int turns;
+
+    @Label("Mulligans")
+    int mulligans;
+
+    @Label("On the Play")
+    @Description("Whether the first draw step was skipped")
+    boolean onThePlay;
+
+}
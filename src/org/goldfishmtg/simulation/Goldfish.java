@@ -1,9 +1,13 @@
 package org.goldfishmtg.simulation;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
-import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Hand;
 import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.cards.ShufflePipeline;
 
 /**
  * Simulates games for a library using a supplied agent.
@@ -13,6 +17,17 @@ import org.goldfishmtg.cards.Library;
  * drawing the first card for each turn.
  * <p>
  * The supplied agent acts as both an observer and controller for the simulation
+ * <p>
+ * When the library draws with weights, each game is weighed by the likelihood
+ * ratio of its draws, which is given to agents implementing
+ * {@link WeightedAgent}. Agents implementing {@link ConditionalAgent} observe
+ * the library before each draw step, so that they can record the probability
+ * of what the draw will bring instead of the card drawn.
+ * <p>
+ * Games, opening hands and turns are reported to Java Flight Recorder as
+ * <code>org.goldfishmtg.Game</code>, <code>org.goldfishmtg.Mulligan</code> and
+ * <code>org.goldfishmtg.Turn</code> events. The events are disabled by default
+ * and have next to no cost until they are enabled in a recording.
  *
  * @author skaspersen
  *
@@ -29,8 +44,23 @@ public class Goldfish<T extends Comparable<T>, A extends Agent<T>> implements
 
     private final Library<T> library;
     private final A agent;
+    // The agent when it weighs games, null otherwise
+    private final WeightedAgent<T> weightedAgent;
+    // The agent when it observes draws before they happen, null otherwise
+    private final ConditionalAgent<T> conditionalAgent;
+    private final Hand<T> hand;
     private int gameCount;
     private boolean skipFirstDrawStep;
+    private MulliganPolicy mulliganPolicy;
+    private long timeBudget;
+    private long deadline;
+    private int gamesPlayed;
+    private volatile boolean cancelled;
+    private EventStream eventStream;
+    // The ring of the running simulation, null when not publishing events
+    private EventRing events;
+    // The orders of the shuffle pipeline, null when drawing at random
+    private ShuffleCursor shuffleCursor;
 
     /**
      * Creates a new simulation for the specified library and agent. By default
@@ -46,11 +76,21 @@ public class Goldfish<T extends Comparable<T>, A extends Agent<T>> implements
      * @see #setSkipFirstDrawStep(boolean)
      * @see #setGames(int)
      */
+    @SuppressWarnings("unchecked")
     public Goldfish(Library<T> library, A agent) {
         this.agent = agent;
         this.library = library;
+        this.weightedAgent = agent instanceof WeightedAgent
+                ? (WeightedAgent<T>) agent : null;
+        this.conditionalAgent = agent instanceof ConditionalAgent
+                ? (ConditionalAgent<T>) agent : null;
+        this.hand = new Hand<T>(library.getIndex());
         this.skipFirstDrawStep = false;
         this.gameCount = 1;
+        this.mulliganPolicy = new TraditionalMulligan();
+        this.timeBudget = -1;
+        this.gamesPlayed = 0;
+        this.cancelled = false;
     }
 
     /**
@@ -65,6 +105,82 @@ public class Goldfish<T extends Comparable<T>, A extends Agent<T>> implements
         this.skipFirstDrawStep = skip;
     }
 
+    /**
+     * Changes how opening hands are drawn. By default a
+     * {@link TraditionalMulligan} is used.
+     *
+     * @param mulliganPolicy
+     *            the policy used to draw opening hands
+     * @throws IllegalArgumentException
+     *             if <code>mulliganPolicy</code> is null
+     */
+    public void setMulliganPolicy(MulliganPolicy mulliganPolicy) {
+        if (mulliganPolicy == null) {
+            throw new IllegalArgumentException("mulligan policy cannot be null");
+        }
+        this.mulliganPolicy = mulliganPolicy;
+    }
+
+    /**
+     * Changes the registry used to count the cards of the hand by category.
+     * There is no registry by default.
+     *
+     * @param registry
+     *            the registry of the cards of the library, or null for none
+     * @see Hand#getCount(org.goldfishmtg.cards.Category)
+     */
+    public void setCardRegistry(CardRegistry<T> registry) {
+        this.hand.setCardRegistry(registry);
+    }
+
+    /**
+     * Publishes the events of the games to the specified stream, so that they
+     * can be analysed on the threads of the stream instead of by the agent. By
+     * default no events are published.
+     *
+     * @param eventStream
+     *            the stream of the events, or null to stop publishing
+     */
+    public void setEventStream(EventStream eventStream) {
+        this.eventStream = eventStream;
+    }
+
+    /**
+     * Takes the order of the library of each game from the specified
+     * pipeline, instead of drawing cards at random from the library. By
+     * default no pipeline is used.
+     *
+     * @param shufflePipeline
+     *            a pipeline shuffling the deck of the library, or null to draw
+     *            at random
+     * @throws IllegalArgumentException
+     *             if the pipeline shuffles another deck, or the same cards
+     *             with another card index
+     */
+    public void setShufflePipeline(ShufflePipeline shufflePipeline) {
+        checkShufflePipeline(shufflePipeline, this.library);
+        this.shuffleCursor = shufflePipeline == null ? null
+                : new ShuffleCursor(shufflePipeline);
+    }
+
+    /**
+     * Checks that the pipeline shuffles the deck of the library. The ordinals
+     * of its orders must also be those of the card index of the library, which
+     * equal decks do not guarantee.
+     */
+    static void checkShufflePipeline(ShufflePipeline shufflePipeline,
+            Library<?> library) {
+        if (shufflePipeline == null) {
+            return;
+        }
+        Deck<?> deck = shufflePipeline.getDeck();
+        if (deck.getIndex() != library.getIndex()
+                || !deck.equals(library.getDeck())) {
+            throw new IllegalArgumentException(
+                    "pipeline does not shuffle the deck of the library");
+        }
+    }
+
     /**
      * Changes the number of games to simulate. The default value is 1.
      */
@@ -72,51 +188,278 @@ public class Goldfish<T extends Comparable<T>, A extends Agent<T>> implements
         this.gameCount = gameCount;
     }
 
+    /**
+     * Limits the time spent simulating. The time is measured from the start
+     * of the simulation, once it has run out no new game is started and the
+     * simulation ends normally with the games played so far. By default there
+     * is no time limit.
+     *
+     * @param time
+     *            the time the games may take, or a negative value for no limit
+     * @param unit
+     *            the unit of the time
+     * @see #getGamesPlayed()
+     */
+    public void setTimeBudget(long time, TimeUnit unit) {
+        this.timeBudget = time < 0 ? -1 : unit.toNanos(time);
+    }
+
+    /**
+     * Stops the simulation once the game being played is done, the simulation
+     * then ends normally with the games played so far. This may be called from
+     * any thread.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns <code>true</code> if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Returns the number of games played since the simulation started. This
+     * is less than the number of games to simulate if the simulation was
+     * cancelled or ran out of time.
+     */
+    public int getGamesPlayed() {
+        return this.gamesPlayed;
+    }
+
+    /**
+     * Plays all the games. The same {@link Hand} instance is handed to the
+     * agent for every game, agents that want to keep a hand past the current
+     * game should take a {@link Hand#snapshot() snapshot} of it.
+     */
     @Override
     public A call() throws Exception {
-        this.agent.simulationStarted();
-        for (int i = 0; i < this.gameCount; i++) {
-            this.agent.newGame();
-            CardList<T> hand = drawOpeningHand();
+        begin();
+        try {
+            playGames(this.gameCount);
+        } catch (Throwable t) {
+            try {
+                end();
+            } catch (Throwable e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+        end();
+        return this.agent;
 
-            int turn = 1;
-            if (!this.skipFirstDrawStep) {
-                hand.addCard(this.library.draw());
+    }
+
+    /**
+     * Returns this simulation for a {@link SimulationJob} to play in batches
+     */
+    Simulation<T> asSimulation() {
+        return new Simulation<T>() {
+            @Override
+            public void begin() {
+                Goldfish.this.begin();
             }
-            this.agent.takeTurn(turn, this.library, hand);
 
-            for (turn = 2; shouldPlayNextTurn(); turn++) {
-                hand.addCard(this.library.draw());
-                this.agent.takeTurn(turn, this.library, hand);
+            @Override
+            public int playGames(int games) {
+                return Goldfish.this.playGames(games);
             }
-            this.agent.gameDone();
-        }
-        this.agent.simulationDone();
+
+            @Override
+            public boolean isStopped() {
+                return Goldfish.this.isStopped();
+            }
+
+            @Override
+            public void end() {
+                Goldfish.this.end();
+            }
+
+            @Override
+            public Agent<T> getAgent() {
+                return Goldfish.this.getAgent();
+            }
+
+            @Override
+            public void cancel() {
+                Goldfish.this.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return Goldfish.this.isCancelled();
+            }
+        };
+    }
+
+    /**
+     * Returns the agent used to make game decisions
+     */
+    A getAgent() {
         return this.agent;
+    }
 
+    /**
+     * Returns the library of the simulation
+     */
+    Library<T> getLibrary() {
+        return this.library;
     }
 
-    private boolean shouldPlayNextTurn() {
-        return this.library.cardsRemaining() > 0
-                && this.agent.simulateAnotherTurn();
+    /**
+     * Starts the simulation without playing any games, allowing the games to
+     * be played in batches with {@link #playGames(int)}
+     */
+    void begin() {
+        this.gamesPlayed = 0;
+        this.deadline = System.nanoTime() + this.timeBudget;
+        this.events = this.eventStream == null ? null : this.eventStream
+                .open();
+        this.agent.simulationStarted();
+    }
+
+    /**
+     * Plays the specified number of games of a simulation that has begun,
+     * unless it is stopped first
+     *
+     * @return the number of games played
+     */
+    int playGames(int games) {
+        int played = 0;
+        while (played < games && !isStopped()) {
+            playGame(this.gamesPlayed + played);
+            played++;
+        }
+        this.gamesPlayed += played;
+        return played;
     }
 
-    private CardList<T> drawOpeningHand() {
-        CardList<T> drawn = new CardList<T>();
-        this.library.reset();
-        for (int cardCount = 7; cardCount > 0; cardCount--) {
-            for (int i = 0; i < cardCount; i++) {
-                drawn.addCard(this.library.draw());
+    /**
+     * Returns <code>true</code> if no more games should be started, either
+     * because the simulation was cancelled or because it ran out of time
+     */
+    boolean isStopped() {
+        return this.cancelled || this.timeBudget >= 0
+                && System.nanoTime() - this.deadline >= 0;
+    }
+
+    /**
+     * Ends a simulation that has begun
+     */
+    void end() {
+        if (this.shuffleCursor != null) {
+            this.shuffleCursor.release();
+        }
+        try {
+            this.agent.simulationDone();
+        } finally {
+            if (this.events != null) {
+                this.events.close();
+                this.events = null;
             }
-            if (this.agent.keepOpeningHand(cardCount, drawn)) {
-                return drawn;
-            } else {
-                // Add the drawn cards back into the library
-                drawn.clear();
-                this.library.reset();
+        }
+    }
+
+    /*
+     * The Flight Recorder events are only filled in when they are committed,
+     * while they are disabled the JIT removes them altogether
+     */
+    void playGame(int game) {
+        GameEvent gameEvent = new GameEvent();
+        gameEvent.begin();
+        publish(Events.GAME_STARTED, 0, game);
+        this.library.clearLikelihoodRatio();
+        this.agent.newGame();
+        if (this.shuffleCursor != null) {
+            loadShuffledOrder();
+        }
+        int mulligans = drawOpeningHand();
+        publish(Events.MULLIGAN, 0, mulligans);
+
+        int turn = 1;
+        if (!this.skipFirstDrawStep) {
+            draw(turn);
+        }
+        takeTurn(turn);
+
+        for (turn = 2; shouldPlayNextTurn(); turn++) {
+            draw(turn);
+            takeTurn(turn);
+        }
+        if (this.weightedAgent != null) {
+            this.weightedAgent.weighGame(this.library.getLikelihoodRatio());
+        }
+        this.agent.gameDone();
+        publish(Events.GAME_ENDED, turn - 1, this.library.cardsRemaining());
+        if (gameEvent.shouldCommit()) {
+            gameEvent.turns = turn - 1;
+            gameEvent.mulligans = mulligans;
+            gameEvent.onThePlay = this.skipFirstDrawStep;
+            gameEvent.commit();
+        }
+    }
+
+    private int drawOpeningHand() {
+        MulliganEvent event = new MulliganEvent();
+        event.begin();
+        int mulligans = this.mulliganPolicy.drawOpeningHand(this.library,
+                this.agent, this.hand);
+        if (event.shouldCommit()) {
+            event.mulligans = mulligans;
+            event.handSize = this.hand.size();
+            event.commit();
+        }
+        return mulligans;
+    }
+
+    private void takeTurn(int turn) {
+        TurnEvent event = new TurnEvent();
+        event.begin();
+        this.agent.takeTurn(turn, this.library, this.hand);
+        publish(Events.TURN, turn, this.hand.size());
+        if (event.shouldCommit()) {
+            event.turn = turn;
+            event.handSize = this.hand.size();
+            event.cardsRemaining = this.library.cardsRemaining();
+            event.commit();
+        }
+    }
+
+    /**
+     * Resets the library with the next shuffled order of the pipeline, the
+     * mulligan policy's own reset then keeps that order
+     */
+    private void loadShuffledOrder() {
+        int offset = this.shuffleCursor.next();
+        this.library.reset(this.shuffleCursor.getOrders(), offset);
+    }
+
+    private void draw(int turn) {
+        if (this.conditionalAgent != null) {
+            this.conditionalAgent.beforeDraw(turn, this.library, this.hand);
+        }
+        if (this.events == null) {
+            this.hand.drawFrom(this.library);
+        } else {
+            int ordinal = this.library.drawOrdinal();
+            if (ordinal >= 0) {
+                this.hand.addOrdinal(ordinal);
+                this.events.offer(Events.encode(Events.DRAW, turn, ordinal));
             }
         }
-        return drawn;
+    }
+
+    private void publish(int type, int turn, int value) {
+        if (this.events != null) {
+            this.events.offer(Events.encode(type, turn, value));
+        }
+    }
+
+    private boolean shouldPlayNextTurn() {
+        return this.library.cardsRemaining() > 0
+                && this.agent.simulateAnotherTurn();
     }
 
 }
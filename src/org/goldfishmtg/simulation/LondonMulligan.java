@@ -0,0 +1,50 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Hand;
+import org.goldfishmtg.cards.Library;
+
+/**
+ * The London mulligan. Every hand offered has 7 cards, when a hand is kept
+ * after taking mulligans the agent chooses one card to put on the bottom of the
+ * library for each mulligan taken.
+ * <p>
+ * The card count given to {@link Agent#keepOpeningHand(int, CardList)} is the
+ * number of cards the hand will have once the cards are put on the bottom. The
+ * cards to put on the bottom are chosen with
+ * {@link Agent#chooseCardToBottom(CardList)}.
+ *
+ * @author skaspersen
+ *
+ */
+public class LondonMulligan implements MulliganPolicy {
+
+    @Override
+    public <T extends Comparable<T>> int drawOpeningHand(Library<T> library,
+            Agent<T> agent, Hand<T> hand) {
+        hand.clear();
+        library.reset();
+        for (int mulligans = 0; mulligans < 7; mulligans++) {
+            for (int i = 0; i < 7; i++) {
+                hand.drawFrom(library);
+            }
+            if (agent.keepOpeningHand(7 - mulligans, hand)) {
+                for (int i = 0; i < mulligans; i++) {
+                    T card = agent.chooseCardToBottom(hand);
+                    if (!hand.removeCard(card)) {
+                        throw new IllegalStateException("Card '" + card
+                                + "' is not in the hand");
+                    }
+                    library.bottom(card);
+                }
+                return mulligans;
+            } else {
+                // Add the drawn cards back into the library
+                hand.clear();
+                library.reset();
+            }
+        }
+        return 7;
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.goldfishmtg.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event spanning the drawing of an opening hand by a
+ * {@link MulliganPolicy}, including the agent's decisions. The event is
+ * disabled by default and can be enabled with the
+ * <code>org.goldfishmtg.Mulligan#enabled=true</code> recording setting.
+ *
+ * @author skaspersen
+ *
+ */
+@Name("org.goldfishmtg.Mulligan")
+@Label("Opening Hand")
+@Category("Goldfish")
+@Description("An opening hand drawn by a goldfish, with its mulligans")
+@Enabled(false)
+@StackTrace(false)
+class MulliganEvent extends Event {
+
+    @Label("Mulligans")
+    int mulligans;
+
+    @Label("Hand Size")
+    @Description("The number of cards in the kept hand")
+    int handSize;
+
+}
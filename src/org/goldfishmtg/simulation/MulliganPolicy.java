@@ -0,0 +1,33 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.Hand;
+import org.goldfishmtg.cards.Library;
+
+/**
+ * Decides how an opening hand is drawn, and what happens when the agent
+ * declines to keep a hand
+ *
+ * @author skaspersen
+ *
+ * @see TraditionalMulligan
+ * @see LondonMulligan
+ */
+public interface MulliganPolicy {
+
+    /**
+     * Draws the opening hand for a game. The library is reset before the first
+     * hand is drawn, and the agent is asked whether to keep each hand drawn.
+     *
+     * @param library
+     *            the library to draw the opening hand from
+     * @param agent
+     *            the agent deciding which hand to keep
+     * @param hand
+     *            the hand to draw the cards into, any cards it contains are
+     *            discarded first
+     * @return the number of mulligans taken
+     */
+    <T extends Comparable<T>> int drawOpeningHand(Library<T> library,
+            Agent<T> agent, Hand<T> hand);
+
+}
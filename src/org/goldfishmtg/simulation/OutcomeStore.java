@@ -0,0 +1,359 @@
+package org.goldfishmtg.simulation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stores fixed width per-game records outside of the heap, so that agents can
+ * keep the outcome of every game of very long simulations without growing the
+ * heap or slowing down garbage collection.
+ * <p>
+ * Each record is made of a fixed number of int fields. Records are appended
+ * without locking and may be appended by several {@link Goldfish} instances
+ * at once, each record being written by the thread that appended it. The
+ * records are kept in direct buffers allocated in chunks as the store grows,
+ * each chunk storing the values of a field contiguously so that aggregations
+ * scan memory sequentially.
+ * <p>
+ * Aggregations must only be run once all records have been written, for
+ * example after the simulations writing them have completed. The amount of
+ * memory available to direct buffers is limited by the
+ * <code>-XX:MaxDirectMemorySize</code> option of the JVM.
+ *
+ * @author skaspersen
+ *
+ */
+public class OutcomeStore {
+
+    private static final int DEFAULT_CHUNK_RECORDS = 1 << 20;
+    private static final int SCAN_BLOCK = 4096;
+
+    private final int fields;
+    private final long capacity;
+    private final int chunkRecords;
+    private final AtomicReferenceArray<IntBuffer> chunks;
+    private final AtomicLong next;
+
+    /**
+     * Creates a new empty store
+     *
+     * @param fields
+     *            the number of int fields in each record
+     * @param capacity
+     *            the maximum number of records the store can hold, memory is
+     *            only allocated as records are appended
+     * @throws IllegalArgumentException
+     *             if <code>fields</code> or <code>capacity</code> is not
+     *             positive
+     */
+    public OutcomeStore(int fields, long capacity) {
+        this(fields, capacity, DEFAULT_CHUNK_RECORDS);
+    }
+
+    OutcomeStore(int fields, long capacity, int chunkRecords) {
+        if (fields < 1) {
+            throw new IllegalArgumentException("fields must be positive");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        // Keep every chunk within the int range of a direct buffer
+        int maxChunkRecords = Integer.MAX_VALUE / (fields * 4);
+        this.fields = fields;
+        this.capacity = capacity;
+        this.chunkRecords = Math.min(chunkRecords, maxChunkRecords);
+        long chunkCount = (capacity + this.chunkRecords - 1)
+                / this.chunkRecords;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity is too large");
+        }
+        this.chunks = new AtomicReferenceArray<>((int) chunkCount);
+        this.next = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of int fields in each record
+     */
+    public int getFields() {
+        return this.fields;
+    }
+
+    /**
+     * Returns the number of records appended to this store
+     */
+    public long size() {
+        return Math.min(this.next.get(), this.capacity);
+    }
+
+    /**
+     * Reserves a new record with every field set to 0. The fields of the
+     * record can then be written with {@link #set(long, int, int)}.
+     *
+     * @return the position of the new record
+     * @throws IllegalStateException
+     *             if the store is full
+     */
+    public long append() {
+        long record = this.next.getAndIncrement();
+        if (record >= this.capacity) {
+            throw new IllegalStateException("store is full");
+        }
+        chunk(record);
+        return record;
+    }
+
+    /**
+     * Appends a record made of a single field
+     *
+     * @return the position of the new record
+     * @throws IllegalStateException
+     *             if the store is full
+     */
+    public long append(int value0) {
+        long record = append();
+        set(record, 0, value0);
+        return record;
+    }
+
+    /**
+     * Appends a record made of the first two fields
+     *
+     * @return the position of the new record
+     * @throws IllegalStateException
+     *             if the store is full
+     */
+    public long append(int value0, int value1) {
+        long record = append();
+        set(record, 0, value0);
+        set(record, 1, value1);
+        return record;
+    }
+
+    /**
+     * Appends a record made of the first three fields
+     *
+     * @return the position of the new record
+     * @throws IllegalStateException
+     *             if the store is full
+     */
+    public long append(int value0, int value1, int value2) {
+        long record = append();
+        set(record, 0, value0);
+        set(record, 1, value1);
+        set(record, 2, value2);
+        return record;
+    }
+
+    /**
+     * Sets a field of a record
+     *
+     * @param record
+     *            the position of the record
+     * @param field
+     *            the field to set
+     * @param value
+     *            the new value of the field
+     * @throws IndexOutOfBoundsException
+     *             if the record has not been appended, or the field is not
+     *             part of the records
+     */
+    public void set(long record, int field, int value) {
+        checkRecord(record);
+        chunk(record).put(offset(record, field), value);
+    }
+
+    /**
+     * Returns a field of a record
+     *
+     * @param record
+     *            the position of the record
+     * @param field
+     *            the field to read
+     * @return the value of the field
+     * @throws IndexOutOfBoundsException
+     *             if the record has not been appended, or the field is not
+     *             part of the records
+     */
+    public int get(long record, int field) {
+        checkRecord(record);
+        return chunk(record).get(offset(record, field));
+    }
+
+    /**
+     * Returns the sum of a field over all records
+     */
+    public long sum(int field) {
+        checkField(field);
+        long sum = 0;
+        int[] block = new int[SCAN_BLOCK];
+        int length;
+        long size = size();
+        for (long start = 0; start < size; start += length) {
+            length = read(field, start, size, block);
+            for (int i = 0; i < length; i++) {
+                sum += block[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the mean of a field over all records, or NaN if the store is
+     * empty
+     */
+    public double mean(int field) {
+        long size = size();
+        return size == 0 ? Double.NaN : (double) sum(field) / size;
+    }
+
+    /**
+     * Returns the smallest value of a field over all records, or
+     * {@link Integer#MAX_VALUE} if the store is empty
+     */
+    public int min(int field) {
+        checkField(field);
+        int min = Integer.MAX_VALUE;
+        int[] block = new int[SCAN_BLOCK];
+        int length;
+        long size = size();
+        for (long start = 0; start < size; start += length) {
+            length = read(field, start, size, block);
+            for (int i = 0; i < length; i++) {
+                min = Math.min(min, block[i]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Returns the largest value of a field over all records, or
+     * {@link Integer#MIN_VALUE} if the store is empty
+     */
+    public int max(int field) {
+        checkField(field);
+        int max = Integer.MIN_VALUE;
+        int[] block = new int[SCAN_BLOCK];
+        int length;
+        long size = size();
+        for (long start = 0; start < size; start += length) {
+            length = read(field, start, size, block);
+            for (int i = 0; i < length; i++) {
+                max = Math.max(max, block[i]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of records whose field has the specified value
+     */
+    public long count(int field, int value) {
+        checkField(field);
+        long count = 0;
+        int[] block = new int[SCAN_BLOCK];
+        int length;
+        long size = size();
+        for (long start = 0; start < size; start += length) {
+            length = read(field, start, size, block);
+            for (int i = 0; i < length; i++) {
+                count += block[i] == value ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of records for each value of a field. Element
+     * <code>i</code> of the returned array is the number of records whose field
+     * is <code>i</code>, records whose field is negative or not less than
+     * <code>bins</code> are not counted.
+     *
+     * @param field
+     *            the field to count
+     * @param bins
+     *            the number of values to count
+     * @return the number of records for each value
+     */
+    public long[] histogram(int field, int bins) {
+        checkField(field);
+        long[] histogram = new long[bins];
+        int[] block = new int[SCAN_BLOCK];
+        int length;
+        long size = size();
+        for (long start = 0; start < size; start += length) {
+            length = read(field, start, size, block);
+            for (int i = 0; i < length; i++) {
+                int value = block[i];
+                if (value >= 0 && value < bins) {
+                    histogram[value]++;
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Removes all records and releases the memory held by this store. The
+     * memory of direct buffers is returned once they are garbage collected.
+     * This must not be called while records are being appended.
+     */
+    public void clear() {
+        for (int i = 0; i < this.chunks.length(); i++) {
+            this.chunks.set(i, null);
+        }
+        this.next.set(0);
+    }
+
+    /**
+     * Copies the values of a field of the records starting at the specified
+     * position into the block, never crossing a chunk
+     *
+     * @return the number of values copied
+     */
+    private int read(int field, long start, long size, int[] block) {
+        int inChunk = (int) (start % this.chunkRecords);
+        long remaining = size - start;
+        int length = (int) Math.min(Math.min(block.length, remaining),
+                this.chunkRecords - inChunk);
+        IntBuffer view = chunk(start).duplicate();
+        view.position(field * this.chunkRecords + inChunk);
+        view.get(block, 0, length);
+        return length;
+    }
+
+    private int offset(long record, int field) {
+        checkField(field);
+        return field * this.chunkRecords + (int) (record % this.chunkRecords);
+    }
+
+    private IntBuffer chunk(long record) {
+        int chunkIndex = (int) (record / this.chunkRecords);
+        IntBuffer chunk = this.chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunk = ByteBuffer
+                    .allocateDirect(this.chunkRecords * this.fields * 4)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            if (!this.chunks.compareAndSet(chunkIndex, null, chunk)) {
+                // Another thread allocated the chunk first
+                chunk = this.chunks.get(chunkIndex);
+            }
+        }
+        return chunk;
+    }
+
+    private void checkRecord(long record) {
+        if (record < 0 || record >= size()) {
+            throw new IndexOutOfBoundsException("record " + record);
+        }
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= this.fields) {
+            throw new IndexOutOfBoundsException("field " + field);
+        }
+    }
+
+}
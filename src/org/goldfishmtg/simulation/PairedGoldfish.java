@@ -0,0 +1,353 @@
+package org.goldfishmtg.simulation;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.cards.ShufflePipeline;
+
+/**
+ * Simulates every game twice, once on the play and once on the draw, with the
+ * same shuffle. Each side has its own library and agent, but both libraries
+ * start every game from the same order and draw with random number generators
+ * seeded alike, so both sides see the same cards in the same order for as
+ * long as their agents make the same decisions, mulligans included. The
+ * difference between the two agents then only measures the difference between
+ * playing and drawing first, with much less variance than two independent
+ * simulations.
+ * <p>
+ * With a {@link ShufflePipeline} each shuffled order is used by both sides, so
+ * only half as many orders are shuffled as for two simulations.
+ * <p>
+ * Each side is played by a {@link Goldfish} of its own. The agent returned by
+ * {@link #call()} is the agent on the play, the agent on the draw is returned
+ * by {@link #getOnTheDraw()}.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ * @param <A>
+ *            the agent used to make game decisions
+ */
+public class PairedGoldfish<T extends Comparable<T>, A extends Agent<T>>
+        implements Callable<A> {
+
+    private final Goldfish<T, A> playSide;
+    private final Goldfish<T, A> drawSide;
+    private final Random playRandom;
+    private final Random drawRandom;
+    private final Random seeds;
+    // The deck in its original order, each game starts from it
+    private final int[] deckOrder;
+    private int gameCount;
+    private int gamesPlayed;
+    // The orders of the shuffle pipeline, null when shuffling at random
+    private ShuffleCursor shuffleCursor;
+
+    /**
+     * Creates a new paired simulation of the specified deck. By default 1 pair
+     * of games is simulated.
+     *
+     * @param deck
+     *            the cards that make up the libraries
+     * @param onThePlay
+     *            the agent playing the games on the play
+     * @param onTheDraw
+     *            the agent playing the games on the draw, must not be the same
+     *            instance as <code>onThePlay</code>
+     * @throws IllegalArgumentException
+     *             if the deck or an agent is null, or if both agents are the
+     *             same instance
+     */
+    public PairedGoldfish(Deck<T> deck, A onThePlay, A onTheDraw) {
+        this(deck, onThePlay, onTheDraw, new Random().nextLong());
+    }
+
+    /**
+     * Creates a new paired simulation of the specified deck, shuffling
+     * reproducibly from the specified seed
+     *
+     * @param deck
+     *            the cards that make up the libraries
+     * @param onThePlay
+     *            the agent playing the games on the play
+     * @param onTheDraw
+     *            the agent playing the games on the draw, must not be the same
+     *            instance as <code>onThePlay</code>
+     * @param seed
+     *            the seed of the shuffles
+     * @throws IllegalArgumentException
+     *             if the deck or an agent is null, or if both agents are the
+     *             same instance
+     */
+    public PairedGoldfish(Deck<T> deck, A onThePlay, A onTheDraw, long seed) {
+        if (deck == null || onThePlay == null || onTheDraw == null) {
+            throw new IllegalArgumentException(
+                    "deck and agents cannot be null");
+        }
+        if (onThePlay == onTheDraw) {
+            throw new IllegalArgumentException(
+                    "each side needs its own agent");
+        }
+        this.playRandom = new Random();
+        this.drawRandom = new Random();
+        this.playSide = new Goldfish<T, A>(new Library<T>(this.playRandom,
+                deck), onThePlay);
+        this.drawSide = new Goldfish<T, A>(new Library<T>(this.drawRandom,
+                deck), onTheDraw);
+        this.playSide.setSkipFirstDrawStep(true);
+        this.drawSide.setSkipFirstDrawStep(false);
+        this.seeds = new Random(seed);
+        this.deckOrder = new int[deck.size()];
+        int position = 0;
+        for (int ordinal = 0; ordinal < deck.getIndex().size(); ordinal++) {
+            for (int i = 0; i < deck.countOf(ordinal); i++) {
+                this.deckOrder[position++] = ordinal;
+            }
+        }
+        this.gameCount = 1;
+        this.gamesPlayed = 0;
+    }
+
+    /**
+     * Returns the agent playing the games on the play
+     */
+    public A getOnThePlay() {
+        return this.playSide.getAgent();
+    }
+
+    /**
+     * Returns the agent playing the games on the draw
+     */
+    public A getOnTheDraw() {
+        return this.drawSide.getAgent();
+    }
+
+    /**
+     * Changes how the opening hands of both sides are drawn
+     *
+     * @see Goldfish#setMulliganPolicy(MulliganPolicy)
+     */
+    public void setMulliganPolicy(MulliganPolicy mulliganPolicy) {
+        this.playSide.setMulliganPolicy(mulliganPolicy);
+        this.drawSide.setMulliganPolicy(mulliganPolicy);
+    }
+
+    /**
+     * Changes the registry used to count the cards of both hands by category
+     *
+     * @see Goldfish#setCardRegistry(CardRegistry)
+     */
+    public void setCardRegistry(CardRegistry<T> registry) {
+        this.playSide.setCardRegistry(registry);
+        this.drawSide.setCardRegistry(registry);
+    }
+
+    /**
+     * Publishes the events of the games of both sides to the specified stream,
+     * each side as a simulation of its own
+     *
+     * @see Goldfish#setEventStream(EventStream)
+     */
+    public void setEventStream(EventStream eventStream) {
+        this.playSide.setEventStream(eventStream);
+        this.drawSide.setEventStream(eventStream);
+    }
+
+    /**
+     * Takes the order of the libraries of each pair of games from the
+     * specified pipeline. By default no pipeline is used.
+     *
+     * @param shufflePipeline
+     *            a pipeline shuffling the deck of the libraries, or null to
+     *            draw at random
+     * @throws IllegalArgumentException
+     *             if the pipeline shuffles another deck, or the same cards
+     *             with another card index
+     */
+    public void setShufflePipeline(ShufflePipeline shufflePipeline) {
+        Goldfish.checkShufflePipeline(shufflePipeline,
+                this.playSide.getLibrary());
+        this.shuffleCursor = shufflePipeline == null ? null
+                : new ShuffleCursor(shufflePipeline);
+    }
+
+    /**
+     * Changes the number of pairs of games to simulate. The default value is
+     * 1.
+     */
+    public void setGames(int gameCount) {
+        this.gameCount = gameCount;
+    }
+
+    /**
+     * Limits the time spent simulating, no new pair of games is started once
+     * it has run out
+     *
+     * @see Goldfish#setTimeBudget(long, TimeUnit)
+     */
+    public void setTimeBudget(long time, TimeUnit unit) {
+        this.playSide.setTimeBudget(time, unit);
+    }
+
+    /**
+     * Stops the simulation once the pair of games being played is done. This
+     * may be called from any thread.
+     */
+    public void cancel() {
+        this.playSide.cancel();
+    }
+
+    /**
+     * Returns <code>true</code> if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return this.playSide.isCancelled();
+    }
+
+    /**
+     * Returns the number of pairs of games played since the simulation
+     * started
+     */
+    public int getGamesPlayed() {
+        return this.gamesPlayed;
+    }
+
+    /**
+     * Plays all the pairs of games
+     *
+     * @return the agent on the play
+     */
+    @Override
+    public A call() throws Exception {
+        begin();
+        try {
+            playGames(this.gameCount);
+        } catch (Throwable t) {
+            try {
+                end();
+            } catch (Throwable e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+        end();
+        return getOnThePlay();
+    }
+
+    /**
+     * Returns this simulation for a {@link SimulationJob} to play in batches,
+     * each pair of games counting as one game. The job completes with the
+     * agent on the play.
+     */
+    Simulation<T> asSimulation() {
+        return new Simulation<T>() {
+            @Override
+            public void begin() {
+                PairedGoldfish.this.begin();
+            }
+
+            @Override
+            public int playGames(int games) {
+                return PairedGoldfish.this.playGames(games);
+            }
+
+            @Override
+            public boolean isStopped() {
+                return PairedGoldfish.this.isStopped();
+            }
+
+            @Override
+            public void end() {
+                PairedGoldfish.this.end();
+            }
+
+            @Override
+            public Agent<T> getAgent() {
+                return getOnThePlay();
+            }
+
+            @Override
+            public void cancel() {
+                PairedGoldfish.this.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return PairedGoldfish.this.isCancelled();
+            }
+        };
+    }
+
+    private void begin() {
+        this.gamesPlayed = 0;
+        this.playSide.begin();
+        try {
+            this.drawSide.begin();
+        } catch (RuntimeException | Error e) {
+            this.playSide.end();
+            throw e;
+        }
+    }
+
+    private int playGames(int games) {
+        int played = 0;
+        while (played < games && !isStopped()) {
+            playGame(this.gamesPlayed + played);
+            played++;
+        }
+        this.gamesPlayed += played;
+        return played;
+    }
+
+    private boolean isStopped() {
+        return this.playSide.isStopped();
+    }
+
+    private void end() {
+        if (this.shuffleCursor != null) {
+            this.shuffleCursor.release();
+        }
+        try {
+            this.playSide.end();
+        } finally {
+            this.drawSide.end();
+        }
+    }
+
+    /**
+     * Plays the game on the play, then the same game on the draw
+     */
+    private void playGame(int game) {
+        long seed = this.seeds.nextLong();
+        int offset = -1;
+        if (this.shuffleCursor != null) {
+            offset = this.shuffleCursor.next();
+        }
+        prepare(this.playSide.getLibrary(), this.playRandom, seed, offset);
+        this.playSide.playGame(game);
+        prepare(this.drawSide.getLibrary(), this.drawRandom, seed, offset);
+        this.drawSide.playGame(game);
+    }
+
+    /**
+     * Puts the library in the state every game of the pair starts from, the
+     * reset of the mulligan policy then keeps that state
+     */
+    private void prepare(Library<T> library, Random random, long seed,
+            int offset) {
+        if (offset < 0) {
+            library.reset(this.deckOrder, 0);
+            library.shuffle();
+        } else {
+            library.reset(this.shuffleCursor.getOrders(), offset);
+        }
+        random.setSeed(seed);
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.ShufflePipeline;
+
+/**
+ * Hands out the shuffled orders of a {@link ShufflePipeline} one at a time,
+ * taking a new block of orders when the current one is used up and recycling
+ * the old one
+ *
+ * @author skaspersen
+ *
+ */
+final class ShuffleCursor {
+
+    private final ShufflePipeline pipeline;
+    // The block of shuffled orders being used, and the next order in it
+    private int[] orders;
+    private int order;
+
+    ShuffleCursor(ShufflePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Moves to the next shuffled order
+     *
+     * @return the offset of the order in the block returned by
+     *         {@link #getOrders()}
+     */
+    int next() {
+        if (this.orders == null
+                || this.order == this.pipeline.getPermutations()) {
+            if (this.orders != null) {
+                this.pipeline.recycle(this.orders);
+            }
+            this.orders = this.pipeline.take();
+            this.order = 0;
+        }
+        return this.order++ * this.pipeline.getDeck().size();
+    }
+
+    /**
+     * Returns the block holding the order the last call to {@link #next()}
+     * moved to
+     */
+    int[] getOrders() {
+        return this.orders;
+    }
+
+    /**
+     * Gives the block being used back to the pipeline, the next order then
+     * comes from a new block
+     */
+    void release() {
+        if (this.orders != null) {
+            this.pipeline.recycle(this.orders);
+            this.orders = null;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.goldfishmtg.simulation;
+
+/**
+ * A simulation whose games a {@link SimulationJob} plays in batches. The
+ * simulations of the package hand out an implementation of it, which keeps
+ * these methods out of their public interface.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ *
+ * @see Goldfish
+ * @see PairedGoldfish
+ */
+interface Simulation<T extends Comparable<T>> {
+
+    /**
+     * Starts the simulation without playing any games
+     */
+    void begin();
+
+    /**
+     * Plays the specified number of games of a simulation that has begun,
+     * unless it is stopped first
+     *
+     * @return the number of games played
+     */
+    int playGames(int games);
+
+    /**
+     * Returns <code>true</code> if no more games should be started
+     */
+    boolean isStopped();
+
+    /**
+     * Ends a simulation that has begun
+     */
+    void end();
+
+    /**
+     * Returns the agent the simulation completes with
+     */
+    Agent<T> getAgent();
+
+    /**
+     * Stops the simulation once the game being played is done
+     */
+    void cancel();
+
+    boolean isCancelled();
+
+}
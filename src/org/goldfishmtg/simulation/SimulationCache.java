@@ -0,0 +1,287 @@
+package org.goldfishmtg.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+
+/**
+ * Keeps the results of simulations on disk, so that running the same
+ * simulation again returns the stored agent instead of replaying the games.
+ * <p>
+ * Results are keyed by a hash of the deck, the class, key and version of the
+ * agent, the mulligan policy of the service and whether the first draw step is
+ * skipped. A stored result is used for any simulation of at most as many
+ * games. A simulation of more games only plays the missing games and merges
+ * them into the stored result, which is then stored for the larger number of
+ * games.
+ * <p>
+ * The least recently used results are removed once the stored results take
+ * more than the maximum size.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public class SimulationCache<T extends Comparable<T>> {
+
+    private static final String SUFFIX = ".result";
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final SimulationService<T> service;
+    private final File directory;
+    private final long maxSize;
+
+    /**
+     * Creates a new cache of the simulations run by the specified service
+     *
+     * @param service
+     *            the service running the simulations
+     * @param directory
+     *            the directory the results are stored in, created if needed
+     * @param maxSize
+     *            the largest number of bytes the stored results may take
+     * @throws IllegalArgumentException
+     *             if <code>service</code> or <code>directory</code> is null,
+     *             or <code>maxSize</code> is not positive
+     * @throws IOException
+     *             if the directory cannot be created
+     */
+    public SimulationCache(SimulationService<T> service, File directory,
+            long maxSize) throws IOException {
+        if (service == null || directory == null) {
+            throw new IllegalArgumentException(
+                    "service and directory cannot be null");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.service = service;
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Simulates the specified number of games, unless they have been stored
+     *
+     * @see #simulate(Deck, CacheableAgent, int, boolean)
+     */
+    public <A extends CacheableAgent<T, A>> CompletableFuture<A> simulate(
+            CardList<T> cardList, A agent, int numberOfGames,
+            boolean skipFirstDrawStep) {
+        return simulate(Deck.of(cardList), agent, numberOfGames,
+                skipFirstDrawStep);
+    }
+
+    /**
+     * Simulates the specified number of games, unless they have been stored.
+     * If fewer games have been stored, the agent only plays the missing games
+     * and is merged into the stored agent.
+     *
+     * @param deck
+     *            the cards that make up the library
+     * @param agent
+     *            a new agent used to play the games that have not been stored
+     * @param numberOfGames
+     *            the number of games to simulate
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a future completed with an agent that has observed at least the
+     *         specified number of games, which is the specified agent only if
+     *         no games were stored
+     */
+    public <A extends CacheableAgent<T, A>> CompletableFuture<A> simulate(
+            Deck<T> deck, final A agent, int numberOfGames,
+            boolean skipFirstDrawStep) {
+        final File file = new File(this.directory, key(deck, agent,
+                skipFirstDrawStep) + SUFFIX);
+        final Entry<A> entry = read(file, agent);
+        if (entry != null && entry.games >= numberOfGames) {
+            return CompletableFuture.completedFuture(entry.agent);
+        }
+        final int storedGames = entry == null ? 0 : entry.games;
+        final int games = numberOfGames;
+        return this.service
+                .simulateAsync(SimulationService.DEFAULT_SUBMITTER, deck,
+                        agent, games - storedGames, skipFirstDrawStep)
+                .thenApply(new Function<Agent<T>, A>() {
+                    @Override
+                    public A apply(Agent<T> done) {
+                        A result = agent;
+                        if (entry != null) {
+                            entry.agent.merge(agent);
+                            result = entry.agent;
+                        }
+                        write(file, new Entry<A>(games, result));
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Removes all stored results
+     */
+    public synchronized void clear() {
+        for (File file : files()) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns the number of bytes taken by the stored results
+     */
+    public synchronized long size() {
+        long size = 0;
+        for (File file : files()) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the stored result, or null if there is none or it cannot be
+     * read. Reading a result marks it as recently used.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <A extends CacheableAgent<T, A>> Entry<A> read(
+            File file, A agent) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            int games = in.readInt();
+            Object stored = in.readObject();
+            if (stored.getClass() != agent.getClass()) {
+                return null;
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry<A>(games, (A) stored);
+        } catch (IOException | ClassNotFoundException e) {
+            // The agent class has changed since the result was stored
+            this.logger.log(Level.FINE, "Discarding " + file, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private synchronized void write(File file, Entry<?> entry) {
+        File temp = new File(this.directory, file.getName() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(entry.games);
+            out.writeObject(entry.agent);
+        } catch (IOException e) {
+            this.logger.log(Level.WARNING, "Cannot store " + file, e);
+            temp.delete();
+            return;
+        }
+        file.delete();
+        if (!temp.renameTo(file)) {
+            this.logger.warning("Cannot store " + file);
+            temp.delete();
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Removes the least recently used results until the stored results fit
+     * within the maximum size
+     */
+    private void evict() {
+        File[] files = files();
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= this.maxSize) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length && size > this.maxSize; i++) {
+            size -= files[i].length();
+            files[i].delete();
+        }
+    }
+
+    private File[] files() {
+        File[] files = this.directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SUFFIX);
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+
+    private String key(Deck<T> deck, CacheableAgent<T, ?> agent,
+            boolean skipFirstDrawStep) {
+        StringBuilder bld = new StringBuilder();
+        CardIndex<T> index = deck.getIndex();
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            if (deck.countOf(ordinal) > 0) {
+                bld.append(deck.countOf(ordinal)).append(" x ")
+                        .append(index.getCard(ordinal)).append("\n");
+            }
+        }
+        bld.append(agent.getClass().getName()).append("\n");
+        bld.append(agent.getCacheKey()).append("\n");
+        bld.append(agent.getCacheVersion()).append("\n");
+        bld.append(this.service.getMulliganPolicy().getClass().getName())
+                .append("\n");
+        bld.append(skipFirstDrawStep);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+                    bld.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry<A> {
+        private final int games;
+        private final A agent;
+
+        Entry(int games, A agent) {
+            this.games = games;
+            this.agent = agent;
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.goldfishmtg.simulation;
+
+/**
+ * Reports the progress or the completion of a simulation submitted to a
+ * {@link SimulationService}
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ *
+ * @see SimulationService#getEvents()
+ */
+public class SimulationEvent<T extends Comparable<T>> {
+
+    /**
+     * The kinds of simulation events
+     */
+    public enum Type {
+        /**
+         * A batch of games has been played
+         */
+        PROGRESS,
+        /**
+         * The simulation has completed, its agent is available
+         */
+        COMPLETED,
+        /**
+         * The simulation has failed
+         */
+        FAILED
+    }
+
+    private final Type type;
+    private final SimulationHandle<T> simulation;
+    private final int gamesPlayed;
+    private final Agent<T> agent;
+    private final Throwable error;
+
+    SimulationEvent(Type type, SimulationHandle<T> simulation,
+            int gamesPlayed, Agent<T> agent, Throwable error) {
+        this.type = type;
+        this.simulation = simulation;
+        this.gamesPlayed = gamesPlayed;
+        this.agent = agent;
+        this.error = error;
+    }
+
+    /**
+     * Returns the kind of this event
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns <code>true</code> if this is the last event of the simulation
+     */
+    public boolean isTerminal() {
+        return this.type != Type.PROGRESS;
+    }
+
+    /**
+     * Returns the simulation this event is about
+     */
+    public SimulationHandle<T> getSimulation() {
+        return this.simulation;
+    }
+
+    /**
+     * Returns the number of games the simulation had played when this event
+     * was published
+     */
+    public int getGamesPlayed() {
+        return this.gamesPlayed;
+    }
+
+    /**
+     * Returns the agent of a completed simulation, <code>null</code> for other
+     * events
+     */
+    public Agent<T> getAgent() {
+        return this.agent;
+    }
+
+    /**
+     * Returns the reason a simulation failed, <code>null</code> for other
+     * events
+     */
+    public Throwable getError() {
+        return this.error;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationEvent[type=" + this.type + ", gamesPlayed="
+                + this.gamesPlayed + "]";
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.goldfishmtg.simulation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A simulation submitted to a {@link SimulationService}. The handle can be
+ * used to follow the progress of the simulation, to stop it early, or to wait
+ * for its agent.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+public class SimulationHandle<T extends Comparable<T>> {
+
+    private final SimulationJob<T> job;
+
+    SimulationHandle(SimulationJob<T> job) {
+        this.job = job;
+    }
+
+    /**
+     * Stops the simulation once the game being played is done. The simulation
+     * then completes normally, its agent having observed only the games played
+     * so far. Has no effect if the simulation has already completed.
+     */
+    public void cancel() {
+        this.job.cancel();
+    }
+
+    /**
+     * Returns <code>true</code> if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return this.job.isCancelled();
+    }
+
+    /**
+     * Returns <code>true</code> once the simulation has completed, and its
+     * agent can be retrieved without waiting
+     */
+    public boolean isDone() {
+        return this.job.isDone();
+    }
+
+    /**
+     * Returns the number of games played so far. While the simulation runs
+     * this is updated after each batch of games, once completed it is the
+     * exact number of games the agent observed.
+     */
+    public int getGamesPlayed() {
+        return this.job.getGamesPlayed();
+    }
+
+    /**
+     * Waits for the simulation to complete and returns its agent
+     *
+     * @return the agent of the simulation
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     * @throws ExecutionException
+     *             if the simulation failed
+     */
+    public Agent<T> get() throws InterruptedException, ExecutionException {
+        return this.job.getResult().get();
+    }
+
+    /**
+     * Returns a future completed with the agent of the simulation once it has
+     * completed. Completing or cancelling the returned future has no effect on
+     * the simulation, use {@link #cancel()} to stop it.
+     *
+     * @return a future for the agent of the simulation
+     */
+    public CompletableFuture<Agent<T>> toCompletableFuture() {
+        return this.job.getResult().copy();
+    }
+
+}
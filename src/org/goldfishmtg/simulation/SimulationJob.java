@@ -0,0 +1,142 @@
+package org.goldfishmtg.simulation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A simulation submitted to a {@link SimulationService}. The games of a job are
+ * played in batches, at most one batch of a job runs at any time so the agent
+ * of a job is never used by two threads at once.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+class SimulationJob<T extends Comparable<T>> {
+
+    private final String submitter;
+    private final Simulation<T> simulation;
+    private final int numberOfGames;
+    private final CompletableFuture<Agent<T>> result;
+    private final SimulationHandle<T> handle;
+    private final boolean retrievable;
+    private volatile int gamesPlayed;
+    private boolean started;
+
+    SimulationJob(String submitter, Simulation<T> simulation,
+            int numberOfGames, boolean retrievable) {
+        this.submitter = submitter;
+        this.simulation = simulation;
+        this.numberOfGames = numberOfGames;
+        this.retrievable = retrievable;
+        this.result = new CompletableFuture<>();
+        this.handle = new SimulationHandle<>(this);
+        this.gamesPlayed = 0;
+        this.started = false;
+    }
+
+    String getSubmitter() {
+        return this.submitter;
+    }
+
+    CompletableFuture<Agent<T>> getResult() {
+        return this.result;
+    }
+
+    SimulationHandle<T> getHandle() {
+        return this.handle;
+    }
+
+    /**
+     * Returns <code>true</code> if the agent of this job is to be retrieved
+     * with {@link SimulationService#retrieveNextCompleted()}
+     */
+    boolean isRetrievable() {
+        return this.retrievable;
+    }
+
+    /**
+     * Returns an event describing the current state of this job
+     */
+    SimulationEvent<T> toEvent() {
+        if (!this.result.isDone()) {
+            return new SimulationEvent<>(SimulationEvent.Type.PROGRESS,
+                    this.handle, this.gamesPlayed, null, null);
+        }
+        try {
+            return new SimulationEvent<>(SimulationEvent.Type.COMPLETED,
+                    this.handle, this.gamesPlayed, this.result.join(), null);
+        } catch (CompletionException e) {
+            return new SimulationEvent<>(SimulationEvent.Type.FAILED,
+                    this.handle, this.gamesPlayed, null, e.getCause());
+        }
+    }
+
+    /**
+     * Plays the next batch of games, completing the result once every game
+     * has been played
+     *
+     * @param batchSize
+     *            the maximum number of games to play
+     * @return the number of games played
+     */
+    int runBatch(int batchSize) {
+        try {
+            if (!this.started) {
+                this.simulation.begin();
+                this.started = true;
+            }
+            int games = Math.min(batchSize, this.numberOfGames
+                    - this.gamesPlayed);
+            int played = this.simulation.playGames(games);
+            this.gamesPlayed += played;
+            if (this.gamesPlayed >= this.numberOfGames
+                    || this.simulation.isStopped()) {
+                this.started = false;
+                this.simulation.end();
+                this.result.complete(this.simulation.getAgent());
+            }
+            return played;
+        } catch (Throwable t) {
+            // Release the event rings and shuffled orders of the simulation
+            if (this.started) {
+                this.started = false;
+                try {
+                    this.simulation.end();
+                } catch (Throwable e) {
+                    t.addSuppressed(e);
+                }
+            }
+            this.result.completeExceptionally(t);
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the number of games played, updated after every batch
+     */
+    int getGamesPlayed() {
+        return this.gamesPlayed;
+    }
+
+    /**
+     * Stops the job once the game being played is done
+     */
+    void cancel() {
+        this.simulation.cancel();
+    }
+
+    boolean isCancelled() {
+        return this.simulation.isCancelled();
+    }
+
+    /**
+     * Returns <code>true</code> once the result of this job is available
+     */
+    boolean isDone() {
+        return this.result.isDone();
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.goldfishmtg.simulation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the events of the simulations of a {@link SimulationService}.
+ * <p>
+ * Publishing never blocks the threads playing games. While a subscriber has
+ * no outstanding demand only the latest event of each simulation is kept for
+ * it, a progress event being replaced by any later event of the same
+ * simulation, so the events held for a slow subscriber are bounded by the
+ * number of simulations and terminal events are never lost. Subscribers are
+ * signalled on the given executor.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ */
+class SimulationPublisher<T extends Comparable<T>> implements
+        Flow.Publisher<SimulationEvent<T>> {
+
+    private final Executor executor;
+    private final List<Subscription> subscriptions;
+
+    SimulationPublisher(Executor executor) {
+        this.executor = executor;
+        this.subscriptions = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SimulationEvent<T>> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber cannot be null");
+        }
+        Subscription subscription = new Subscription(subscriber);
+        this.subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Returns <code>true</code> if there is at least one subscriber, allowing
+     * the creation of events to be skipped when nobody listens
+     */
+    boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    void publish(SimulationEvent<T> event) {
+        for (Subscription subscription : this.subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Completes every subscription, called once no more events will be
+     * published
+     */
+    void close() {
+        for (Subscription subscription : this.subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super SimulationEvent<T>> subscriber;
+        private final AtomicInteger signals = new AtomicInteger();
+        // guarded by this
+        private final LinkedHashMap<SimulationHandle<T>, SimulationEvent<T>> events;
+        private long demand;
+        private boolean closed;
+        private boolean done;
+        private Throwable error;
+
+        Subscription(Flow.Subscriber<? super SimulationEvent<T>> subscriber) {
+            this.subscriber = subscriber;
+            this.events = new LinkedHashMap<>();
+        }
+
+        synchronized void offer(SimulationEvent<T> event) {
+            if (this.done) {
+                return;
+            }
+            SimulationEvent<T> previous = this.events.get(event
+                    .getSimulation());
+            if (previous == null || !previous.isTerminal()) {
+                // Re-inserting keeps the simulations ordered by their latest
+                // event
+                this.events.remove(event.getSimulation());
+                this.events.put(event.getSimulation(), event);
+            }
+            signal();
+        }
+
+        synchronized void close() {
+            this.closed = true;
+            signal();
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException(
+                        "non-positive request: " + n);
+            } else {
+                this.demand = this.demand + n < 0 ? Long.MAX_VALUE
+                        : this.demand + n;
+            }
+            signal();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            this.done = true;
+            this.events.clear();
+            SimulationPublisher.this.subscriptions.remove(this);
+        }
+
+        private void signal() {
+            if (this.signals.getAndIncrement() == 0) {
+                SimulationPublisher.this.executor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers the pending signals, only one thread runs this at a time
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                deliver();
+                missed = this.signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            while (true) {
+                SimulationEvent<T> next = null;
+                Throwable failure = null;
+                boolean complete = false;
+                synchronized (this) {
+                    if (this.done) {
+                        return;
+                    }
+                    if (this.error != null) {
+                        failure = this.error;
+                        cancel();
+                    } else if (this.demand > 0 && !this.events.isEmpty()) {
+                        Iterator<SimulationEvent<T>> it = this.events.values()
+                                .iterator();
+                        next = it.next();
+                        it.remove();
+                        this.demand--;
+                    } else if (this.closed && this.events.isEmpty()) {
+                        complete = true;
+                        cancel();
+                    } else {
+                        return;
+                    }
+                }
+                if (failure != null) {
+                    this.subscriber.onError(failure);
+                    return;
+                } else if (complete) {
+                    this.subscriber.onComplete();
+                    return;
+                }
+                this.subscriber.onNext(next);
+            }
+        }
+    }
+
+}
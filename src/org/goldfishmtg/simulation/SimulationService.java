@@ -1,19 +1,39 @@
 package org.goldfishmtg.simulation;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.Deck;
 import org.goldfishmtg.cards.Library;
 
 /**
  * A service for submitting agents and decks to goldfish them against. The
  * service is backed by a thread pool having one thread per available processor
  * on the machine
+ * <p>
+ * The games of each simulation are played in batches. Whenever a thread is
+ * free it plays the next batch of the submitter that has received the smallest
+ * share of the pool so far, relative to its weight. A quick simulation
+ * therefore completes promptly even while large simulations of other
+ * submitters are running. The service may be shared between threads.
+ * <p>
+ * Card lists are copied into an immutable {@link Deck} when a simulation is
+ * submitted, changing a card list afterwards does not affect the simulation.
  *
  * @author skaspersen
  *
@@ -25,13 +45,29 @@ public class SimulationService<T extends Comparable<T>> {
 
     private final Logger logger = Logger.getLogger(getClass().getName());
 
+    /**
+     * The submitter of simulations that do not specify one
+     */
+    public static final String DEFAULT_SUBMITTER = "default";
+
     private final ExecutorService pool;
-    private final ExecutorCompletionService<Agent<T>> completionService;
+    private final int threadCount;
+    private final BlockingQueue<CompletableFuture<Agent<T>>> completed;
+    private final FairShareScheduler scheduler;
+    private final SimulationPublisher<T> publisher;
+    private final Object lock = new Object();
 
     private int defaultNumberOfGames;
     private boolean defaultSkipDrawStep;
+    private MulliganPolicy mulliganPolicy;
+    private CardRegistry<T> cardRegistry;
+    private EventStream eventStream;
+    private volatile int batchSize;
 
-    private int pending;
+    private final AtomicInteger pending;
+    // guarded by lock
+    private int running;
+    private boolean shutdown;
 
     /**
      * Creates a new simulation service backed by a thread per available
@@ -39,14 +75,32 @@ public class SimulationService<T extends Comparable<T>> {
      * step will not be skipped.
      */
     public SimulationService() {
-        int cores = Runtime.getRuntime().availableProcessors();
-        this.pool = Executors.newFixedThreadPool(cores);
-        this.completionService = new ExecutorCompletionService<>(this.pool);
-        this.pending = 0;
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new simulation service backed by the specified number of
+     * threads. The default number of games will be 1, and the first draw step
+     * will not be skipped.
+     *
+     * @param threadCount
+     *            the number of threads simulating games
+     */
+    public SimulationService(int threadCount) {
+        this.threadCount = threadCount;
+        this.pool = Executors.newFixedThreadPool(threadCount);
+        this.completed = new LinkedBlockingQueue<>();
+        this.scheduler = new FairShareScheduler();
+        this.publisher = new SimulationPublisher<>(ForkJoinPool.commonPool());
+        this.pending = new AtomicInteger();
+        this.running = 0;
+        this.shutdown = false;
         this.logger.log(Level.INFO, "New Simulation Service[threadCount="
-                + cores + "]");
+                + threadCount + "]");
         this.defaultNumberOfGames = 1;
         this.defaultSkipDrawStep = false;
+        this.mulliganPolicy = new TraditionalMulligan();
+        this.batchSize = 1000;
     }
 
     /**
@@ -88,6 +142,134 @@ public class SimulationService<T extends Comparable<T>> {
         this.defaultSkipDrawStep = defaultSkipDrawStep;
     }
 
+    /**
+     * The policy used to draw the opening hands of all simulations. The
+     * default policy is the {@link TraditionalMulligan}.
+     *
+     * @return the policy used to draw opening hands
+     */
+    public MulliganPolicy getMulliganPolicy() {
+        return this.mulliganPolicy;
+    }
+
+    /**
+     * The policy used to draw the opening hands of simulations submitted after
+     * this call. The default policy is the {@link TraditionalMulligan}.
+     *
+     * @throws IllegalArgumentException
+     *             if <code>mulliganPolicy</code> is null
+     */
+    public void setMulliganPolicy(MulliganPolicy mulliganPolicy) {
+        if (mulliganPolicy == null) {
+            throw new IllegalArgumentException("mulligan policy cannot be null");
+        }
+        this.mulliganPolicy = mulliganPolicy;
+    }
+
+    /**
+     * The registry used to count the cards of the hands of all simulations by
+     * category, null by default.
+     *
+     * @return the registry given to the hands, or null if there is none
+     */
+    public CardRegistry<T> getCardRegistry() {
+        return this.cardRegistry;
+    }
+
+    /**
+     * The registry used to count the cards of the hands of simulations
+     * submitted after this call by category. All cards must have been
+     * registered before simulations are submitted.
+     *
+     * @param cardRegistry
+     *            the registry given to the hands, or null for none
+     */
+    public void setCardRegistry(CardRegistry<T> cardRegistry) {
+        this.cardRegistry = cardRegistry;
+    }
+
+    /**
+     * The stream the events of all simulations are published to, null by
+     * default.
+     *
+     * @return the stream of the events, or null if there is none
+     */
+    public EventStream getEventStream() {
+        return this.eventStream;
+    }
+
+    /**
+     * The stream the events of simulations submitted after this call are
+     * published to, each simulation publishing its events to its own ring.
+     *
+     * @param eventStream
+     *            the stream of the events, or null for none
+     * @see Goldfish#setEventStream(EventStream)
+     */
+    public void setEventStream(EventStream eventStream) {
+        this.eventStream = eventStream;
+    }
+
+    /**
+     * The maximum number of games of a simulation that are played before the
+     * thread playing them moves on to the next simulation. The default batch
+     * size is 1000 games.
+     *
+     * @return the number of games played in one batch
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * The maximum number of games of a simulation that are played before the
+     * thread playing them moves on to the next simulation. Smaller batches
+     * make the service more responsive to new simulations at the cost of more
+     * scheduling. The default batch size is 1000 games.
+     *
+     * @throws IllegalArgumentException
+     *             if <code>batchSize</code> is not positive
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * The share of the threads given to the specified submitter relative to
+     * the other submitters. Every submitter has a weight of 1 unless changed.
+     *
+     * @param submitter
+     *            the name of the submitter
+     * @return the weight of the submitter
+     */
+    public int getSubmitterWeight(String submitter) {
+        synchronized (this.lock) {
+            return this.scheduler.getWeight(submitter);
+        }
+    }
+
+    /**
+     * The share of the threads given to the specified submitter relative to
+     * the other submitters. A submitter with a weight of 2 has twice as many
+     * games played as a submitter with a weight of 1 while both have
+     * simulations waiting.
+     *
+     * @param submitter
+     *            the name of the submitter
+     * @param weight
+     *            the weight of the submitter
+     * @throws IllegalArgumentException
+     *             if <code>weight</code> is not positive
+     */
+    public void setSubmitterWeight(String submitter, int weight) {
+        synchronized (this.lock) {
+            this.scheduler.setWeight(submitter, weight);
+        }
+    }
+
     /**
      * Simulates the default number of games, skipping the first draw step if
      * {@link #isDefaultSkipDrawStep()} returns true
@@ -97,11 +279,13 @@ public class SimulationService<T extends Comparable<T>> {
      * @param agent
      *            the agent observing and controlling the game
      *
+     * @return a handle on the simulation
+     *
      * @see #getDefaultNumberOfGames()
      * @see #isDefaultSkipDrawStep()
      */
-    public void simulate(CardList<T> cardList, Agent<T> agent) {
-        simulate(cardList, agent, this.defaultNumberOfGames,
+    public SimulationHandle<T> simulate(CardList<T> cardList, Agent<T> agent) {
+        return simulate(cardList, agent, this.defaultNumberOfGames,
                 this.defaultSkipDrawStep);
     }
 
@@ -115,11 +299,14 @@ public class SimulationService<T extends Comparable<T>> {
      *            the agent observing and controlling the game
      * @param numberOfGames
      *            the number of games to simulate
+     * @return a handle on the simulation
      *
      * @see #isDefaultSkipDrawStep()
      */
-    public void simulate(CardList<T> cardList, Agent<T> agent, int numberOfGames) {
-        simulate(cardList, agent, numberOfGames, this.defaultSkipDrawStep);
+    public SimulationHandle<T> simulate(CardList<T> cardList, Agent<T> agent,
+            int numberOfGames) {
+        return simulate(cardList, agent, numberOfGames,
+                this.defaultSkipDrawStep);
     }
 
     /**
@@ -132,13 +319,15 @@ public class SimulationService<T extends Comparable<T>> {
      *            the agent observing and controlling the game
      * @param skipFirstDrawStep
      *            <code>true</code> if the first draw step is to be skipped
+     * @return a handle on the simulation
      *
      * @see #getDefaultNumberOfGames()
      */
 
-    public void simulate(CardList<T> cardList, Agent<T> agent,
+    public SimulationHandle<T> simulate(CardList<T> cardList, Agent<T> agent,
             boolean skipFirstDrawStep) {
-        simulate(cardList, agent, this.defaultNumberOfGames, skipFirstDrawStep);
+        return simulate(cardList, agent, this.defaultNumberOfGames,
+                skipFirstDrawStep);
     }
 
     /**
@@ -153,22 +342,313 @@ public class SimulationService<T extends Comparable<T>> {
      *            the number of games to simulate
      * @param skipFirstDrawStep
      *            <code>true</code> if the first draw step is to be skipped
+     * @return a handle on the simulation
      */
-    public void simulate(CardList<T> cardList, Agent<T> agent,
+    public SimulationHandle<T> simulate(CardList<T> cardList, Agent<T> agent,
             int numberOfGames, boolean skipFirstDrawStep) {
+        return simulate(DEFAULT_SUBMITTER, cardList, agent, numberOfGames,
+                skipFirstDrawStep);
+    }
+
+    /**
+     * Simulates the specified number of games on behalf of the specified
+     * submitter, skipping the draw step as specified
+     *
+     * @param submitter
+     *            the name of the submitter sharing the threads of this service
+     * @param cardList
+     *            the list of cards that makes up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param numberOfGames
+     *            the number of games to simulate
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a handle on the simulation
+     *
+     * @see #setSubmitterWeight(String, int)
+     */
+    public SimulationHandle<T> simulate(String submitter,
+            CardList<T> cardList, Agent<T> agent, int numberOfGames,
+            boolean skipFirstDrawStep) {
+        return simulate(submitter, Deck.of(cardList), agent, numberOfGames,
+                skipFirstDrawStep);
+    }
+
+    /**
+     * Simulates the specified number of games of the specified deck on behalf
+     * of the specified submitter, skipping the draw step as specified. Unlike
+     * the card list variants the deck does not need to be copied, so many
+     * variants of a deck can be simulated cheaply.
+     *
+     * @param submitter
+     *            the name of the submitter sharing the threads of this service
+     * @param deck
+     *            the cards that make up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param numberOfGames
+     *            the number of games to simulate
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a handle on the simulation
+     *
+     * @see #setSubmitterWeight(String, int)
+     */
+    public SimulationHandle<T> simulate(String submitter, Deck<T> deck,
+            Agent<T> agent, int numberOfGames, boolean skipFirstDrawStep) {
+        Goldfish<T, Agent<T>> goldfish = createGoldfish(deck, agent,
+                skipFirstDrawStep);
+        SimulationHandle<T> handle = submit(submitter, goldfish.asSimulation(),
+                numberOfGames, true);
+
+        this.logger.log(Level.INFO, "New simulation added[submitter="
+                + submitter + ", games=" + numberOfGames
+                + ", skipFirstDrawstep=" + skipFirstDrawStep + "], There are "
+                + this.pending.get() + " pending simulations.");
+        return handle;
+    }
+
+    /**
+     * Simulates as many games as can be played in the specified time, not
+     * skipping the first draw step. The time is measured from when the first
+     * game starts, once it has run out the simulation completes with the games
+     * played so far.
+     *
+     * @param cardList
+     *            the list of cards that makes up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param time
+     *            the time the games may take
+     * @param unit
+     *            the unit of the time
+     * @return a handle on the simulation, giving the number of games played
+     */
+    public SimulationHandle<T> simulateFor(CardList<T> cardList,
+            Agent<T> agent, long time, TimeUnit unit) {
+        return simulateFor(DEFAULT_SUBMITTER, cardList, agent, time, unit,
+                this.defaultSkipDrawStep);
+    }
+
+    /**
+     * Simulates as many games as can be played in the specified time on
+     * behalf of the specified submitter, skipping the draw step as specified.
+     * The time is measured from when the first game starts, once it has run
+     * out the simulation completes with the games played so far.
+     *
+     * @param submitter
+     *            the name of the submitter sharing the threads of this service
+     * @param cardList
+     *            the list of cards that makes up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param time
+     *            the time the games may take
+     * @param unit
+     *            the unit of the time
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a handle on the simulation, giving the number of games played
+     */
+    public SimulationHandle<T> simulateFor(String submitter,
+            CardList<T> cardList, Agent<T> agent, long time, TimeUnit unit,
+            boolean skipFirstDrawStep) {
+        Goldfish<T, Agent<T>> goldfish = createGoldfish(Deck.of(cardList),
+                agent, skipFirstDrawStep);
+        goldfish.setTimeBudget(time, unit);
+        SimulationHandle<T> handle = submit(submitter, goldfish.asSimulation(),
+                Integer.MAX_VALUE, true);
+
+        this.logger.log(Level.INFO, "New simulation added[submitter="
+                + submitter + ", time=" + time + " " + unit
+                + ", skipFirstDrawstep=" + skipFirstDrawStep + "], There are "
+                + this.pending.get() + " pending simulations.");
+        return handle;
+    }
+
+    /**
+     * Simulates the specified number of games, skipping the draw step as
+     * specified. The agent is not made available through
+     * {@link #retrieveNextCompleted()}, the returned future is completed with
+     * it instead.
+     *
+     * @param cardList
+     *            the list of cards that makes up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param numberOfGames
+     *            the number of games to simulate
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a future completed with the agent once all games are played
+     */
+    public CompletableFuture<Agent<T>> simulateAsync(CardList<T> cardList,
+            Agent<T> agent, int numberOfGames, boolean skipFirstDrawStep) {
+        return simulateAsync(DEFAULT_SUBMITTER, cardList, agent,
+                numberOfGames, skipFirstDrawStep);
+    }
+
+    /**
+     * Simulates the specified number of games on behalf of the specified
+     * submitter, skipping the draw step as specified. The agent is not made
+     * available through {@link #retrieveNextCompleted()}, the returned future
+     * is completed with it instead.
+     *
+     * @param submitter
+     *            the name of the submitter sharing the threads of this service
+     * @param cardList
+     *            the list of cards that makes up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param numberOfGames
+     *            the number of games to simulate
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a future completed with the agent once all games are played
+     */
+    public CompletableFuture<Agent<T>> simulateAsync(String submitter,
+            CardList<T> cardList, Agent<T> agent, int numberOfGames,
+            boolean skipFirstDrawStep) {
+        return simulateAsync(submitter, Deck.of(cardList), agent,
+                numberOfGames, skipFirstDrawStep);
+    }
+
+    /**
+     * Simulates the specified number of games of the specified deck on behalf
+     * of the specified submitter, skipping the draw step as specified. The
+     * agent is not made available through {@link #retrieveNextCompleted()},
+     * the returned future is completed with it instead.
+     *
+     * @param submitter
+     *            the name of the submitter sharing the threads of this service
+     * @param deck
+     *            the cards that make up the library
+     * @param agent
+     *            the agent observing and controlling the game
+     * @param numberOfGames
+     *            the number of games to simulate
+     * @param skipFirstDrawStep
+     *            <code>true</code> if the first draw step is to be skipped
+     * @return a future completed with the agent once all games are played
+     */
+    public CompletableFuture<Agent<T>> simulateAsync(String submitter,
+            Deck<T> deck, Agent<T> agent, int numberOfGames,
+            boolean skipFirstDrawStep) {
+        Goldfish<T, Agent<T>> goldfish = createGoldfish(deck, agent,
+                skipFirstDrawStep);
+        return submit(submitter, goldfish.asSimulation(), numberOfGames, false)
+                .toCompletableFuture();
+    }
+
+    /**
+     * Simulates the specified number of games, playing each game both on the
+     * play and on the draw with the same shuffle
+     *
+     * @param cardList
+     *            the list of cards that makes up the libraries
+     * @param onThePlay
+     *            the agent playing the games on the play
+     * @param onTheDraw
+     *            the agent playing the games on the draw
+     * @param numberOfGames
+     *            the number of games to simulate on each side
+     * @return a future completed with the agent on the play and the agent on
+     *         the draw, in that order, once all games are played
+     * @see PairedGoldfish
+     */
+    public CompletableFuture<List<Agent<T>>> simulatePairedAsync(
+            CardList<T> cardList, Agent<T> onThePlay, Agent<T> onTheDraw,
+            int numberOfGames) {
+        return simulatePairedAsync(DEFAULT_SUBMITTER, Deck.of(cardList),
+                onThePlay, onTheDraw, numberOfGames);
+    }
+
+    /**
+     * Simulates the specified number of games of the specified deck on behalf
+     * of the specified submitter, playing each game both on the play and on
+     * the draw with the same shuffle. Each pair of games counts as one game of
+     * the submitter.
+     *
+     * @param submitter
+     *            the name of the submitter sharing the threads of this service
+     * @param deck
+     *            the cards that make up the libraries
+     * @param onThePlay
+     *            the agent playing the games on the play
+     * @param onTheDraw
+     *            the agent playing the games on the draw
+     * @param numberOfGames
+     *            the number of games to simulate on each side
+     * @return a future completed with the agent on the play and the agent on
+     *         the draw, in that order, once all games are played
+     * @throws IllegalArgumentException
+     *             if both agents are the same instance
+     * @see PairedGoldfish
+     */
+    public CompletableFuture<List<Agent<T>>> simulatePairedAsync(
+            String submitter, Deck<T> deck, Agent<T> onThePlay,
+            final Agent<T> onTheDraw, int numberOfGames) {
+        PairedGoldfish<T, Agent<T>> goldfish = new PairedGoldfish<>(deck,
+                onThePlay, onTheDraw);
+        goldfish.setMulliganPolicy(this.mulliganPolicy);
+        goldfish.setCardRegistry(this.cardRegistry);
+        goldfish.setEventStream(this.eventStream);
+        return submit(submitter, goldfish.asSimulation(), numberOfGames, false)
+                .toCompletableFuture().thenApply(
+                        new Function<Agent<T>, List<Agent<T>>>() {
+                            @Override
+                            public List<Agent<T>> apply(Agent<T> onThePlay) {
+                                return Arrays.asList(onThePlay, onTheDraw);
+                            }
+                        });
+    }
 
-        Library<T> library = new Library<>(cardList);
+    /**
+     * Returns a publisher of the progress and completion events of every
+     * simulation submitted to this service. A progress event is published
+     * after each batch of games, and a completed or failed event once a
+     * simulation ends. A subscriber that has not requested more events only
+     * receives the latest event of each simulation once it does. Subscribers
+     * are completed when the service has shut down and all simulations have
+     * completed.
+     *
+     * @return a publisher of simulation events
+     */
+    public Flow.Publisher<SimulationEvent<T>> getEvents() {
+        return this.publisher;
+    }
+
+    private Goldfish<T, Agent<T>> createGoldfish(Deck<T> deck,
+            Agent<T> agent, boolean skipFirstDrawStep) {
+        Library<T> library = new Library<>(deck);
 
         Goldfish<T, Agent<T>> goldfish = new Goldfish<>(library, agent);
-        goldfish.setGames(numberOfGames);
         goldfish.setSkipFirstDrawStep(skipFirstDrawStep);
+        goldfish.setMulliganPolicy(this.mulliganPolicy);
+        goldfish.setCardRegistry(this.cardRegistry);
+        goldfish.setEventStream(this.eventStream);
+        return goldfish;
+    }
 
-        this.completionService.submit(goldfish);
-        this.pending++;
-
-        this.logger.log(Level.INFO, "New simulation added[games="
-                + numberOfGames + ", skipFirstDrawstep=" + skipFirstDrawStep
-                + "], There are " + this.pending + " pending simulations.");
+    private SimulationHandle<T> submit(String submitter,
+            Simulation<T> simulation, int numberOfGames, boolean retrievable) {
+        SimulationJob<T> job = new SimulationJob<>(submitter, simulation,
+                numberOfGames, retrievable);
+        if (retrievable) {
+            this.pending.incrementAndGet();
+        }
+        synchronized (this.lock) {
+            if (this.shutdown) {
+                if (retrievable) {
+                    this.pending.decrementAndGet();
+                }
+                throw new IllegalStateException("service has been shut down");
+            }
+            this.scheduler.add(job);
+            dispatch();
+        }
+        return job.getHandle();
     }
 
     /**
@@ -177,7 +657,7 @@ public class SimulationService<T extends Comparable<T>> {
      * @see #retrieveNextCompleted()
      */
     public int getRemaining() {
-        return this.pending;
+        return this.pending.get();
     }
 
     /**
@@ -193,21 +673,86 @@ public class SimulationService<T extends Comparable<T>> {
      */
     public Agent<T> retrieveNextCompleted() throws InterruptedException,
             ExecutionException {
-        if (this.pending > 0) {
-            try {
-                return this.completionService.take().get();
-            } finally {
-                this.pending--;
-            }
+        if (this.pending.getAndDecrement() > 0) {
+            return this.completed.take().get();
         } else {
+            this.pending.incrementAndGet();
             return null;
         }
     }
 
     /**
-     * Shuts down the service
+     * Shuts down the service. Simulations that were already submitted are
+     * still completed, but no new simulations are accepted.
      */
     public void shutdown() {
-        this.pool.shutdown();
+        synchronized (this.lock) {
+            this.shutdown = true;
+            dispatch();
+        }
+    }
+
+    /**
+     * Hands the next batches to idle threads, must be called while holding
+     * the lock
+     */
+    private void dispatch() {
+        while (this.running < this.threadCount) {
+            SimulationJob<?> job = this.scheduler.next();
+            if (job == null) {
+                break;
+            }
+            this.running++;
+            this.pool.execute(new Batch(job));
+        }
+        if (this.shutdown && this.scheduler.isEmpty()
+                && !this.pool.isShutdown()) {
+            this.pool.shutdown();
+            this.publisher.close();
+        }
+    }
+
+    /**
+     * Plays one batch of games of a job, then returns the job to the scheduler
+     */
+    private final class Batch implements Runnable {
+
+        private final SimulationJob<?> job;
+
+        Batch(SimulationJob<?> job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            int played = this.job.runBatch(SimulationService.this.batchSize);
+            boolean done = this.job.isDone();
+            if (done && this.job.isRetrievable()) {
+                completed(this.job);
+            }
+            if (SimulationService.this.publisher.hasSubscribers()) {
+                publish(this.job);
+            }
+            synchronized (SimulationService.this.lock) {
+                SimulationService.this.running--;
+                SimulationService.this.scheduler.charge(this.job, played);
+                if (done) {
+                    SimulationService.this.scheduler.remove(this.job);
+                } else {
+                    SimulationService.this.scheduler.ready(this.job);
+                }
+                dispatch();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completed(SimulationJob<?> job) {
+        this.completed.add(((SimulationJob<T>) job).getResult());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void publish(SimulationJob<?> job) {
+        this.publisher.publish(((SimulationJob<T>) job).toEvent());
     }
 }
@@ -0,0 +1,467 @@
+package org.goldfishmtg.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Library;
+
+/**
+ * Estimates a metric with stratified sampling on the composition of the
+ * opening hand. The games are split in strata by the number of key cards,
+ * such as lands, among the first 7 cards of the library. The probability of
+ * each stratum is computed exactly from the deck, and the games of a stratum
+ * are played from libraries shuffled uniformly among the orders of that
+ * stratum.
+ * <p>
+ * Every stratum is first simulated for a few pilot batches, which estimate the
+ * standard deviation of the metric in the stratum. The rest of the games are
+ * then allocated to the strata in proportion to their probability times their
+ * standard deviation (Neyman allocation), and the estimates of the strata are
+ * recombined with their probabilities. Since the variance between strata no
+ * longer adds to the variance of the estimate, the estimate is tighter than
+ * with the same number of plain games whenever the metric depends on the
+ * opening hand.
+ * <p>
+ * The metric is the average over the games played by an agent, each stratum
+ * being simulated with new agents.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ * @param <A>
+ *            the agent used to make game decisions
+ */
+public class StratifiedGoldfish<T extends Comparable<T>, A extends Agent<T>>
+        implements Callable<StratifiedGoldfish.Result> {
+
+    private static final int HAND_SIZE = 7;
+    private static final int PILOT_BATCHES = 4;
+
+    private final Deck<T> deck;
+    private final Supplier<A> agents;
+    private final ToDoubleFunction<? super A> metric;
+    private final int[] keyOrdinals;
+    private final int[] otherOrdinals;
+    private int gameCount;
+    private int pilotGames;
+    private boolean skipFirstDrawStep;
+    private MulliganPolicy mulliganPolicy;
+    private CardRegistry<T> registry;
+    private SplittableRandom random;
+
+    /**
+     * Creates a new stratified simulation. By default 10000 games are played,
+     * 200 of which are pilot games of each stratum, on the draw.
+     *
+     * @param deck
+     *            the cards that make up the library
+     * @param agents
+     *            creates a new agent for each batch of games
+     * @param metric
+     *            the metric of an agent that has played a batch of games,
+     *            which should be an average over the games
+     * @param keyCards
+     *            the cards counted in the opening hand to stratify the games
+     * @throws IllegalArgumentException
+     *             if any argument is null, or no key card is given
+     */
+    @SafeVarargs
+    public StratifiedGoldfish(Deck<T> deck, Supplier<A> agents,
+            ToDoubleFunction<? super A> metric, T... keyCards) {
+        if (deck == null || agents == null || metric == null) {
+            throw new IllegalArgumentException(
+                    "deck, agents and metric cannot be null");
+        }
+        if (keyCards.length == 0) {
+            throw new IllegalArgumentException("there must be a key card");
+        }
+        this.deck = deck;
+        this.agents = agents;
+        this.metric = metric;
+        CardIndex<T> index = deck.getIndex();
+        boolean[] key = new boolean[index.size()];
+        for (T card : keyCards) {
+            int ordinal = index.ordinalOf(card);
+            if (ordinal >= 0) {
+                key[ordinal] = true;
+            }
+        }
+        int keyCount = 0;
+        for (int ordinal = 0; ordinal < key.length; ordinal++) {
+            keyCount += key[ordinal] ? deck.countOf(ordinal) : 0;
+        }
+        this.keyOrdinals = new int[keyCount];
+        this.otherOrdinals = new int[deck.size() - keyCount];
+        int keys = 0;
+        int others = 0;
+        for (int ordinal = 0; ordinal < key.length; ordinal++) {
+            for (int i = 0; i < deck.countOf(ordinal); i++) {
+                if (key[ordinal]) {
+                    this.keyOrdinals[keys++] = ordinal;
+                } else {
+                    this.otherOrdinals[others++] = ordinal;
+                }
+            }
+        }
+        this.gameCount = 10000;
+        this.pilotGames = 200;
+        this.skipFirstDrawStep = false;
+        this.mulliganPolicy = new TraditionalMulligan();
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Changes the total number of games to play, pilot games included
+     */
+    public void setGames(int gameCount) {
+        this.gameCount = gameCount;
+    }
+
+    /**
+     * Changes the number of pilot games of each stratum, played in 4 batches
+     * to estimate the standard deviation of the metric in the stratum
+     *
+     * @throws IllegalArgumentException
+     *             if <code>pilotGames</code> is less than 4
+     */
+    public void setPilotGames(int pilotGames) {
+        if (pilotGames < PILOT_BATCHES) {
+            throw new IllegalArgumentException("pilotGames must be at least "
+                    + PILOT_BATCHES);
+        }
+        this.pilotGames = pilotGames;
+    }
+
+    /**
+     * Changes whether the games are simulated on the play. By default this is
+     * set to false.
+     */
+    public void setSkipFirstDrawStep(boolean skip) {
+        this.skipFirstDrawStep = skip;
+    }
+
+    /**
+     * Changes how opening hands are drawn. By default a
+     * {@link TraditionalMulligan} is used. Games are stratified on the first
+     * hand drawn, whether it is kept or not.
+     *
+     * @throws IllegalArgumentException
+     *             if <code>mulliganPolicy</code> is null
+     */
+    public void setMulliganPolicy(MulliganPolicy mulliganPolicy) {
+        if (mulliganPolicy == null) {
+            throw new IllegalArgumentException("mulligan policy cannot be null");
+        }
+        this.mulliganPolicy = mulliganPolicy;
+    }
+
+    /**
+     * Changes the registry used to count the cards of the hand by category
+     */
+    public void setCardRegistry(CardRegistry<T> registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Shuffles reproducibly from the specified seed
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Plays the pilot games of every stratum, then allocates the remaining
+     * games to the strata and plays them
+     *
+     * @return the estimate of the metric
+     */
+    @Override
+    public Result call() throws Exception {
+        int size = this.deck.size();
+        int keys = this.keyOrdinals.length;
+        int maxKeys = Math.min(keys, Math.min(HAND_SIZE, size));
+        List<Stratum> strata = new ArrayList<Stratum>();
+        for (int k = 0; k <= maxKeys; k++) {
+            double probability = probability(size, keys,
+                    Math.min(HAND_SIZE, size), k);
+            if (probability > 0) {
+                strata.add(new Stratum(k, probability));
+            }
+        }
+
+        int batchGames = this.pilotGames / PILOT_BATCHES;
+        for (Stratum stratum : strata) {
+            double[] scores = new double[PILOT_BATCHES];
+            for (int batch = 0; batch < PILOT_BATCHES; batch++) {
+                scores[batch] = play(stratum, batchGames);
+            }
+            double mean = 0;
+            for (double score : scores) {
+                mean += score / PILOT_BATCHES;
+            }
+            double squares = 0;
+            for (double score : scores) {
+                squares += (score - mean) * (score - mean);
+            }
+            // The deviation of single games from that of batch means
+            stratum.deviation = Math.sqrt(squares / (PILOT_BATCHES - 1)
+                    * batchGames);
+        }
+
+        long remaining = this.gameCount - (long) batchGames * PILOT_BATCHES
+                * strata.size();
+        double total = 0;
+        for (Stratum stratum : strata) {
+            total += stratum.probability * stratum.deviation;
+        }
+        for (Stratum stratum : strata) {
+            double share = total > 0 ? stratum.probability * stratum.deviation
+                    / total : stratum.probability;
+            int games = (int) Math.max(0, Math.round(remaining * share));
+            if (games > 0) {
+                play(stratum, games);
+            }
+        }
+
+        double estimate = 0;
+        double variance = 0;
+        for (Stratum stratum : strata) {
+            estimate += stratum.probability * stratum.getMean();
+            variance += stratum.probability * stratum.probability
+                    * stratum.deviation * stratum.deviation / stratum.games;
+        }
+        return new Result(estimate, Math.sqrt(variance), strata);
+    }
+
+    /**
+     * Plays the specified number of games of a stratum with a new agent, and
+     * adds the score of the agent to the stratum
+     *
+     * @return the score of the agent
+     */
+    private double play(Stratum stratum, int games) throws Exception {
+        A agent = this.agents.get();
+        StratumGoldfish goldfish = new StratumGoldfish(new Library<T>(
+                new Random(this.random.nextLong()), this.deck), agent,
+                stratum.keys);
+        goldfish.setGames(games);
+        goldfish.setSkipFirstDrawStep(this.skipFirstDrawStep);
+        goldfish.setMulliganPolicy(this.mulliganPolicy);
+        goldfish.setCardRegistry(this.registry);
+        goldfish.call();
+        double score = this.metric.applyAsDouble(agent);
+        stratum.scoreSum += score * games;
+        stratum.games += games;
+        return score;
+    }
+
+    /**
+     * Returns the probability of drawing exactly <code>k</code> of the
+     * <code>successes</code> cards of a deck of <code>size</code> cards in
+     * <code>draws</code> draws
+     */
+    static double probability(int size, int successes, int draws, int k) {
+        if (k < 0 || k > successes || draws - k > size - successes) {
+            return 0;
+        }
+        return Math.exp(logChoose(successes, k)
+                + logChoose(size - successes, draws - k)
+                - logChoose(size, draws));
+    }
+
+    private static double logChoose(int n, int k) {
+        double log = 0;
+        for (int i = 0; i < k; i++) {
+            log += Math.log((double) (n - i) / (k - i));
+        }
+        return log;
+    }
+
+    /**
+     * Plays the games of a stratum, loading the library before each game with
+     * an order holding the number of key cards of the stratum among its first
+     * cards
+     */
+    private final class StratumGoldfish extends Goldfish<T, A> {
+
+        private final int keys;
+        private final int[] order;
+
+        StratumGoldfish(Library<T> library, A agent, int keys) {
+            super(library, agent);
+            this.keys = keys;
+            this.order = new int[library.getDeck().size()];
+        }
+
+        @Override
+        void playGame(int game) {
+            shuffleStratum();
+            getLibrary().reset(this.order, 0);
+            super.playGame(game);
+        }
+
+        /**
+         * Fills the order with the key cards of the stratum and the other
+         * cards of the hand, then the rest of the deck shuffled
+         */
+        private void shuffleStratum() {
+            int[] keyCards = StratifiedGoldfish.this.keyOrdinals;
+            int[] otherCards = StratifiedGoldfish.this.otherOrdinals;
+            int handSize = Math.min(HAND_SIZE, this.order.length);
+            int others = handSize - this.keys;
+            // Partial Fisher-Yates shuffles pick the cards of the hand
+            choose(keyCards, this.keys);
+            choose(otherCards, others);
+            int position = 0;
+            for (int i = 0; i < this.keys; i++) {
+                this.order[position++] = keyCards[i];
+            }
+            for (int i = 0; i < others; i++) {
+                this.order[position++] = otherCards[i];
+            }
+            for (int i = this.keys; i < keyCards.length; i++) {
+                this.order[position++] = keyCards[i];
+            }
+            for (int i = others; i < otherCards.length; i++) {
+                this.order[position++] = otherCards[i];
+            }
+            SplittableRandom random = StratifiedGoldfish.this.random;
+            for (int i = this.order.length - 1; i > handSize; i--) {
+                int j = handSize + random.nextInt(i - handSize + 1);
+                int ordinal = this.order[i];
+                this.order[i] = this.order[j];
+                this.order[j] = ordinal;
+            }
+        }
+
+        private void choose(int[] cards, int count) {
+            SplittableRandom random = StratifiedGoldfish.this.random;
+            for (int i = 0; i < count; i++) {
+                int j = i + random.nextInt(cards.length - i);
+                int ordinal = cards[i];
+                cards[i] = cards[j];
+                cards[j] = ordinal;
+            }
+        }
+    }
+
+    /**
+     * The games sharing the same number of key cards in the opening hand
+     */
+    public static final class Stratum {
+
+        private final int keys;
+        private final double probability;
+        private double deviation;
+        private double scoreSum;
+        private long games;
+
+        Stratum(int keys, double probability) {
+            this.keys = keys;
+            this.probability = probability;
+        }
+
+        /**
+         * Returns the number of key cards in the opening hands of the stratum
+         */
+        public int getKeys() {
+            return this.keys;
+        }
+
+        /**
+         * Returns the exact probability of the stratum
+         */
+        public double getProbability() {
+            return this.probability;
+        }
+
+        /**
+         * Returns the number of games played in the stratum
+         */
+        public long getGames() {
+            return this.games;
+        }
+
+        /**
+         * Returns the mean of the metric in the stratum
+         */
+        public double getMean() {
+            return this.scoreSum / this.games;
+        }
+
+        /**
+         * Returns the estimated standard deviation of the metric over single
+         * games of the stratum
+         */
+        public double getDeviation() {
+            return this.deviation;
+        }
+
+        @Override
+        public String toString() {
+            return this.keys + " keys: p=" + this.probability + " games="
+                    + this.games + " mean=" + getMean();
+        }
+    }
+
+    /**
+     * The estimate of a metric recombined from its strata
+     */
+    public static final class Result {
+
+        private final double estimate;
+        private final double standardError;
+        private final List<Stratum> strata;
+
+        Result(double estimate, double standardError, List<Stratum> strata) {
+            this.estimate = estimate;
+            this.standardError = standardError;
+            this.strata = Collections.unmodifiableList(strata);
+        }
+
+        public double getEstimate() {
+            return this.estimate;
+        }
+
+        public double getStandardError() {
+            return this.standardError;
+        }
+
+        /**
+         * Returns the strata of the estimate, by increasing number of key
+         * cards
+         */
+        public List<Stratum> getStrata() {
+            return this.strata;
+        }
+
+        /**
+         * Returns the total number of games played
+         */
+        public long getGames() {
+            long games = 0;
+            for (Stratum stratum : this.strata) {
+                games += stratum.games;
+            }
+            return games;
+        }
+
+        @Override
+        public String toString() {
+            return this.estimate + " +/- " + this.standardError + " ("
+                    + getGames() + " games)";
+        }
+    }
+
+}
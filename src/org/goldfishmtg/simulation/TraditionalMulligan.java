@@ -0,0 +1,36 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.Hand;
+import org.goldfishmtg.cards.Library;
+
+/**
+ * The mulligan where each new hand has one card fewer than the previous one.
+ * The agent is offered a hand of 7 cards, then 6 cards and so on down to 1
+ * card. If the agent declines every hand the game starts with an empty hand.
+ *
+ * @author skaspersen
+ *
+ */
+public class TraditionalMulligan implements MulliganPolicy {
+
+    @Override
+    public <T extends Comparable<T>> int drawOpeningHand(Library<T> library,
+            Agent<T> agent, Hand<T> hand) {
+        hand.clear();
+        library.reset();
+        for (int cardCount = 7; cardCount > 0; cardCount--) {
+            for (int i = 0; i < cardCount; i++) {
+                hand.drawFrom(library);
+            }
+            if (agent.keepOpeningHand(cardCount, hand)) {
+                return 7 - cardCount;
+            } else {
+                // Add the drawn cards back into the library
+                hand.clear();
+                library.reset();
+            }
+        }
+        return 7;
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.goldfishmtg.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event spanning a call to
+ * {@link Agent#takeTurn(int, org.goldfishmtg.cards.Library, org.goldfishmtg.cards.CardList)}
+ * , its duration being the time spent in the agent's own logic. The event is
+ * disabled by default and can be enabled with the
+ * <code>org.goldfishmtg.Turn#enabled=true</code> recording setting.
+ *
+ * @author skaspersen
+ *
+ */
+@Name("org.goldfishmtg.Turn")
+@Label("Turn")
+@Category("Goldfish")
+@Description("A turn taken by the agent of a goldfish")
+@Enabled(false)
+@StackTrace(false)
+class TurnEvent extends Event {
+
+    @Label("Turn")
+    int turn;
+
+    @Label("Hand Size")
+    int handSize;
+
+    @Label("Cards Remaining")
+    @Description("The number of cards left in the library")
+    int cardsRemaining;
+
+}
@@ -0,0 +1,31 @@
+package org.goldfishmtg.simulation;
+
+import org.goldfishmtg.cards.Library;
+
+/**
+ * An agent whose games are weighed, for simulations drawing with weights
+ * biased towards rare events. The weight of a game is the likelihood ratio of
+ * the cards drawn in it, agents record their observations with that weight,
+ * for example with a {@link WeightedEstimate}, so that their statistics
+ * estimate the outcome of uniformly shuffled games.
+ *
+ * @author skaspersen
+ *
+ * @param <T>
+ *            the type use to represent cards, must implement the
+ *            {@link Comparable} interface
+ *
+ * @see Library#setDrawWeight(Comparable, double)
+ */
+public interface WeightedAgent<T extends Comparable<T>> extends Agent<T> {
+
+    /**
+     * Gives the weight of the current game, called right before
+     * {@link #gameDone()}. The weight is 1 when the library draws uniformly.
+     *
+     * @param weight
+     *            the likelihood ratio of the cards drawn in the game
+     */
+    void weighGame(double weight);
+
+}
@@ -0,0 +1,92 @@
+package org.goldfishmtg.simulation;
+
+/**
+ * Estimates the mean of a value observed once per game, each game carrying the
+ * weight given to a {@link WeightedAgent}. The estimate is the importance
+ * sampling mean, the sum of the weighted values over the number of games,
+ * which is unbiased since the weights have an expected value of 1.
+ *
+ * @author skaspersen
+ *
+ */
+public class WeightedEstimate {
+
+    private long games;
+    private double weightSum;
+    private double weightSquares;
+    private double mean;
+    private double squares;
+
+    /**
+     * Records the value observed in a game of the specified weight
+     */
+    public void add(double weight, double value) {
+        // Welford's update over the weighted values
+        this.games++;
+        this.weightSum += weight;
+        this.weightSquares += weight * weight;
+        double weighted = weight * value;
+        double delta = weighted - this.mean;
+        this.mean += delta / this.games;
+        this.squares += delta * (weighted - this.mean);
+    }
+
+    /**
+     * Adds the observations of the specified estimate to this estimate
+     */
+    public void merge(WeightedEstimate other) {
+        long games = this.games + other.games;
+        if (games == 0) {
+            return;
+        }
+        double delta = other.mean - this.mean;
+        this.squares += other.squares + delta * delta * this.games
+                * other.games / games;
+        this.mean += delta * other.games / games;
+        this.weightSum += other.weightSum;
+        this.weightSquares += other.weightSquares;
+        this.games = games;
+    }
+
+    /**
+     * Returns the number of games observed
+     */
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * Returns the estimated mean of the value under uniform draws, or NaN if
+     * no game was observed
+     */
+    public double getMean() {
+        return this.games == 0 ? Double.NaN : this.mean;
+    }
+
+    /**
+     * Returns the standard error of the estimated mean
+     */
+    public double getStandardError() {
+        if (this.games < 2) {
+            return Double.NaN;
+        }
+        return Math.sqrt(this.squares / (this.games - 1) / this.games);
+    }
+
+    /**
+     * Returns Kish's effective number of games of the weights, a number much
+     * smaller than the number of games meaning that a few games with large
+     * weights dominate the estimate
+     */
+    public double getEffectiveGames() {
+        return this.weightSquares == 0 ? 0 : this.weightSum * this.weightSum
+                / this.weightSquares;
+    }
+
+    @Override
+    public String toString() {
+        return getMean() + " +/- " + getStandardError() + " (" + this.games
+                + " games)";
+    }
+
+}
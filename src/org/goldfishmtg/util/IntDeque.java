@@ -0,0 +1,141 @@
+package org.goldfishmtg.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A fixed capacity double ended queue of int values.
+ *
+ * @author skaspersen
+ *
+ */
+public class IntDeque {
+    private final int[] values;
+    private int head;
+    private int size;
+
+    /**
+     * Creates a new empty deque that can hold up to the given number of values.
+     *
+     * @param capacity
+     *            the maximum number of values held
+     */
+    public IntDeque(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Creates a new deque holding the same values as the given deque, with the
+     * same capacity.
+     *
+     * @param deque
+     *            the deque to copy
+     */
+    public IntDeque(IntDeque deque) {
+        this.values = deque.values.clone();
+        this.head = deque.head;
+        this.size = deque.size;
+    }
+
+    /**
+     * Returns the number of values in this deque.
+     *
+     * @return the number of values in this deque
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns <code>true</code> if this deque holds no values.
+     *
+     * @return <code>true</code> if this deque is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Inserts the given value at the front of this deque.
+     *
+     * @param value
+     *            the value to insert
+     * @throws IllegalStateException
+     *             if this deque is full
+     */
+    public void addFirst(int value) {
+        checkCapacity();
+        this.head = this.head == 0 ? this.values.length - 1 : this.head - 1;
+        this.values[this.head] = value;
+        this.size++;
+    }
+
+    /**
+     * Inserts the given value at the end of this deque.
+     *
+     * @param value
+     *            the value to insert
+     * @throws IllegalStateException
+     *             if this deque is full
+     */
+    public void addLast(int value) {
+        checkCapacity();
+        this.values[slot(this.size)] = value;
+        this.size++;
+    }
+
+    /**
+     * Removes and returns the value at the front of this deque.
+     *
+     * @return the value at the front of this deque
+     * @throws NoSuchElementException
+     *             if this deque is empty
+     */
+    public int removeFirst() {
+        if (this.size == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = this.values[this.head];
+        this.head = slot(1);
+        this.size--;
+        return value;
+    }
+
+    /**
+     * Returns the value at the given position, the front of this deque being
+     * at position 0.
+     *
+     * @param position
+     *            the position of the value
+     * @return the value at the given position
+     * @throws IndexOutOfBoundsException
+     *             if there is no value at the given position
+     */
+    public int get(int position) {
+        if (position < 0 || position >= this.size) {
+            throw new IndexOutOfBoundsException("position " + position);
+        }
+        return this.values[slot(position)];
+    }
+
+    /**
+     * Removes all the values in this deque.
+     */
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    private int slot(int position) {
+        int slot = this.head + position;
+        return slot < this.values.length ? slot : slot - this.values.length;
+    }
+
+    private void checkCapacity() {
+        if (this.size == this.values.length) {
+            throw new IllegalStateException("deque is full");
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.goldfishmtg.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * The benchmark results recorded on a reference machine, stored as a
+ * properties file with the mean throughput, its standard deviation and the
+ * allocation rate of each measurement
+ */
+public class Baseline {
+
+    private final File file;
+    private final Properties properties;
+
+    /**
+     * Loads the baseline from the specified file, the baseline is empty if the
+     * file does not exist
+     */
+    public Baseline(File file) throws IOException {
+        this.file = file;
+        this.properties = new Properties();
+        if (file.exists()) {
+            InputStream in = new FileInputStream(file);
+            try {
+                this.properties.load(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a result was recorded for the measurement
+     */
+    public boolean contains(String name) {
+        return this.properties.containsKey(name + ".mean");
+    }
+
+    public double getMean(String name) {
+        return get(name + ".mean");
+    }
+
+    public double getStandardDeviation(String name) {
+        return get(name + ".sd");
+    }
+
+    public int getTrials(String name) {
+        return (int) get(name + ".trials");
+    }
+
+    public double getBytesPerGame(String name) {
+        return get(name + ".bytesPerGame");
+    }
+
+    /**
+     * Records the result of a measurement, replacing any previous result
+     */
+    public void put(String name, Benchmark.Result result) {
+        this.properties.setProperty(name + ".mean",
+                Double.toString(result.getMean()));
+        this.properties.setProperty(name + ".sd",
+                Double.toString(result.getStandardDeviation()));
+        this.properties.setProperty(name + ".trials",
+                Integer.toString(result.getTrials()));
+        this.properties.setProperty(name + ".bytesPerGame",
+                Double.toString(result.getBytesPerGame()));
+    }
+
+    /**
+     * Writes the baseline back to its file
+     */
+    public synchronized void save() throws IOException {
+        OutputStream out = new FileOutputStream(this.file);
+        try {
+            this.properties.store(out, "goldfish benchmark baseline");
+        } finally {
+            out.close();
+        }
+    }
+
+    private double get(String key) {
+        String value = this.properties.getProperty(key);
+        return value == null ? Double.NaN : Double.parseDouble(value);
+    }
+
+}
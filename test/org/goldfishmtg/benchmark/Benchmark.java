@@ -0,0 +1,213 @@
+package org.goldfishmtg.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.simulation.Agent;
+import org.goldfishmtg.simulation.BatchedGoldfish;
+import org.goldfishmtg.simulation.Goldfish;
+import org.goldfishmtg.simulation.SimulationHandle;
+import org.goldfishmtg.simulation.SimulationService;
+
+/**
+ * Measures the throughput and allocation rate of a workload over a number of
+ * trials, after warming up
+ */
+public class Benchmark {
+
+    /**
+     * The outcome of measuring a workload
+     */
+    public static class Result {
+        private final double[] gamesPerSecond;
+        private final double bytesPerGame;
+
+        Result(double[] gamesPerSecond, double bytesPerGame) {
+            this.gamesPerSecond = gamesPerSecond;
+            this.bytesPerGame = bytesPerGame;
+        }
+
+        public double getMean() {
+            double sum = 0;
+            for (double value : this.gamesPerSecond) {
+                sum += value;
+            }
+            return sum / this.gamesPerSecond.length;
+        }
+
+        public double getStandardDeviation() {
+            double mean = getMean();
+            double sum = 0;
+            for (double value : this.gamesPerSecond) {
+                sum += (value - mean) * (value - mean);
+            }
+            return Math.sqrt(sum / Math.max(1, this.gamesPerSecond.length - 1));
+        }
+
+        public int getTrials() {
+            return this.gamesPerSecond.length;
+        }
+
+        /**
+         * Returns the bytes allocated per game, NaN if not measured
+         */
+        public double getBytesPerGame() {
+            return this.bytesPerGame;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f games/s (sd %.0f, n=%d), %.1f bytes/game",
+                    getMean(), getStandardDeviation(), getTrials(),
+                    this.bytesPerGame);
+        }
+    }
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final int warmups;
+    private final int trials;
+    private final int games;
+
+    /**
+     * @param warmups
+     *            the number of unmeasured trials
+     * @param trials
+     *            the number of measured trials
+     * @param games
+     *            the number of games in each trial
+     */
+    public Benchmark(int warmups, int trials, int games) {
+        this.warmups = warmups;
+        this.trials = trials;
+        this.games = games;
+    }
+
+    /**
+     * Measures a workload played by a single {@link Goldfish} on the calling
+     * thread
+     */
+    public Result goldfish(Workload workload) throws Exception {
+        for (int i = 0; i < this.warmups; i++) {
+            runGoldfish(workload);
+        }
+        double[] rates = new double[this.trials];
+        long allocated = 0;
+        for (int i = 0; i < this.trials; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            runGoldfish(workload);
+            long elapsed = System.nanoTime() - start;
+            allocated += allocatedBytes() - bytes;
+            rates[i] = this.games / (elapsed / 1e9);
+        }
+        double bytesPerGame = allocated < 0 ? Double.NaN : (double) allocated
+                / ((long) this.trials * this.games);
+        return new Result(rates, bytesPerGame);
+    }
+
+    /**
+     * Measures a workload split into one simulation per thread of a
+     * {@link SimulationService}. Allocations are not measured.
+     */
+    public Result service(Workload workload, int threads) throws Exception {
+        SimulationService<String> service = new SimulationService<>(threads);
+        try {
+            for (int i = 0; i < this.warmups; i++) {
+                runService(service, workload, threads);
+            }
+            double[] rates = new double[this.trials];
+            for (int i = 0; i < this.trials; i++) {
+                long start = System.nanoTime();
+                runService(service, workload, threads);
+                long elapsed = System.nanoTime() - start;
+                rates[i] = this.games / (elapsed / 1e9);
+            }
+            return new Result(rates, Double.NaN);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Measures a workload played by a {@link BatchedGoldfish} on the calling
+     * thread
+     */
+    public Result batched(Workload workload) throws Exception {
+        for (int i = 0; i < this.warmups; i++) {
+            runBatched(workload);
+        }
+        double[] rates = new double[this.trials];
+        long allocated = 0;
+        for (int i = 0; i < this.trials; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            runBatched(workload);
+            long elapsed = System.nanoTime() - start;
+            allocated += allocatedBytes() - bytes;
+            rates[i] = this.games / (elapsed / 1e9);
+        }
+        double bytesPerGame = allocated < 0 ? Double.NaN : (double) allocated
+                / ((long) this.trials * this.games);
+        return new Result(rates, bytesPerGame);
+    }
+
+    private void runBatched(Workload workload) throws Exception {
+        BatchedGoldfish<String, LandDropBatchAgent> goldfish = new BatchedGoldfish<>(
+                Deck.of(workload.getCards()), workload.createBatchAgent(),
+                BATCH_SIZE, System.nanoTime());
+        goldfish.setGames(this.games);
+        if (goldfish.call().getGames() != this.games) {
+            throw new IllegalStateException("games were not all played");
+        }
+    }
+
+    private void runGoldfish(Workload workload) throws Exception {
+        Library<String> library = new Library<>(workload.getCards());
+        Goldfish<String, LandDropAgent> goldfish = new Goldfish<>(library,
+                workload.createAgent());
+        goldfish.setGames(this.games);
+        if (goldfish.call().getGames() != this.games) {
+            throw new IllegalStateException("games were not all played");
+        }
+    }
+
+    private void runService(SimulationService<String> service,
+            Workload workload, int threads) throws Exception {
+        List<SimulationHandle<String>> handles = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            handles.add(service.simulate(workload.getCards(),
+                    workload.createAgent(), this.games / threads, false));
+        }
+        for (SimulationHandle<String> handle : handles) {
+            Agent<String> agent = handle.get();
+            if (agent == null) {
+                throw new IllegalStateException("simulation failed");
+            }
+        }
+        for (int i = 0; i < threads; i++) {
+            service.retrieveNextCompleted();
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the calling thread so far, or -1 if the
+     * JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread()
+                        .getId());
+            }
+        }
+        return -1;
+    }
+
+}
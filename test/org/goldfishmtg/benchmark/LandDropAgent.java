@@ -0,0 +1,95 @@
+package org.goldfishmtg.benchmark;
+
+import java.util.Arrays;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.simulation.Agent;
+
+/**
+ * A reference agent written the way most agents are: it keeps hands with 2 to
+ * 5 lands, plays a land each turn when it can and counts the land drops made
+ * on each turn, until the last turn of interest.
+ */
+public class LandDropAgent implements Agent<String> {
+
+    private final String[] lands;
+    private final int turns;
+    private final long[] landDrops;
+    private int games;
+    private int turn;
+
+    /**
+     * @param lands
+     *            the names of the land cards
+     * @param turns
+     *            the number of turns to play each game
+     */
+    public LandDropAgent(String[] lands, int turns) {
+        this.lands = lands.clone();
+        this.turns = turns;
+        this.landDrops = new long[turns + 1];
+    }
+
+    @Override
+    public void simulationStarted() {
+        Arrays.fill(this.landDrops, 0);
+        this.games = 0;
+    }
+
+    @Override
+    public void simulationDone() {
+    }
+
+    @Override
+    public void newGame() {
+        this.turn = 0;
+    }
+
+    @Override
+    public void gameDone() {
+        this.games++;
+    }
+
+    @Override
+    public boolean keepOpeningHand(int cardCount, CardList<String> hand) {
+        int landCount = hand.getCount(this.lands);
+        return cardCount <= 5 || (landCount >= 2 && landCount <= 5);
+    }
+
+    @Override
+    public boolean simulateAnotherTurn() {
+        return this.turn < this.turns;
+    }
+
+    @Override
+    public void takeTurn(int turn, Library<String> library,
+            CardList<String> hand) {
+        this.turn = turn;
+        for (String land : this.lands) {
+            if (hand.removeCard(land)) {
+                this.landDrops[turn]++;
+                break;
+            }
+        }
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder bld = new StringBuilder();
+        for (int t = 1; t <= this.turns; t++) {
+            bld.append("Turn ").append(t).append(": ")
+                    .append((double) this.landDrops[t] / this.games)
+                    .append("\n");
+        }
+        return bld.toString();
+    }
+
+    /**
+     * Returns the number of games observed
+     */
+    public int getGames() {
+        return this.games;
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.goldfishmtg.benchmark;
+
+import java.util.Arrays;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.simulation.BatchAgent;
+
+/**
+ * The {@link LandDropAgent} written for the batched engine
+ */
+public class LandDropBatchAgent implements BatchAgent<String> {
+
+    private final String[] lands;
+    private final int turns;
+    private final long[] landDrops;
+    private int[] landOrdinals;
+    private int[] landCount = new int[0];
+    private long games;
+
+    public LandDropBatchAgent(String[] lands, int turns) {
+        this.lands = lands.clone();
+        this.turns = turns;
+        this.landDrops = new long[turns + 1];
+    }
+
+    @Override
+    public void simulationStarted(CardIndex<String> index) {
+        Arrays.fill(this.landDrops, 0);
+        this.games = 0;
+        this.landOrdinals = new int[this.lands.length];
+        for (int i = 0; i < this.lands.length; i++) {
+            this.landOrdinals[i] = index.ordinalOf(this.lands[i]);
+        }
+    }
+
+    @Override
+    public void simulationDone() {
+    }
+
+    @Override
+    public void keepOpeningHands(int cardCount, int[][] hands, int games,
+            boolean[] keep) {
+        if (this.landCount.length < games) {
+            this.landCount = new int[games];
+        }
+        int[] landCount = this.landCount;
+        Arrays.fill(landCount, 0, games, 0);
+        for (int ordinal : this.landOrdinals) {
+            int[] row = hands[ordinal];
+            for (int game = 0; game < games; game++) {
+                landCount[game] += row[game];
+            }
+        }
+        for (int game = 0; game < games; game++) {
+            keep[game] |= cardCount <= 5
+                    || (landCount[game] >= 2 && landCount[game] <= 5);
+        }
+    }
+
+    @Override
+    public void takeTurn(int turn, int[][] hands, int games, boolean[] active) {
+        for (int game = 0; game < games; game++) {
+            if (!active[game]) {
+                continue;
+            }
+            for (int ordinal : this.landOrdinals) {
+                if (hands[ordinal][game] > 0) {
+                    hands[ordinal][game]--;
+                    this.landDrops[turn]++;
+                    break;
+                }
+            }
+            if (turn == this.turns) {
+                active[game] = false;
+                this.games++;
+            }
+        }
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder bld = new StringBuilder();
+        for (int t = 1; t <= this.turns; t++) {
+            bld.append("Turn ").append(t).append(": ")
+                    .append((double) this.landDrops[t] / this.games)
+                    .append("\n");
+        }
+        return bld.toString();
+    }
+
+    /**
+     * Returns the number of games observed
+     */
+    public long getGames() {
+        return this.games;
+    }
+
+}
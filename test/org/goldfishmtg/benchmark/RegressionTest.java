@@ -0,0 +1,218 @@
+package org.goldfishmtg.benchmark;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.logging.Logger;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.Deck;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Fails when the throughput or the allocation rate of the canonical workloads
+ * regresses against the recorded baseline.
+ * <p>
+ * The suite only runs with <code>-Dgoldfish.benchmark=true</code>. Running it
+ * with <code>-Dgoldfish.benchmark.record=true</code> as well replaces the
+ * baseline with the new results instead of comparing them, which should be
+ * done on the machine the suite is gated on. The baseline file defaults to
+ * <code>benchmark-baseline.properties</code> and can be set with
+ * <code>-Dgoldfish.benchmark.baseline</code>.
+ * <p>
+ * No baseline is committed since throughput depends on the machine. Before
+ * gating on the suite, record one on the gating machine with
+ * <code>-Dgoldfish.benchmark=true -Dgoldfish.benchmark.record=true</code>.
+ * Outside of record mode a measurement missing from the baseline fails.
+ * <p>
+ * A throughput regression must be both larger than the tolerance (10% by
+ * default, set with <code>-Dgoldfish.benchmark.tolerance</code>) and
+ * significant, the difference of the means exceeding three standard errors, so
+ * that noisy machines do not fail the suite on their own.
+ * <p>
+ * Running the suite with <code>-Dgoldfish.benchmark.scaling=true</code> as
+ * well, in addition to <code>-Dgoldfish.benchmark=true</code>, also measures
+ * every engine on the {@link SyntheticDecks} corpus, with fewer games and
+ * trials (<code>-Dgoldfish.benchmark.scaling.games</code>, 20000 by default).
+ * The results are checked against the baseline like the canonical workloads
+ * and written as CSV to <code>-Dgoldfish.benchmark.scaling.output</code>
+ * (<code>benchmark-scaling.csv</code> by default) to chart how the engines
+ * scale with the size of the deck and its number of distinct cards. Failed
+ * checks are reported once the whole curve has been written.
+ */
+public class RegressionTest {
+
+    private static final int THREADS = 4;
+
+    private static Baseline baseline;
+    private static Benchmark benchmark;
+    private static boolean record;
+    private static double tolerance;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("goldfish.benchmark"));
+        baseline = new Baseline(new File(System.getProperty(
+                "goldfish.benchmark.baseline",
+                "benchmark-baseline.properties")));
+        benchmark = new Benchmark(Integer.getInteger(
+                "goldfish.benchmark.warmups", 3), Integer.getInteger(
+                "goldfish.benchmark.trials", 10), Integer.getInteger(
+                "goldfish.benchmark.games", 100000));
+        record = Boolean.getBoolean("goldfish.benchmark.record");
+        tolerance = Double.parseDouble(System.getProperty(
+                "goldfish.benchmark.tolerance", "0.1"));
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        if (record && baseline != null) {
+            baseline.save();
+        }
+    }
+
+    @Test
+    public void testMonoLandGoldfish() throws Exception {
+        Workload workload = Workload.monoLand();
+        check(workload.getName() + ".goldfish", benchmark.goldfish(workload));
+    }
+
+    @Test
+    public void testMonoLandService() throws Exception {
+        Workload workload = Workload.monoLand();
+        check(workload.getName() + ".service",
+                benchmark.service(workload, THREADS));
+    }
+
+    @Test
+    public void testMonoLandBatched() throws Exception {
+        Workload workload = Workload.monoLand();
+        check(workload.getName() + ".batched", benchmark.batched(workload));
+    }
+
+    @Test
+    public void testLimitedGoldfish() throws Exception {
+        Workload workload = Workload.limited();
+        check(workload.getName() + ".goldfish", benchmark.goldfish(workload));
+    }
+
+    @Test
+    public void testLimitedService() throws Exception {
+        Workload workload = Workload.limited();
+        check(workload.getName() + ".service",
+                benchmark.service(workload, THREADS));
+    }
+
+    @Test
+    public void testLimitedBatched() throws Exception {
+        Workload workload = Workload.limited();
+        check(workload.getName() + ".batched", benchmark.batched(workload));
+    }
+
+    @Test
+    public void testSingletonGoldfish() throws Exception {
+        Workload workload = Workload.singleton();
+        check(workload.getName() + ".goldfish", benchmark.goldfish(workload));
+    }
+
+    @Test
+    public void testSingletonService() throws Exception {
+        Workload workload = Workload.singleton();
+        check(workload.getName() + ".service",
+                benchmark.service(workload, THREADS));
+    }
+
+    @Test
+    public void testSingletonBatched() throws Exception {
+        Workload workload = Workload.singleton();
+        check(workload.getName() + ".batched", benchmark.batched(workload));
+    }
+
+    @Test
+    public void testScaling() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("goldfish.benchmark.scaling"));
+        Benchmark scaling = new Benchmark(1, 3, Integer.getInteger(
+                "goldfish.benchmark.scaling.games", 20000));
+        File output = new File(System.getProperty(
+                "goldfish.benchmark.scaling.output", "benchmark-scaling.csv"));
+        PrintWriter out = new PrintWriter(output, "UTF-8");
+        AssertionError failure = null;
+        try {
+            out.println("workload,size,distinct,engine,games_per_second,"
+                    + "standard_deviation,bytes_per_game");
+            for (Workload workload : SyntheticDecks.corpus()) {
+                Deck<String> deck = Deck.of(workload.getCards());
+                String prefix = workload.getName() + "," + deck.size() + ","
+                        + deck.getIndex().size() + ",";
+                Benchmark.Result[] results = {
+                        scaling.goldfish(workload),
+                        scaling.service(workload, THREADS),
+                        scaling.batched(workload) };
+                String[] engines = { "goldfish", "service", "batched" };
+                for (int i = 0; i < engines.length; i++) {
+                    Benchmark.Result result = results[i];
+                    out.println(prefix + engines[i] + "," + result.getMean()
+                            + "," + result.getStandardDeviation() + ","
+                            + result.getBytesPerGame());
+                    out.flush();
+                    String name = workload.getName() + "." + engines[i];
+                    // A failed point must not end the curve
+                    try {
+                        check(name, result);
+                    } catch (AssertionError e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+            }
+        } finally {
+            out.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void check(String name, Benchmark.Result result) {
+        this.logger.info(name + ": " + result);
+        if (record) {
+            baseline.put(name, result);
+            return;
+        }
+        if (!baseline.contains(name)) {
+            Assert.fail("no baseline for " + name + ", record one with"
+                    + " -Dgoldfish.benchmark.record=true");
+        }
+
+        double mean = baseline.getMean(name);
+        double error = Math.sqrt(square(baseline.getStandardDeviation(name))
+                / baseline.getTrials(name) + square(result.getStandardDeviation())
+                / result.getTrials());
+        double drop = mean - result.getMean();
+        Assert.assertFalse(name + " throughput regressed from " + mean
+                + " to " + result.getMean() + " games/s", drop > mean
+                * tolerance
+                && drop > 3 * error);
+
+        double bytes = baseline.getBytesPerGame(name);
+        if (!Double.isNaN(bytes) && !Double.isNaN(result.getBytesPerGame())) {
+            // Allow a few bytes per game for allocations outside of the games
+            Assert.assertTrue(name + " allocation rate regressed from " + bytes
+                    + " to " + result.getBytesPerGame() + " bytes/game",
+                    result.getBytesPerGame() <= bytes * (1 + tolerance) + 16);
+        }
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.goldfishmtg.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.goldfishmtg.cards.CardList;
+
+/**
+ * Generates synthetic decks of any size and number of distinct cards, to
+ * measure how the engines scale with both. About 40% of every deck is made of
+ * lands, the land and spell names sharing the distinct cards in the same
+ * proportion. The copies of each name are either spread evenly or skewed
+ * towards the first names, with weights following Zipf's law, as in decks
+ * built around a few playsets.
+ */
+public final class SyntheticDecks {
+
+    /**
+     * How the copies of a deck are spread over its distinct cards
+     */
+    public enum Distribution {
+        UNIFORM, SKEWED
+    }
+
+    /**
+     * The deck sizes of the corpus: limited, constructed, singleton and two
+     * larger than any real deck
+     */
+    public static final int[] SIZES = { 40, 60, 100, 250, 500 };
+
+    /**
+     * The numbers of distinct cards of the corpus
+     */
+    public static final int[] DISTINCT = { 2, 10, 40, 100, 250 };
+
+    private static final double LAND_RATIO = 0.4;
+    private static final int TURNS = 6;
+
+    private SyntheticDecks() {
+    }
+
+    /**
+     * Returns a workload for every size, number of distinct cards no larger
+     * than the size, and distribution
+     */
+    public static List<Workload> corpus() {
+        List<Workload> workloads = new ArrayList<Workload>();
+        for (int size : SIZES) {
+            for (int distinct : DISTINCT) {
+                if (distinct > size) {
+                    continue;
+                }
+                for (Distribution distribution : Distribution.values()) {
+                    workloads.add(generate(size, distinct, distribution));
+                }
+            }
+        }
+        return workloads;
+    }
+
+    /**
+     * Generates a deck and its reference agent
+     *
+     * @param size
+     *            the number of cards of the deck
+     * @param distinct
+     *            the number of distinct cards, at least 2 and at most the size
+     * @param distribution
+     *            how the copies are spread over the distinct cards
+     * @return a workload named after its parameters
+     * @throws IllegalArgumentException
+     *             if the number of distinct cards is out of range
+     */
+    public static Workload generate(int size, int distinct,
+            Distribution distribution) {
+        if (distinct < 2 || distinct > size) {
+            throw new IllegalArgumentException("distinct must be between 2 and "
+                    + size);
+        }
+        int landCount = Math.max(1,
+                Math.min(size - 1, (int) Math.round(size * LAND_RATIO)));
+        int landNames = (int) Math.round((double) distinct * landCount / size);
+        landNames = Math.max(1, Math.min(distinct - 1, landNames));
+        landNames = Math.min(landNames, landCount);
+        landNames = Math.max(landNames, distinct - (size - landCount));
+
+        CardList<String> cards = new CardList<String>();
+        String[] lands = new String[landNames];
+        int[] landCopies = spread(landCount, landNames, distribution);
+        for (int i = 0; i < landNames; i++) {
+            lands[i] = "Land " + i;
+            cards.addCards(lands[i], landCopies[i]);
+        }
+        int spellNames = distinct - landNames;
+        int[] spellCopies = spread(size - landCount, spellNames, distribution);
+        for (int i = 0; i < spellNames; i++) {
+            cards.addCards("Spell " + i, spellCopies[i]);
+        }
+        String name = "synthetic-" + size + "x" + distinct + "-"
+                + distribution.name().toLowerCase();
+        return new Workload(name, cards, lands, TURNS);
+    }
+
+    /**
+     * Spreads the copies over the names, each name getting at least one copy
+     * and the rest being shared by weight with the largest remainder method
+     */
+    static int[] spread(int copies, int names, Distribution distribution) {
+        double[] weights = new double[names];
+        double total = 0;
+        for (int i = 0; i < names; i++) {
+            weights[i] = distribution == Distribution.UNIFORM ? 1
+                    : 1.0 / (i + 1);
+            total += weights[i];
+        }
+        int extra = copies - names;
+        int[] spread = new int[names];
+        double[] remainders = new double[names];
+        int given = 0;
+        for (int i = 0; i < names; i++) {
+            double share = extra * weights[i] / total;
+            spread[i] = 1 + (int) share;
+            remainders[i] = share - (int) share;
+            given += (int) share;
+        }
+        for (; given < extra; given++) {
+            int largest = 0;
+            for (int i = 1; i < names; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            spread[largest]++;
+            remainders[largest] = -1;
+        }
+        return spread;
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.goldfishmtg.benchmark;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.Deck;
+import org.junit.Test;
+
+public class SyntheticDecksTest {
+
+    @Test
+    public void testCorpus() {
+        int workloads = 0;
+        for (Workload workload : SyntheticDecks.corpus()) {
+            Deck<String> deck = Deck.of(workload.getCards());
+            String name = workload.getName();
+            int size = Integer.parseInt(name.substring(name.indexOf('-') + 1,
+                    name.indexOf('x')));
+            int distinct = Integer.parseInt(name.substring(
+                    name.indexOf('x') + 1, name.lastIndexOf('-')));
+
+            Assert.assertEquals(name, size, deck.size());
+            Assert.assertEquals(name, distinct, deck.getIndex().size());
+            workloads++;
+        }
+        Assert.assertEquals(2 * (3 + 3 + 4 + 5 + 5), workloads);
+    }
+
+    @Test
+    public void testSkewed() {
+        Workload uniform = SyntheticDecks.generate(60, 10,
+                SyntheticDecks.Distribution.UNIFORM);
+        Workload skewed = SyntheticDecks.generate(60, 10,
+                SyntheticDecks.Distribution.SKEWED);
+
+        Assert.assertEquals(6, uniform.getCards().getCount("Spell 0"));
+        Assert.assertEquals(6, uniform.getCards().getCount("Spell 5"));
+        Assert.assertTrue(skewed.getCards().getCount("Spell 0") > 3 * skewed
+                .getCards().getCount("Spell 5"));
+        Assert.assertEquals(24, skewed.getCards().getCount("Land 0", "Land 1",
+                "Land 2", "Land 3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyDistinct() {
+        SyntheticDecks.generate(40, 41, SyntheticDecks.Distribution.UNIFORM);
+    }
+
+}
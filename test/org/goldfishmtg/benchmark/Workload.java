@@ -0,0 +1,88 @@
+package org.goldfishmtg.benchmark;
+
+import org.goldfishmtg.cards.CardList;
+
+/**
+ * A canonical deck and reference agent to measure the simulation throughput
+ * with
+ */
+public class Workload {
+
+    private final String name;
+    private final CardList<String> cards;
+    private final String[] lands;
+    private final int turns;
+
+    public Workload(String name, CardList<String> cards, String[] lands,
+            int turns) {
+        this.name = name;
+        this.cards = cards;
+        this.lands = lands;
+        this.turns = turns;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public CardList<String> getCards() {
+        return this.cards;
+    }
+
+    /**
+     * Creates a new reference agent for this workload
+     */
+    public LandDropAgent createAgent() {
+        return new LandDropAgent(this.lands, this.turns);
+    }
+
+    /**
+     * Creates a new reference agent for the batched engine
+     */
+    public LandDropBatchAgent createBatchAgent() {
+        return new LandDropBatchAgent(this.lands, this.turns);
+    }
+
+    /**
+     * 60 cards: 24 copies of a single basic land and nine playsets of spells
+     */
+    public static Workload monoLand() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Mountain", 24);
+        for (int i = 0; i < 9; i++) {
+            cards.addCards("Spell " + i, 4);
+        }
+        return new Workload("mono-land-60", cards, new String[] { "Mountain" },
+                6);
+    }
+
+    /**
+     * 40 cards: 17 lands of two colours and 23 spells in ones and twos
+     */
+    public static Workload limited() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Forest", 9);
+        cards.addCards("Island", 8);
+        for (int i = 0; i < 23; i++) {
+            cards.addCards("Spell " + (i % 16), 1);
+        }
+        return new Workload("limited-40", cards, new String[] { "Forest",
+                "Island" }, 8);
+    }
+
+    /**
+     * 100 cards: 36 basic lands of three types and 64 singleton spells
+     */
+    public static Workload singleton() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Plains", 12);
+        cards.addCards("Island", 12);
+        cards.addCards("Swamp", 12);
+        for (int i = 0; i < 64; i++) {
+            cards.addCard("Spell " + i);
+        }
+        return new Workload("singleton-100", cards, new String[] { "Plains",
+                "Island", "Swamp" }, 10);
+    }
+
+}
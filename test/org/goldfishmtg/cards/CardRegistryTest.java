@@ -0,0 +1,82 @@
+package org.goldfishmtg.cards;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CardRegistryTest {
+
+    private CardRegistry<String> registry;
+
+    @Before
+    public void before() {
+        this.registry = new CardRegistry<String>();
+        this.registry.register("Mountain", CardAttributes.land(Color.RED));
+        this.registry.register("Forest", CardAttributes.land(Color.GREEN));
+        this.registry.register("Goblin Guide",
+                CardAttributes.spell(CardType.CREATURE, 1, Color.RED));
+        this.registry.register("Ornithopter",
+                CardAttributes.spell(CardType.ARTIFACT, 0));
+    }
+
+    @Test
+    public void testCardList() {
+        CardList<String> test = new CardList<String>();
+        test.addCards("Mountain", 3);
+        test.setCardRegistry(this.registry);
+        test.addCards("Goblin Guide", 2);
+        test.addCard("Forest");
+        test.addCard("Unknown");
+
+        Assert.assertEquals(4, test.getCount(Category.type(CardType.LAND)));
+        Assert.assertEquals(3, test.getCount(Category.source(Color.RED)));
+        Assert.assertEquals(4, test.getCount(Category.color(Color.COLORLESS)));
+        Assert.assertEquals(2, test.getCount(Category.color(Color.RED)));
+        Assert.assertEquals(2, test.getCount(Category.manaValue(1)));
+
+        test.removeCards("Mountain", 2);
+        Assert.assertEquals(1, test.getCount(Category.source(Color.RED)));
+
+        CardList<String> copy = new CardList<String>(test);
+        Assert.assertEquals(2, copy.getCount(Category.type(CardType.LAND)));
+
+        test.clear();
+        Assert.assertEquals(0, test.getCount(Category.type(CardType.LAND)));
+        Assert.assertEquals(2, copy.getCount(Category.type(CardType.LAND)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoRegistry() {
+        new CardList<String>().getCount(Category.type(CardType.LAND));
+    }
+
+    @Test
+    public void testHand() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Mountain", 10);
+        cards.addCards("Ornithopter", 10);
+        Library<String> library = new Library<String>(cards);
+        Hand<String> test = new Hand<String>(library.getIndex());
+        test.addCard("Mountain");
+        test.setCardRegistry(this.registry);
+
+        test.addOrdinal(library.getIndex().ordinalOf("Ornithopter"));
+        test.addCards("Mountain", 2);
+        Assert.assertEquals(3, test.getCount(Category.type(CardType.LAND)));
+        Assert.assertEquals(1, test.getCount(Category.type(CardType.ARTIFACT)));
+        Assert.assertEquals(4, test.getCount(Category.manaValue(0)));
+
+        Hand<String> snapshot = test.snapshot();
+        test.removeCard("Mountain");
+        Assert.assertEquals(2, test.getCount(Category.type(CardType.LAND)));
+        Assert.assertEquals(3, snapshot.getCount(Category.type(CardType.LAND)));
+
+        CardList<String> copy = test.toCardList();
+        test.clear();
+        Assert.assertEquals(0, test.getCount(Category.type(CardType.LAND)));
+        Assert.assertEquals(2, copy.getCount(Category.type(CardType.LAND)));
+        Assert.assertEquals(3, snapshot.getCount(Category.type(CardType.LAND)));
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.goldfishmtg.cards;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeckTest {
+
+    private CardList<String> cards;
+
+    @Before
+    public void before() {
+        this.cards = new CardList<String>();
+        this.cards.addCards("Forest", 17);
+        this.cards.addCards("Llanowar Elves", 4);
+        this.cards.addCards("Giant Growth", 4);
+    }
+
+    @Test
+    public void testOf() {
+        Deck<String> test = Deck.of(this.cards);
+        this.cards.addCards("Forest", 10);
+
+        Assert.assertEquals(25, test.size());
+        Assert.assertEquals(17, test.getCount("Forest"));
+        Assert.assertEquals(0, test.getCount("Island"));
+    }
+
+    @Test
+    public void testWithCards1() {
+        Deck<String> test = Deck.of(this.cards);
+        Deck<String> variant = test.withCards("Forest", 1);
+
+        Assert.assertEquals(25, test.size());
+        Assert.assertEquals(26, variant.size());
+        Assert.assertEquals(18, variant.getCount("Forest"));
+        Assert.assertSame(test.getIndex(), variant.getIndex());
+    }
+
+    @Test
+    public void testWithCards2() {
+        Deck<String> test = Deck.of(this.cards);
+        Deck<String> variant = test.withCards("Elvish Mystic", 2);
+
+        Assert.assertEquals(27, variant.size());
+        Assert.assertEquals(2, variant.getCount("Elvish Mystic"));
+        Assert.assertEquals(4, variant.getCount("Llanowar Elves"));
+        Assert.assertEquals(17, variant.getCount("Forest"));
+        Assert.assertEquals(0, test.getCount("Elvish Mystic"));
+    }
+
+    @Test
+    public void testWithoutCards() {
+        Deck<String> test = Deck.of(this.cards);
+        Deck<String> variant = test.withoutCards("Giant Growth", 4);
+
+        Assert.assertEquals(21, variant.size());
+        Assert.assertEquals(0, variant.getCount("Giant Growth"));
+        Assert.assertSame(test.getIndex(), variant.getIndex());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutCardsTooMany() {
+        Deck.of(this.cards).withoutCards("Giant Growth", 5);
+    }
+
+    @Test
+    public void testEquals() {
+        Deck<String> test = Deck.of(this.cards);
+        Deck<String> variant = test.withCards("Island", 1).withoutCards(
+                "Island", 1);
+
+        Assert.assertEquals(test, variant);
+        Assert.assertEquals(test.hashCode(), variant.hashCode());
+        Assert.assertFalse(test.equals(test.withCards("Forest", 1)));
+    }
+
+    @Test
+    public void testLibrary() {
+        Deck<String> test = Deck.of(this.cards).withoutCards("Forest", 17);
+        Library<String> library = new Library<>(test);
+
+        Assert.assertEquals(8, library.cardsRemaining());
+        while (library.cardsRemaining() > 0) {
+            Assert.assertFalse("Forest".equals(library.draw()));
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.goldfishmtg.cards;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HandTest {
+
+    private CardIndex<String> index;
+    private Hand<String> test;
+
+    @Before
+    public void before() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Forest", 20);
+        cards.addCards("Island", 20);
+        cards.addCards("Llanowar Elves", 4);
+        this.index = new CardIndex<String>(cards);
+        this.test = new Hand<String>(this.index);
+    }
+
+    @Test
+    public void testAddCards() {
+        this.test.addCards("Forest", 2);
+        this.test.addCard("Island");
+
+        Assert.assertEquals(2, this.test.getCount("Forest"));
+        Assert.assertEquals(1,
+                this.test.countOf(this.index.ordinalOf("Island")));
+        Assert.assertEquals(3, this.test.size());
+        Assert.assertEquals(3, this.test.getCount("Forest", "Island"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddCardsNotInIndex() {
+        this.test.addCard("Mountain");
+    }
+
+    @Test
+    public void testRemoveCards() {
+        this.test.addCards("Forest", 2);
+
+        Assert.assertFalse(this.test.removeCards("Forest", 3));
+        Assert.assertTrue(this.test.removeCards("Forest", 2));
+        Assert.assertFalse(this.test.removeCard("Mountain"));
+        Assert.assertEquals(0, this.test.size());
+    }
+
+    @Test
+    public void testEquals() {
+        Hand<String> other = new Hand<String>(this.index);
+        this.test.addCard("Forest");
+        this.test.addCard("Island");
+        other.addCard("Island");
+        other.addCard("Forest");
+
+        Assert.assertEquals(this.test, other);
+        Assert.assertEquals(this.test.hashCode(), other.hashCode());
+
+        other.addCard("Forest");
+        other.removeCard("Island");
+        Assert.assertFalse(this.test.equals(other));
+    }
+
+    @Test
+    public void testSnapshot() {
+        this.test.addCards("Forest", 3);
+        Hand<String> snapshot = this.test.snapshot();
+
+        this.test.addCard("Island");
+        snapshot.removeCard("Forest");
+
+        Assert.assertEquals(3, this.test.getCount("Forest"));
+        Assert.assertEquals(1, this.test.getCount("Island"));
+        Assert.assertEquals(2, snapshot.getCount("Forest"));
+        Assert.assertEquals(0, snapshot.getCount("Island"));
+    }
+
+    @Test
+    public void testToCardList() {
+        this.test.addCards("Forest", 2);
+        this.test.addCard("Llanowar Elves");
+
+        CardList<String> copy = this.test.toCardList();
+        this.test.clear();
+
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals(2, copy.getCount("Forest"));
+        Assert.assertEquals(0, this.test.size());
+
+        Hand<String> restored = new Hand<String>(this.index, copy);
+        Assert.assertEquals(2, restored.getCount("Forest"));
+        Assert.assertEquals(1, restored.getCount("Llanowar Elves"));
+    }
+
+}
@@ -2,6 +2,7 @@ package org.goldfishmtg.cards;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.Assert;
 
@@ -115,6 +116,37 @@ public class LibraryTest {
         Assert.assertTrue(i < Short.MAX_VALUE);
     }
 
+    @Test
+    public void testReset4() {
+        int librarySize = 60;
+        for (int i = 0; i < librarySize; i++) {
+            this.cards.addCard("Card " + i);
+        }
+        Library<String> test = new Library<>(this.cards);
+
+        for (int game = 0; game < 10; game++) {
+            String card1 = test.draw();
+            String card2 = test.draw();
+            test.draw();
+            test.top(card1);
+            test.bottom(card2);
+            test.tutor("Card " + game);
+
+            test.reset();
+
+            Assert.assertEquals(librarySize, test.cardsRemaining());
+            CardList<String> seen = new CardList<>();
+            for (int i = 0; i < librarySize; i++) {
+                seen.addCard(test.draw());
+            }
+            Assert.assertNull(test.draw());
+            for (int i = 0; i < librarySize; i++) {
+                Assert.assertEquals(1, seen.getCount("Card " + i));
+            }
+            test.reset();
+        }
+    }
+
     @Test
     public void testShuffle1() {
         int librarySize = 1000;
@@ -389,4 +421,144 @@ public class LibraryTest {
         }
     }
 
+    @Test
+    public void testProbabilityOfDrawing() {
+        this.cards.addCards("Land", 24);
+        this.cards.addCards("Spell", 36);
+        Library<String> test = new Library<>(this.cards);
+
+        Assert.assertEquals(24.0 / 60, test.probabilityOfDrawing(1, 1, "Land"),
+                1e-12);
+        // 1 - C(36,2)/C(60,2)
+        Assert.assertEquals(1 - (36.0 * 35) / (60 * 59),
+                test.probabilityOfDrawing(1, 2, "Land"), 1e-12);
+        Assert.assertEquals(1, test.probabilityOfDrawing(0, 2, "Land"), 0);
+        Assert.assertEquals(0, test.probabilityOfDrawing(3, 2, "Land"), 0);
+        Assert.assertEquals(1,
+                test.probabilityOfDrawing(2, 2, "Land", "Spell", "Land"), 1e-12);
+        Assert.assertEquals(1, test.probabilityOfDrawing(24, 60, "Land"),
+                1e-12);
+
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        int lands = test.getCount("Land");
+        Assert.assertEquals(50, lands + test.getCount("Spell"));
+        Assert.assertEquals(lands / 50.0,
+                test.probabilityOfDrawing(1, 1, "Land"), 1e-12);
+    }
+
+    @Test
+    public void testProbabilityOfDrawingTopAndBottom() {
+        this.cards.addCards("Land", 1);
+        this.cards.addCards("Spell", 9);
+        Library<String> test = new Library<>(this.cards);
+        test.tutor("Land");
+
+        test.bottom("Land");
+        Assert.assertEquals(1, test.getCount("Land"));
+        Assert.assertEquals(0, test.probabilityOfDrawing(1, 1, "Land"), 0);
+        Assert.assertEquals(1, test.probabilityOfDrawing(1,
+                test.cardsRemaining(), "Land"), 0);
+
+        while (test.cardsRemaining() > 0) {
+            test.draw();
+        }
+        test.top("Spell");
+        test.top("Land");
+        Assert.assertEquals(1, test.probabilityOfDrawing(1, 1, "Land"), 0);
+        Assert.assertEquals(0, test.probabilityOfDrawing(2, 5, "Land"), 0);
+        Assert.assertEquals(1, test.probabilityOfDrawing(2, 2, "Land", "Spell"),
+                0);
+    }
+
+    @Test
+    public void testFork() {
+        this.cards.addCards("Land", 24);
+        this.cards.addCards("Spell", 36);
+        Library<String> test = new Library<>(new Random(1), this.cards);
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        test.top("Spell");
+        int lands = test.getCount("Land");
+
+        Library<String> fork = test.fork(new Random(2));
+        Library<String> twin = test.fork(new Random(2));
+        for (int i = 0; i < 20; i++) {
+            String card = fork.draw();
+            Assert.assertEquals(card, twin.draw());
+            if (i == 0) {
+                Assert.assertEquals("Spell", card);
+            }
+        }
+        fork.reset();
+
+        Assert.assertEquals(60, fork.cardsRemaining());
+        Assert.assertEquals(31, twin.cardsRemaining());
+        Assert.assertEquals(51, test.cardsRemaining());
+        Assert.assertEquals(lands, test.getCount("Land"));
+        Assert.assertEquals("Spell", test.draw());
+    }
+
+    @Test
+    public void testDrawWeights() {
+        this.cards.addCards("Land", 10);
+        this.cards.addCards("Spell", 30);
+        Library<String> test = new Library<>(new Random(3), this.cards);
+        test.setDrawWeight("Land", 0.1);
+        // Probability of drawing no land in 10 cards
+        double exact = 1;
+        for (int i = 0; i < 10; i++) {
+            exact *= (30.0 - i) / (40 - i);
+        }
+
+        int samples = 20000;
+        double estimate = 0;
+        for (int sample = 0; sample < samples; sample++) {
+            test.reset();
+            test.clearLikelihoodRatio();
+            boolean noLand = true;
+            for (int i = 0; i < 10; i++) {
+                noLand &= test.draw().equals("Spell");
+            }
+            estimate += noLand ? test.getLikelihoodRatio() : 0;
+        }
+
+        Assert.assertEquals(exact, estimate / samples, exact * 0.05);
+
+        test.clearDrawWeights();
+        test.reset();
+        test.clearLikelihoodRatio();
+        test.draw();
+        Assert.assertEquals(1.0, test.getLikelihoodRatio());
+    }
+
+    @Test
+    public void testDrawWeightsOfPool() {
+        this.cards.addCards("Heavy", 2);
+        this.cards.addCards("Light", 8);
+        Library<String> test = new Library<>(new Random(5), this.cards);
+        test.setDrawWeight("Heavy", 4);
+        for (int game = 0; game < 100; game++) {
+            test.reset();
+            test.clearLikelihoodRatio();
+            int heavy = 2;
+            int light = 8;
+            double expected = 1;
+            for (int i = 0; i < 10; i++) {
+                double poolWeight = heavy * 4 + light;
+                if (test.draw().equals("Heavy")) {
+                    expected *= poolWeight / ((heavy + light) * 4);
+                    heavy--;
+                } else {
+                    expected *= poolWeight / (heavy + light);
+                    light--;
+                }
+                Assert.assertEquals(expected, test.getLikelihoodRatio(),
+                        expected * 1e-12);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,160 @@
+package org.goldfishmtg.cards;
+
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.simulation.Agent;
+import org.goldfishmtg.simulation.Goldfish;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ShufflePipelineTest {
+
+    @Test
+    public void testTake() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("A", 3);
+        cards.addCards("B", 2);
+        cards.addCards("C", 1);
+        Deck<String> deck = Deck.of(cards);
+        ShufflePipeline test = new ShufflePipeline(deck, 2, 10, 4, 1);
+        try {
+            int[] seen = new int[3];
+            for (int b = 0; b < 20; b++) {
+                int[] block = test.take();
+                Assert.assertEquals(60, block.length);
+                for (int p = 0; p < 10; p++) {
+                    int[] permutation = Arrays.copyOfRange(block, p * 6,
+                            p * 6 + 6);
+                    seen[permutation[0]]++;
+                    Arrays.sort(permutation);
+                    Assert.assertTrue(Arrays.equals(deck.ordinals(),
+                            permutation));
+                }
+                test.recycle(block);
+            }
+            // Every card has been first at some point
+            Assert.assertTrue(seen[0] > 0 && seen[1] > 0 && seen[2] > 0);
+        } finally {
+            test.close();
+        }
+    }
+
+    @Test
+    public void testGoldfish() throws Exception {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Card", 40);
+        cards.addCards("Other", 20);
+        Library<String> library = new Library<String>(cards);
+        ShufflePipeline pipeline = new ShufflePipeline(library.getDeck(), 1,
+                16, 4, 1);
+        Agent<String> agent = Mockito.mock(Agent.class);
+        Mockito.when(
+                agent.keepOpeningHand(Mockito.anyInt(),
+                        Mockito.any(CardList.class))).thenReturn(Boolean.TRUE);
+        Mockito.when(agent.simulateAnotherTurn()).thenReturn(Boolean.TRUE);
+        Goldfish<String, Agent<String>> test = new Goldfish<>(library, agent);
+        test.setShufflePipeline(pipeline);
+        test.setGames(100);
+
+        test.call();
+        pipeline.close();
+
+        Assert.assertEquals(100, test.getGamesPlayed());
+        Mockito.verify(agent, Mockito.times(100 * 53)).takeTurn(
+                Mockito.anyInt(), Mockito.eq(library),
+                Mockito.any(CardList.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGoldfishOtherDeck() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Card", 60);
+        Library<String> library = new Library<String>(cards);
+        cards.addCard("Other");
+        ShufflePipeline pipeline = new ShufflePipeline(Deck.of(cards), 1, 1,
+                1, 1);
+        pipeline.close();
+        new Goldfish<String, Agent<String>>(library, Mockito.mock(Agent.class))
+                .setShufflePipeline(pipeline);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGoldfishOtherIndex() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("A", 30);
+        cards.addCards("C", 30);
+        Library<String> library = new Library<String>(cards);
+        // Equal to the deck of the library, but C has another ordinal
+        Deck<String> deck = library.getDeck().withCards("B", 1)
+                .withoutCards("B", 1);
+        Assert.assertEquals(library.getDeck(), deck);
+        ShufflePipeline pipeline = new ShufflePipeline(deck, 1, 1, 1, 1);
+        pipeline.close();
+        new Goldfish<String, Agent<String>>(library, Mockito.mock(Agent.class))
+                .setShufflePipeline(pipeline);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreorderedOutsideIndex() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCard("A");
+        cards.addCard("B");
+        new Library<String>(cards).reset(new int[] { 0, 2 }, 0);
+    }
+
+    @Test
+    public void testForkPreordered() {
+        CardList<String> cards = new CardList<String>();
+        for (int i = 0; i < 60; i++) {
+            cards.addCard("Card" + i);
+        }
+        Library<String> library = new Library<String>(cards);
+        ShufflePipeline pipeline = new ShufflePipeline(library.getDeck(), 1,
+                1, 1, 1);
+        int[] block;
+        try {
+            block = pipeline.take();
+        } finally {
+            pipeline.close();
+        }
+        library.reset(block, 0);
+        library.draw();
+        String next = library.getIndex().getCard(block[1]);
+
+        int matches = 0;
+        for (int i = 0; i < 20; i++) {
+            Library<String> fork = library.fork();
+            Assert.assertEquals(59, fork.cardsRemaining());
+            String card = fork.draw();
+            Assert.assertEquals(1, library.getCount(card));
+            matches += card.equals(next) ? 1 : 0;
+        }
+        // The forks draw at random, not the next card of the library
+        Assert.assertTrue("matches " + matches, matches < 5);
+        Assert.assertEquals(next, library.draw());
+    }
+
+    @Test
+    public void testPreorderedLibrary() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCard("A");
+        cards.addCard("B");
+        cards.addCard("C");
+        Library<String> test = new Library<String>(cards);
+
+        test.reset(new int[] { 9, 2, 0, 1 }, 1);
+        test.reset();
+        Assert.assertEquals("C", test.draw());
+        Assert.assertEquals("A", test.draw());
+        test.top("A");
+        Assert.assertEquals("A", test.draw());
+        Assert.assertEquals("B", test.draw());
+        Assert.assertEquals(null, test.draw());
+
+        test.reset();
+        Assert.assertEquals(3, test.cardsRemaining());
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.goldfishmtg.optimizer;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.simulation.SimulationService;
+import org.goldfishmtg.simulation.TestAgent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeckOptimizerTest {
+
+    private SimulationService<String> service;
+    private MutationSpace<String> space;
+    private CardList<String> cards;
+
+    @Before
+    public void before() {
+        this.service = new SimulationService<String>(2);
+        this.space = new MutationSpace<String>();
+        this.space.addCard("Land", 5, 35);
+        this.space.addCard("Spell", 5, 35);
+        this.cards = new CardList<String>();
+        this.cards.addCards("Land", 8);
+        this.cards.addCards("Spell", 30);
+        this.cards.addCards("Fixed", 2);
+    }
+
+    @After
+    public void after() {
+        this.service.shutdown();
+    }
+
+    @Test
+    public void testNeighbours() {
+        Deck<String> deck = Deck.of(this.cards);
+        List<Deck<String>> neighbours = this.space.neighbours(deck);
+
+        Assert.assertEquals(2, neighbours.size());
+        for (Deck<String> neighbour : neighbours) {
+            Assert.assertEquals(40, neighbour.size());
+            Assert.assertEquals(2, neighbour.getCount("Fixed"));
+            Assert.assertEquals(1,
+                    Math.abs(neighbour.getCount("Land") - deck.getCount("Land")));
+        }
+
+        this.space.addCard("Land", 8, 8);
+        neighbours = this.space.neighbours(deck);
+        Assert.assertTrue(neighbours.isEmpty());
+    }
+
+    @Test
+    public void testOptimize() throws Exception {
+        DeckOptimizer<String, LandAgent> test = new DeckOptimizer<>(
+                this.service, new Supplier<LandAgent>() {
+                    @Override
+                    public LandAgent get() {
+                        return new LandAgent();
+                    }
+                }, new Objective<LandAgent>() {
+                    @Override
+                    public double score(LandAgent agent) {
+                        return -agent.getMissRate();
+                    }
+                });
+        test.setMaxGames(8000);
+
+        Deck<String> result = test.optimize(this.cards, this.space);
+
+        /*
+         * Three lands in the opening hand are most likely with 17 lands. The
+         * search stops early only if the better neighbour is also the worst of
+         * three after the first round, which is rare from 14 lands and
+         * vanishingly rare from both 14 and 13.
+         */
+        int lands = result.getCount("Land");
+        Assert.assertTrue("lands " + lands, lands >= 13 && lands <= 21);
+        Assert.assertEquals(40, result.size());
+        Assert.assertTrue(test.getGamesPlayed() > 0);
+        Assert.assertTrue(test.getScore() > -1);
+    }
+
+    /**
+     * Counts the opening hands that do not hold exactly 3 lands
+     */
+    static class LandAgent extends TestAgent {
+        private static final long serialVersionUID = 1L;
+
+        private int games;
+        private int misses;
+
+        LandAgent() {
+            super(1);
+        }
+
+        @Override
+        public void newGame() {
+            this.games++;
+        }
+
+        @Override
+        public boolean keepOpeningHand(int cardCount, CardList<String> hand) {
+            if (hand.getCount("Land") != 3) {
+                this.misses++;
+            }
+            return true;
+        }
+
+        @Override
+        public String getReport() {
+            return "Miss rate: " + getMissRate();
+        }
+
+        double getMissRate() {
+            return (double) this.misses / this.games;
+        }
+    }
+
+}
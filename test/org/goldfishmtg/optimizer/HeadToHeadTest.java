@@ -0,0 +1,105 @@
+package org.goldfishmtg.optimizer;
+
+import java.util.function.Supplier;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.optimizer.DeckOptimizerTest.LandAgent;
+import org.goldfishmtg.simulation.SimulationService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HeadToHeadTest {
+
+    private SimulationService<String> service;
+    private HeadToHead<String, LandAgent> test;
+
+    @Before
+    public void before() {
+        this.service = new SimulationService<String>(4);
+        this.test = new HeadToHead<>(this.service,
+                new Supplier<LandAgent>() {
+                    @Override
+                    public LandAgent get() {
+                        return new LandAgent();
+                    }
+                }, new Objective<LandAgent>() {
+                    @Override
+                    public double score(LandAgent agent) {
+                        return -agent.getMissRate();
+                    }
+                });
+        this.test.setBatchGames(500);
+        // Identical decks must not be told apart by chance
+        this.test.setAlpha(0.001);
+    }
+
+    @After
+    public void after() {
+        this.service.shutdown();
+    }
+
+    @Test
+    public void testClearWinner() throws Exception {
+        HeadToHead.Result result = this.test.compare(deck(8), deck(17));
+
+        Assert.assertEquals(HeadToHead.Outcome.SECOND_BETTER,
+                result.getOutcome());
+        Assert.assertTrue(result.getUpperBound() < 0);
+        // Settled as soon as there are enough pairs to bound the difference
+        Assert.assertTrue("games " + result.getGames(),
+                result.getGames() <= 3 * 4 * 500);
+    }
+
+    @Test
+    public void testNoDifference() throws Exception {
+        this.test.setMargin(0.05);
+
+        HeadToHead.Result result = this.test.compare(deck(17), deck(17));
+
+        Assert.assertEquals(HeadToHead.Outcome.NO_DIFFERENCE,
+                result.getOutcome());
+        Assert.assertTrue(result.getLowerBound() >= -0.05);
+        Assert.assertTrue(result.getUpperBound() <= 0.05);
+    }
+
+    @Test
+    public void testIdenticalDifferences() throws Exception {
+        this.test.setMaxGames(20000);
+        this.test.setAlpha(0.05);
+
+        // Every hand of the 7 cards holds 3 lands, every hand of 40 lands
+        // misses, so every pair of batches differs by exactly 1
+        CardList<String> exact = new CardList<String>();
+        exact.addCards("Land", 3);
+        exact.addCards("Spell", 4);
+        HeadToHead.Result result = this.test.compare(exact, deck(40));
+
+        Assert.assertEquals(HeadToHead.Outcome.INCONCLUSIVE,
+                result.getOutcome());
+        Assert.assertEquals(1.0, result.getDifference());
+        Assert.assertTrue(Double.isInfinite(result.getUpperBound()));
+    }
+
+    @Test
+    public void testInconclusive() throws Exception {
+        this.test.setMaxGames(3000);
+        this.test.setAlpha(1e-6);
+
+        HeadToHead.Result result = this.test.compare(deck(17), deck(17));
+
+        Assert.assertEquals(HeadToHead.Outcome.INCONCLUSIVE,
+                result.getOutcome());
+        Assert.assertEquals(3000, result.getGames());
+    }
+
+    private static CardList<String> deck(int lands) {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Land", lands);
+        cards.addCards("Spell", 40 - lands);
+        return cards;
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.goldfishmtg.rules;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardAttributes;
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.CardRegistry;
+import org.goldfishmtg.cards.CardType;
+import org.goldfishmtg.cards.Color;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.simulation.BatchedGoldfish;
+import org.goldfishmtg.simulation.Goldfish;
+import org.junit.Test;
+
+public class RuleAgentTest {
+
+    private static final String RULES = "# Land drops\n"
+            + "group lands = Land\n"
+            + "group spells = Spell\n"
+            + "keep 7 when lands >= 2 and lands <= 5\n"
+            + "keep 6 when not (lands < 1 or lands > 5)\n"
+            + "play lands\n"
+            + "stop when turn >= 4\n"
+            + "track \"four lands\" when played(lands) >= 4\n"
+            + "track \"spells\" when turn == 4 and spells + 0 >= hand - lands\n";
+
+    @Test
+    public void testGoldfishAndBatched() throws Exception {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Land", 24);
+        cards.addCards("Spell", 36);
+        RuleProgram program = RuleProgram.compile(RULES);
+
+        RuleAgent agent = program.newAgent();
+        Goldfish<String, RuleAgent> goldfish = new Goldfish<String, RuleAgent>(
+                new Library<String>(new Random(1), cards), agent);
+        goldfish.setGames(4000);
+        goldfish.call();
+
+        RuleAgent batchAgent = program.newAgent();
+        BatchedGoldfish<String, RuleAgent> batched = new BatchedGoldfish<String, RuleAgent>(
+                Deck.of(cards), batchAgent, 256, 1);
+        batched.setGames(4000);
+        batched.call();
+
+        Assert.assertEquals(4000, agent.getGames());
+        Assert.assertEquals(4000, batchAgent.getGames());
+        Assert.assertEquals(4000, agent.getTrackCount(1));
+        Assert.assertEquals(4000, batchAgent.getTrackCount(1));
+        double rate = (double) agent.getTrackCount(0) / 4000;
+        double batchRate = (double) batchAgent.getTrackCount(0) / 4000;
+        Assert.assertTrue(rate > 0.2 && rate < 0.9);
+        Assert.assertEquals(rate, batchRate, 0.05);
+        Assert.assertEquals(agent.getMulligans() / 4000.0,
+                batchAgent.getMulligans() / 4000.0, 0.05);
+        Assert.assertTrue(agent.getReport().contains("four lands: "));
+    }
+
+    @Test
+    public void testCategories() throws Exception {
+        CardRegistry<String> registry = new CardRegistry<String>();
+        registry.register("Mountain", CardAttributes.land(Color.RED));
+        registry.register("Goblin Guide",
+                CardAttributes.spell(CardType.CREATURE, 1, Color.RED));
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Mountain", 30);
+        cards.addCards("Goblin Guide", 30);
+        RuleProgram program = RuleProgram.compile("group lands = @LAND\n"
+                + "keep 7 when @RED_SOURCE >= 1\n" + "play lands\n"
+                + "play @CREATURE\n" + "stop when turn >= 3\n"
+                + "track \"curve\" when played(@CREATURE) == turn\n",
+                registry);
+
+        RuleAgent agent = program.newAgent();
+        BatchedGoldfish<String, RuleAgent> test = new BatchedGoldfish<String, RuleAgent>(
+                Deck.of(cards), agent, 64, 2);
+        test.setGames(1000);
+        test.call();
+
+        Assert.assertEquals(1000, agent.getGames());
+        long curve = agent.getTrackCount(0);
+        Assert.assertTrue(curve > 900 && curve <= 1000);
+    }
+
+    @Test
+    public void testErrors() {
+        String[] invalid = { "stop when lands > 2", "keep 7 when 2",
+                "play 3", "group turn = Forest", "stop when turn >= 2 )",
+                "keep 6 when @LAND > 1", "group lands = Forest, ",
+                "draw lands", "keep 8", "keep 2000000000", "keep 99999999999",
+                "stop when turn > 99999999999" };
+        for (String rule : invalid) {
+            try {
+                RuleProgram.compile("# first line\n" + rule);
+                Assert.fail(rule);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage(),
+                        e.getMessage().startsWith("line 2: "));
+            }
+        }
+    }
+
+}
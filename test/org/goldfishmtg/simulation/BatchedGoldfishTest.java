@@ -0,0 +1,154 @@
+package org.goldfishmtg.simulation;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardIndex;
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchedGoldfishTest {
+
+    private Deck<String> deck;
+
+    @Before
+    public void before() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Land", 24);
+        cards.addCards("Spell", 36);
+        this.deck = Deck.of(cards);
+    }
+
+    @Test
+    public void testLandsByTurn() throws Exception {
+        LandAgent agent = new LandAgent(0, 3, false);
+        BatchedGoldfish<String, LandAgent> test = new BatchedGoldfish<>(
+                this.deck, agent, 256, 1);
+        test.setGames(10000);
+
+        test.call();
+
+        Assert.assertEquals(10000, agent.games);
+        Assert.assertEquals(10000, agent.mulligans[7]);
+        Assert.assertEquals(0, agent.badHandSize);
+        // 10 cards seen by turn 3 on the draw, 24 of 60 being lands
+        Assert.assertEquals(4.0, (double) agent.lands / agent.games, 0.05);
+    }
+
+    @Test
+    public void testMulligans() throws Exception {
+        LandAgent agent = new LandAgent(2, 1, true);
+        BatchedGoldfish<String, LandAgent> test = new BatchedGoldfish<>(
+                this.deck, agent, 100, 2);
+        test.setGames(1000);
+        test.setSkipFirstDrawStep(true);
+
+        test.call();
+
+        Assert.assertEquals(1000, agent.mulligans[7]);
+        Assert.assertTrue(agent.mulligans[6] > 0);
+        Assert.assertTrue(agent.mulligans[6] < agent.mulligans[7]);
+        Assert.assertEquals(0, agent.badHandSize);
+    }
+
+    /**
+     * Plays decks too small to draw a full opening hand and the first draw,
+     * the game ends after the first turn with the whole deck in hand
+     */
+    @Test
+    public void testSmallDeck() throws Exception {
+        for (int size = 5; size <= 7; size++) {
+            CardList<String> cards = new CardList<String>();
+            cards.addCards("Land", 3);
+            cards.addCards("Spell", size - 3);
+            LandAgent agent = new LandAgent(0, 1, false);
+            BatchedGoldfish<String, LandAgent> test = new BatchedGoldfish<>(
+                    Deck.of(cards), agent, 16, 1);
+            test.setGames(100);
+
+            test.call();
+
+            Assert.assertEquals(100, agent.games);
+            Assert.assertEquals(300, agent.lands);
+
+            agent = new LandAgent(0, 2, false);
+            test = new BatchedGoldfish<>(Deck.of(cards), agent, 16, 1);
+            test.setGames(100);
+
+            test.call();
+
+            Assert.assertEquals(0, agent.games);
+        }
+    }
+
+    /**
+     * Keeps hands with enough lands, plays to the last turn and counts the
+     * lands in hand on that turn
+     */
+    static class LandAgent implements BatchAgent<String> {
+        private final int minLands;
+        private final int lastTurn;
+        private int land;
+        private int spell;
+        private final int[] keptSize = new int[256];
+        private int firstDraw;
+        private int games;
+        private long lands;
+        private final int[] mulligans = new int[8];
+        private int badHandSize;
+
+        LandAgent(int minLands, int lastTurn, boolean skipFirstDrawStep) {
+            this.minLands = minLands;
+            this.lastTurn = lastTurn;
+            this.firstDraw = skipFirstDrawStep ? 0 : 1;
+        }
+
+        @Override
+        public void simulationStarted(CardIndex<String> index) {
+            this.land = index.ordinalOf("Land");
+            this.spell = index.ordinalOf("Spell");
+        }
+
+        @Override
+        public void simulationDone() {
+        }
+
+        @Override
+        public void keepOpeningHands(int cardCount, int[][] hands, int games,
+                boolean[] keep) {
+            for (int game = 0; game < games; game++) {
+                if (!keep[game]) {
+                    this.mulligans[cardCount]++;
+                    keep[game] = hands[this.land][game] >= this.minLands;
+                    this.keptSize[game] = cardCount;
+                }
+            }
+        }
+
+        @Override
+        public void takeTurn(int turn, int[][] hands, int games,
+                boolean[] active) {
+            for (int game = 0; game < games; game++) {
+                if (!active[game]) {
+                    continue;
+                }
+                int size = hands[this.land][game] + hands[this.spell][game];
+                if (turn == 1 && size != this.keptSize[game] + this.firstDraw) {
+                    this.badHandSize++;
+                }
+                if (turn == this.lastTurn) {
+                    this.lands += hands[this.land][game];
+                    this.games++;
+                    active[game] = false;
+                }
+            }
+        }
+
+        @Override
+        public String getReport() {
+            return "Lands: " + (double) this.lands / this.games;
+        }
+    }
+
+}
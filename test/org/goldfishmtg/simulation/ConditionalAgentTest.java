@@ -0,0 +1,84 @@
+package org.goldfishmtg.simulation;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+import org.junit.Test;
+
+public class ConditionalAgentTest {
+
+    /**
+     * Estimates the probability of drawing a land on turn 3 both from the
+     * card drawn and from the probability before the draw, which are both 24
+     * in 60
+     */
+    @Test
+    public void testLowerVariance() throws Exception {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Land", 24);
+        cards.addCards("Spell", 36);
+        LandDrawAgent agent = new LandDrawAgent(3);
+        Goldfish<String, LandDrawAgent> test = new Goldfish<>(
+                new Library<String>(new Random(1), cards), agent);
+        test.setGames(5000);
+
+        test.call();
+
+        Assert.assertEquals(5000, agent.sampled.getGames());
+        Assert.assertEquals(5000, agent.conditional.getGames());
+        Assert.assertEquals(0.4, agent.sampled.getMean(),
+                4 * agent.sampled.getStandardError());
+        Assert.assertEquals(0.4, agent.conditional.getMean(),
+                4 * agent.conditional.getStandardError());
+        Assert.assertTrue(agent.conditional.getStandardError() < 0.1
+                * agent.sampled.getStandardError());
+    }
+
+    /**
+     * Records whether the card drawn on a turn is a land, and the probability
+     * that it is before it is drawn
+     */
+    static class LandDrawAgent extends TestAgent implements
+            ConditionalAgent<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final int turn;
+        private final WeightedEstimate sampled = new WeightedEstimate();
+        private final WeightedEstimate conditional = new WeightedEstimate();
+        private int landsBefore;
+
+        LandDrawAgent(int turn) {
+            super(turn);
+            this.turn = turn;
+        }
+
+        @Override
+        public void beforeDraw(int turn, Library<String> library,
+                CardList<String> hand) {
+            if (turn == this.turn) {
+                this.conditional.add(1,
+                        library.probabilityOfDrawing(1, 1, "Land"));
+                this.landsBefore = hand.getCount("Land");
+            }
+        }
+
+        @Override
+        public void takeTurn(int turn, Library<String> library,
+                CardList<String> hand) {
+            super.takeTurn(turn, library, hand);
+            if (turn == this.turn) {
+                this.sampled.add(1, hand.getCount("Land") > this.landsBefore ? 1
+                        : 0);
+            }
+        }
+
+        @Override
+        public String getReport() {
+            return this.conditional.toString();
+        }
+    }
+
+}
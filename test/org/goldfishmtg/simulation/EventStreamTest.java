@@ -0,0 +1,126 @@
+package org.goldfishmtg.simulation;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class EventStreamTest {
+
+    private CardList<String> cards;
+    private Agent<String> agent;
+
+    @Before
+    public void before() {
+        this.cards = new CardList<String>();
+        this.cards.addCards("Card", 60);
+        this.agent = Mockito.mock(Agent.class);
+        Mockito.when(
+                this.agent.keepOpeningHand(Mockito.anyInt(),
+                        Mockito.any(CardList.class))).thenReturn(Boolean.TRUE);
+        Mockito.when(this.agent.simulateAnotherTurn()).thenReturn(
+                Boolean.TRUE, Boolean.TRUE, Boolean.FALSE);
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        Counter counter = new Counter();
+        EventStream test = new EventStream(counter, 1024);
+        Goldfish<String, Agent<String>> goldfish = new Goldfish<>(
+                new Library<>(this.cards), this.agent);
+        goldfish.setEventStream(test);
+
+        goldfish.call();
+        test.close();
+
+        Assert.assertEquals(1, counter.get(Events.GAME_STARTED));
+        Assert.assertEquals(1, counter.get(Events.MULLIGAN));
+        Assert.assertEquals(3, counter.get(Events.DRAW));
+        Assert.assertEquals(3, counter.get(Events.TURN));
+        Assert.assertEquals(1, counter.get(Events.GAME_ENDED));
+        Assert.assertEquals(3, counter.lastTurn);
+        Assert.assertEquals(50, counter.lastValue);
+    }
+
+    @Test
+    public void testSmallRing() throws Exception {
+        Mockito.when(this.agent.simulateAnotherTurn()).thenReturn(
+                Boolean.FALSE);
+        Counter counter = new Counter();
+        EventStream test = new EventStream(counter, 4, 2);
+        Goldfish<String, Agent<String>> goldfish = new Goldfish<>(
+                new Library<>(this.cards), this.agent);
+        goldfish.setEventStream(test);
+        goldfish.setGames(1000);
+
+        goldfish.call();
+        goldfish.call();
+        test.close();
+
+        Assert.assertEquals(2000, counter.get(Events.GAME_STARTED));
+        Assert.assertEquals(2000, counter.get(Events.DRAW));
+        Assert.assertEquals(2000, counter.get(Events.GAME_ENDED));
+    }
+
+    @Test(timeout = 10000)
+    public void testFailingHandler() throws Exception {
+        Mockito.when(this.agent.simulateAnotherTurn()).thenReturn(
+                Boolean.FALSE);
+        EventStream test = new EventStream(new EventHandler() {
+            @Override
+            public void onEvents(int simulation, long[] events, int length) {
+                throw new IllegalArgumentException("failed");
+            }
+        }, 4);
+        Goldfish<String, Agent<String>> goldfish = new Goldfish<>(
+                new Library<>(this.cards), this.agent);
+        goldfish.setEventStream(test);
+        goldfish.setGames(1000);
+
+        try {
+            goldfish.call();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        try {
+            test.close();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testEncode() {
+        long event = Events.encode(Events.DRAW, 12, -1);
+
+        Assert.assertEquals(Events.DRAW, Events.type(event));
+        Assert.assertEquals(12, Events.turn(event));
+        Assert.assertEquals(-1, Events.value(event));
+    }
+
+    static class Counter implements EventHandler {
+        private final int[] counts = new int[8];
+        private int lastTurn;
+        private int lastValue;
+
+        @Override
+        public synchronized void onEvents(int simulation, long[] events,
+                int length) {
+            for (int i = 0; i < length; i++) {
+                this.counts[Events.type(events[i])]++;
+                this.lastTurn = Events.turn(events[i]);
+                this.lastValue = Events.value(events[i]);
+            }
+        }
+
+        synchronized int get(int type) {
+            return this.counts[type];
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.goldfishmtg.simulation;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class GoldfishRecordingTest {
+
+    @Test
+    public void testEvents() throws Exception {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Card", 60);
+        Agent<String> agent = Mockito.mock(Agent.class);
+        Mockito.when(
+                agent.keepOpeningHand(Mockito.anyInt(),
+                        Mockito.any(CardList.class))).thenReturn(Boolean.FALSE,
+                Boolean.TRUE);
+        Mockito.when(agent.simulateAnotherTurn()).thenReturn(Boolean.TRUE,
+                Boolean.TRUE, Boolean.FALSE);
+        Goldfish<String, Agent<String>> goldfish = new Goldfish<>(
+                new Library<>(cards), agent);
+
+        Path file = Files.createTempFile("goldfish", ".jfr");
+        List<RecordedEvent> events;
+        try {
+            Recording recording = new Recording();
+            recording.enable("org.goldfishmtg.Game");
+            recording.enable("org.goldfishmtg.Mulligan");
+            recording.enable("org.goldfishmtg.Turn");
+            recording.start();
+            goldfish.call();
+            recording.stop();
+            recording.dump(file);
+            recording.close();
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        int turns = 0;
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            if (name.equals("org.goldfishmtg.Game")) {
+                Assert.assertEquals(3, event.getInt("turns"));
+                Assert.assertEquals(1, event.getInt("mulligans"));
+            } else if (name.equals("org.goldfishmtg.Mulligan")) {
+                Assert.assertEquals(1, event.getInt("mulligans"));
+                Assert.assertEquals(6, event.getInt("handSize"));
+            } else if (name.equals("org.goldfishmtg.Turn")) {
+                turns++;
+                Assert.assertEquals(6 + turns, event.getInt("handSize"));
+            }
+        }
+        Assert.assertEquals(3, turns);
+        Assert.assertEquals(5, events.size());
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.goldfishmtg.simulation;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Hand;
+import org.goldfishmtg.cards.Library;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class LondonMulliganTest {
+
+    private Library<String> library;
+    private Agent<String> agent;
+    private Hand<String> hand;
+    private LondonMulligan test;
+
+    @Before
+    public void before() {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Card", 52);
+        cards.addCards("Bottom", 8);
+        this.library = new Library<>(cards);
+        this.agent = Mockito.mock(Agent.class);
+        this.hand = new Hand<>(this.library.getIndex());
+        this.test = new LondonMulligan();
+    }
+
+    @Test
+    public void testKeepSeven() {
+        Mockito.when(
+                this.agent.keepOpeningHand(Mockito.anyInt(),
+                        Mockito.any(CardList.class))).thenReturn(Boolean.TRUE);
+
+        Assert.assertEquals(0,
+                this.test.drawOpeningHand(this.library, this.agent, this.hand));
+        Assert.assertEquals(7, this.hand.size());
+        Assert.assertEquals(53, this.library.cardsRemaining());
+        Mockito.verify(this.agent).keepOpeningHand(Mockito.eq(7),
+                Mockito.any(CardList.class));
+        Mockito.verify(this.agent, Mockito.never()).chooseCardToBottom(
+                Mockito.any(CardList.class));
+    }
+
+    @Test
+    public void testKeepFive() {
+        Mockito.when(
+                this.agent.keepOpeningHand(Mockito.anyInt(),
+                        Mockito.any(CardList.class))).thenReturn(Boolean.FALSE,
+                Boolean.FALSE, Boolean.TRUE);
+        Mockito.when(this.agent.chooseCardToBottom(Mockito.any(CardList.class)))
+                .thenReturn("Card");
+
+        Assert.assertEquals(2,
+                this.test.drawOpeningHand(this.library, this.agent, this.hand));
+        Assert.assertEquals(5, this.hand.size());
+        Assert.assertEquals(55, this.library.cardsRemaining());
+        Mockito.verify(this.agent).keepOpeningHand(Mockito.eq(5),
+                Mockito.any(CardList.class));
+        Mockito.verify(this.agent, Mockito.times(2)).chooseCardToBottom(
+                Mockito.any(CardList.class));
+    }
+
+    @Test
+    public void testBottomedCardsDrawnLast() {
+        Mockito.when(
+                this.agent.keepOpeningHand(Mockito.anyInt(),
+                        Mockito.any(CardList.class))).thenReturn(Boolean.FALSE,
+                Boolean.TRUE);
+        Mockito.when(this.agent.chooseCardToBottom(Mockito.any(CardList.class)))
+                .thenReturn("Card");
+
+        this.test.drawOpeningHand(this.library, this.agent, this.hand);
+        for (int i = 1; i < 54; i++) {
+            this.library.draw();
+        }
+        Assert.assertEquals(1, this.library.cardsRemaining());
+        Assert.assertEquals("Card", this.library.draw());
+    }
+
+    @Test
+    public void testDefaultBottomsMostCopies() {
+        Agent<String> agent = new TestAgent(1) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean keepOpeningHand(int cardCount,
+                    CardList<String> hand) {
+                return cardCount == 6;
+            }
+        };
+        CardList<String> hand = new CardList<String>();
+        hand.addCards("A", 2);
+        hand.addCards("B", 3);
+        hand.addCards("C", 1);
+        Assert.assertEquals("B", agent.chooseCardToBottom(hand));
+        hand.addCards("A", 1);
+        Assert.assertEquals("A", agent.chooseCardToBottom(hand));
+
+        Assert.assertEquals(1,
+                this.test.drawOpeningHand(this.library, agent, this.hand));
+        Assert.assertEquals(6, this.hand.size());
+        Assert.assertEquals(54, this.library.cardsRemaining());
+    }
+
+}
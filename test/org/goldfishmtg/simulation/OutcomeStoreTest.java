@@ -0,0 +1,101 @@
+package org.goldfishmtg.simulation;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class OutcomeStoreTest {
+
+    @Test
+    public void testAppend() {
+        OutcomeStore test = new OutcomeStore(2, 100, 16);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i, test.append(i, i % 3));
+        }
+
+        Assert.assertEquals(100, test.size());
+        Assert.assertEquals(42, test.get(42, 0));
+        Assert.assertEquals(0, test.get(42, 1));
+        Assert.assertEquals(99 * 100 / 2, test.sum(0));
+        Assert.assertEquals(0, test.min(0));
+        Assert.assertEquals(99, test.max(0));
+        Assert.assertEquals(33, test.count(1, 2));
+        long[] histogram = test.histogram(1, 2);
+        Assert.assertEquals(34, histogram[0]);
+        Assert.assertEquals(33, histogram[1]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFull() {
+        OutcomeStore test = new OutcomeStore(1, 10);
+        for (int i = 0; i <= 10; i++) {
+            test.append(i);
+        }
+    }
+
+    @Test
+    public void testRecordBounds() {
+        OutcomeStore test = new OutcomeStore(1, 100, 16);
+        test.append(1);
+        for (long record : new long[] { -1, 1, 50 }) {
+            try {
+                test.get(record, 0);
+                Assert.fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+            try {
+                test.set(record, 0, 1);
+                Assert.fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(1, test.get(0, 0));
+    }
+
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        final int threads = 4;
+        final int perThread = 50000;
+        final OutcomeStore test = new OutcomeStore(1, threads * perThread,
+                1000);
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            writers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        test.append(i % 7);
+                    }
+                }
+            };
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        Assert.assertEquals(threads * perThread, test.size());
+        long[] histogram = test.histogram(0, 7);
+        long expectedSum = 0;
+        for (int i = 0; i < perThread; i++) {
+            expectedSum += i % 7;
+        }
+        Assert.assertEquals(threads * expectedSum, test.sum(0));
+        Assert.assertEquals(threads * ((perThread + 6) / 7), histogram[0]);
+    }
+
+    @Test
+    public void testClear() {
+        OutcomeStore test = new OutcomeStore(1, 10);
+        test.append(5);
+        test.clear();
+
+        Assert.assertEquals(0, test.size());
+        Assert.assertEquals(0, test.sum(0));
+        test.append(3);
+        Assert.assertEquals(3, test.sum(0));
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.goldfishmtg.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Library;
+import org.goldfishmtg.cards.ShufflePipeline;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PairedGoldfishTest {
+
+    private Deck<String> deck;
+
+    @Before
+    public void before() {
+        CardList<String> cards = new CardList<String>();
+        for (int i = 0; i < 40; i++) {
+            cards.addCard("Card " + i);
+        }
+        this.deck = Deck.of(cards);
+    }
+
+    @Test
+    public void testSameCards() throws Exception {
+        RecordingAgent onThePlay = new RecordingAgent();
+        RecordingAgent onTheDraw = new RecordingAgent();
+        PairedGoldfish<String, RecordingAgent> test = new PairedGoldfish<>(
+                this.deck, onThePlay, onTheDraw, 1);
+        test.setGames(200);
+
+        Assert.assertSame(onThePlay, test.call());
+        Assert.assertSame(onTheDraw, test.getOnTheDraw());
+
+        assertSameCards(onThePlay, onTheDraw);
+    }
+
+    @Test
+    public void testSameCardsWithPipeline() throws Exception {
+        RecordingAgent onThePlay = new RecordingAgent();
+        RecordingAgent onTheDraw = new RecordingAgent();
+        PairedGoldfish<String, RecordingAgent> test = new PairedGoldfish<>(
+                this.deck, onThePlay, onTheDraw, 2);
+        test.setGames(200);
+        ShufflePipeline pipeline = new ShufflePipeline(this.deck, 1, 16, 4, 3);
+        try {
+            test.setShufflePipeline(pipeline);
+            test.call();
+        } finally {
+            pipeline.close();
+        }
+
+        assertSameCards(onThePlay, onTheDraw);
+    }
+
+    @Test
+    public void testService() throws Exception {
+        SimulationService<String> service = new SimulationService<String>(2);
+        try {
+            RecordingAgent onThePlay = new RecordingAgent();
+            RecordingAgent onTheDraw = new RecordingAgent();
+            List<Agent<String>> agents = service.simulatePairedAsync(
+                    this.deck.toCardList(), onThePlay, onTheDraw, 300).get();
+
+            Assert.assertSame(onThePlay, agents.get(0));
+            Assert.assertSame(onTheDraw, agents.get(1));
+            assertSameCards(onThePlay, onTheDraw);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSameAgent() {
+        RecordingAgent agent = new RecordingAgent();
+        new PairedGoldfish<String, RecordingAgent>(this.deck, agent, agent);
+    }
+
+    @Test
+    public void testNullAgents() {
+        try {
+            new PairedGoldfish<String, RecordingAgent>(this.deck, null, null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("deck and agents cannot be null",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * The hand on the play on each turn after the first is the hand on the
+     * draw on the turn before
+     */
+    private static void assertSameCards(RecordingAgent onThePlay,
+            RecordingAgent onTheDraw) {
+        Assert.assertEquals(onThePlay.games.size(), onTheDraw.games.size());
+        for (int game = 0; game < onThePlay.games.size(); game++) {
+            List<String> play = onThePlay.games.get(game);
+            List<String> draw = onTheDraw.games.get(game);
+            Assert.assertEquals(RecordingAgent.TURNS + 1, play.size());
+            Assert.assertEquals(play.get(0), draw.get(0));
+            for (int turn = 2; turn <= RecordingAgent.TURNS; turn++) {
+                Assert.assertEquals(play.get(turn), draw.get(turn - 1));
+            }
+        }
+        Assert.assertTrue(onThePlay.mulligans > 0);
+        Assert.assertEquals(onThePlay.mulligans, onTheDraw.mulligans);
+    }
+
+    /**
+     * Records the opening hand and the hand of each turn, taking a mulligan on
+     * hands of 7 holding the first card
+     */
+    static class RecordingAgent extends TestAgent {
+        private static final long serialVersionUID = 1L;
+
+        static final int TURNS = 5;
+        private final List<List<String>> games = new ArrayList<>();
+        private List<String> hands;
+        private int mulligans;
+
+        RecordingAgent() {
+            super(TURNS);
+        }
+
+        @Override
+        public void newGame() {
+            this.hands = new ArrayList<>();
+            this.games.add(this.hands);
+        }
+
+        @Override
+        public boolean keepOpeningHand(int cardCount, CardList<String> hand) {
+            if (cardCount == 7 && hand.getCount("Card 0") > 0) {
+                this.mulligans++;
+                return false;
+            }
+            this.hands.add(hand.asList().toString());
+            return true;
+        }
+
+        @Override
+        public void takeTurn(int turn, Library<String> library,
+                CardList<String> hand) {
+            super.takeTurn(turn, library, hand);
+            this.hands.add(hand.asList().toString());
+        }
+    }
+
+}
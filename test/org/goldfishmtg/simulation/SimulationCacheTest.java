@@ -0,0 +1,138 @@
+package org.goldfishmtg.simulation;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimulationCacheTest {
+
+    private SimulationService<String> service;
+    private File directory;
+    private CardList<String> cards;
+
+    @Before
+    public void before() throws Exception {
+        this.service = new SimulationService<String>(2);
+        this.directory = Files.createTempDirectory("cache").toFile();
+        this.cards = new CardList<String>();
+        this.cards.addCards("Forest", 20);
+        this.cards.addCards("Elf", 20);
+    }
+
+    @After
+    public void after() {
+        this.service.shutdown();
+        for (File file : this.directory.listFiles()) {
+            file.delete();
+        }
+        this.directory.delete();
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        SimulationCache<String> test = new SimulationCache<>(this.service,
+                this.directory, 1 << 20);
+
+        GameCounter first = test.simulate(this.cards, new GameCounter("a"),
+                100, false).get();
+        Assert.assertEquals(100, first.games);
+
+        GameCounter unused = new GameCounter("a");
+        GameCounter second = test.simulate(this.cards, unused, 50, false)
+                .get();
+        Assert.assertEquals(100, second.games);
+        Assert.assertEquals(0, unused.games);
+
+        GameCounter other = test.simulate(this.cards, new GameCounter("b"),
+                50, false).get();
+        Assert.assertEquals(50, other.games);
+        other = test.simulate(this.cards, new GameCounter("a"), 50, true)
+                .get();
+        Assert.assertEquals(50, other.games);
+    }
+
+    @Test
+    public void testTopUp() throws Exception {
+        SimulationCache<String> test = new SimulationCache<>(this.service,
+                this.directory, 1 << 20);
+        test.simulate(this.cards, new GameCounter("a"), 100, false).get();
+
+        GameCounter topUp = new GameCounter("a");
+        GameCounter result = test.simulate(this.cards, topUp, 250, false)
+                .get();
+        Assert.assertEquals(150, topUp.games);
+        Assert.assertEquals(250, result.games);
+
+        result = test.simulate(this.cards, new GameCounter("a"), 250, false)
+                .get();
+        Assert.assertEquals(250, result.games);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        SimulationCache<String> test = new SimulationCache<>(this.service,
+                this.directory, 1 << 20);
+        test.simulate(this.cards, new GameCounter("a"), 10, false).get();
+        long entrySize = test.size();
+
+        test = new SimulationCache<>(this.service, this.directory,
+                entrySize * 2);
+        Thread.sleep(1000);
+        test.simulate(this.cards, new GameCounter("b"), 10, false).get();
+        Thread.sleep(1000);
+        test.simulate(this.cards, new GameCounter("c"), 10, false).get();
+        Assert.assertTrue(test.size() <= entrySize * 2);
+
+        GameCounter evicted = new GameCounter("a");
+        test.simulate(this.cards, evicted, 10, false).get();
+        Assert.assertEquals(10, evicted.games);
+        GameCounter kept = new GameCounter("c");
+        test.simulate(this.cards, kept, 10, false).get();
+        Assert.assertEquals(0, kept.games);
+    }
+
+    static class GameCounter extends TestAgent implements
+            CacheableAgent<String, GameCounter> {
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        private int games;
+
+        GameCounter(String key) {
+            super(1);
+            this.key = key;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return this.key;
+        }
+
+        @Override
+        public int getCacheVersion() {
+            return 1;
+        }
+
+        @Override
+        public void merge(GameCounter other) {
+            this.games += other.games;
+        }
+
+        @Override
+        public void newGame() {
+            this.games++;
+        }
+
+        @Override
+        public String getReport() {
+            return "Games: " + this.games;
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package org.goldfishmtg.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimulationServiceTest {
+
+    /**
+     * Keeps every hand, plays a single turn and counts the games played
+     */
+    static class CountingAgent extends TestAgent {
+        private static final long serialVersionUID = 1L;
+
+        int games;
+
+        CountingAgent() {
+            super(1);
+        }
+
+        @Override
+        public void simulationStarted() {
+            this.games = 0;
+        }
+
+        @Override
+        public void gameDone() {
+            this.games++;
+        }
+
+        @Override
+        public String getReport() {
+            return this.games + " games";
+        }
+    }
+
+    private CardList<String> cards;
+    private SimulationService<String> test;
+
+    @Before
+    public void before() {
+        this.cards = new CardList<String>();
+        this.cards.addCards("Card", 60);
+        this.test = new SimulationService<>(1);
+        this.test.setBatchSize(100);
+    }
+
+    @After
+    public void after() {
+        this.test.shutdown();
+    }
+
+    @Test
+    public void testSimulate() throws Exception {
+        CountingAgent agent = new CountingAgent();
+        this.test.simulate(this.cards, agent, 1234);
+
+        Assert.assertEquals(1, this.test.getRemaining());
+        Assert.assertSame(agent, this.test.retrieveNextCompleted());
+        Assert.assertEquals(1234, agent.games);
+        Assert.assertEquals(0, this.test.getRemaining());
+        Assert.assertNull(this.test.retrieveNextCompleted());
+    }
+
+    @Test
+    public void testFairShare() throws Exception {
+        CountingAgent large = new CountingAgent();
+        CountingAgent small = new CountingAgent();
+        this.test.simulate("a", this.cards, large, 2000000, false);
+        this.test.simulate("b", this.cards, small, 1000, false);
+
+        Assert.assertSame(small, this.test.retrieveNextCompleted());
+        Assert.assertEquals(1000, small.games);
+        Assert.assertSame(large, this.test.retrieveNextCompleted());
+        Assert.assertEquals(2000000, large.games);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CountingAgent agent = new CountingAgent();
+        SimulationHandle<String> handle = this.test.simulate(this.cards,
+                agent, Integer.MAX_VALUE);
+        while (handle.getGamesPlayed() == 0) {
+            Thread.sleep(1);
+        }
+        handle.cancel();
+
+        Assert.assertSame(agent, handle.get());
+        Assert.assertTrue(handle.isDone());
+        Assert.assertTrue(handle.isCancelled());
+        Assert.assertEquals(agent.games, handle.getGamesPlayed());
+        Assert.assertSame(agent, this.test.retrieveNextCompleted());
+    }
+
+    @Test
+    public void testSimulateFor() throws Exception {
+        CountingAgent agent = new CountingAgent();
+        long start = System.nanoTime();
+        SimulationHandle<String> handle = this.test.simulateFor(this.cards,
+                agent, 100, TimeUnit.MILLISECONDS);
+
+        Assert.assertSame(agent, handle.get());
+        long elapsed = System.nanoTime() - start;
+        Assert.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(100));
+        Assert.assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5));
+        Assert.assertTrue(agent.games > 0);
+        Assert.assertEquals(agent.games, handle.getGamesPlayed());
+    }
+
+    @Test
+    public void testSimulateAsync() throws Exception {
+        CountingAgent agent = new CountingAgent();
+        CompletableFuture<Agent<String>> future = this.test.simulateAsync(
+                this.cards, agent, 500, false);
+
+        Assert.assertSame(agent, future.get());
+        Assert.assertEquals(500, agent.games);
+        Assert.assertEquals(0, this.test.getRemaining());
+    }
+
+    @Test
+    public void testFailedSimulationEnds() throws Exception {
+        final boolean[] done = new boolean[1];
+        CountingAgent agent = new CountingAgent() {
+            @Override
+            public void gameDone() {
+                super.gameDone();
+                if (this.games == 150) {
+                    throw new IllegalStateException("failed");
+                }
+            }
+
+            @Override
+            public void simulationDone() {
+                done[0] = true;
+            }
+        };
+        CompletableFuture<Agent<String>> future = this.test.simulateAsync(
+                this.cards, agent, 500, false);
+
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertTrue(done[0]);
+        Assert.assertEquals(150, agent.games);
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        final List<SimulationEvent<String>> events = new ArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        this.test.getEvents().subscribe(
+                new Flow.Subscriber<SimulationEvent<String>>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(SimulationEvent<String> item) {
+                        synchronized (events) {
+                            events.add(item);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.countDown();
+                    }
+                });
+        CountingAgent agent = new CountingAgent();
+        SimulationHandle<String> handle = this.test.simulate(this.cards,
+                agent, 1000);
+        this.test.shutdown();
+
+        Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        synchronized (events) {
+            SimulationEvent<String> last = events.get(events.size() - 1);
+            Assert.assertEquals(SimulationEvent.Type.COMPLETED, last.getType());
+            Assert.assertSame(handle, last.getSimulation());
+            Assert.assertSame(agent, last.getAgent());
+            Assert.assertEquals(1000, last.getGamesPlayed());
+            for (SimulationEvent<String> event : events.subList(0,
+                    events.size() - 1)) {
+                Assert.assertEquals(SimulationEvent.Type.PROGRESS,
+                        event.getType());
+            }
+        }
+    }
+
+    @Test
+    public void testShutdownCompletesSubmitted() throws Exception {
+        CountingAgent agent = new CountingAgent();
+        this.test.simulate(this.cards, agent, 5000);
+        this.test.shutdown();
+
+        Assert.assertSame(agent, this.test.retrieveNextCompleted());
+        Assert.assertEquals(5000, agent.games);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSimulateAfterShutdown() {
+        this.test.shutdown();
+        this.test.simulate(this.cards, new CountingAgent(), 1);
+    }
+
+}
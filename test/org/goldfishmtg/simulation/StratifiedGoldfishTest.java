@@ -0,0 +1,100 @@
+package org.goldfishmtg.simulation;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Deck;
+import org.goldfishmtg.cards.Library;
+import org.junit.Test;
+
+public class StratifiedGoldfishTest {
+
+    /**
+     * Estimates the number of lands seen by turn 3 on the draw, which is 10
+     * cards of a deck of 24 lands in 60, stratified on the lands of the
+     * opening hand
+     */
+    @Test
+    public void testLandsByTurn() throws Exception {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Land", 24);
+        cards.addCards("Spell", 36);
+        StratifiedGoldfish<String, LandAgent> test = new StratifiedGoldfish<>(
+                Deck.of(cards), new Supplier<LandAgent>() {
+                    @Override
+                    public LandAgent get() {
+                        return new LandAgent();
+                    }
+                }, new ToDoubleFunction<LandAgent>() {
+                    @Override
+                    public double applyAsDouble(LandAgent agent) {
+                        return (double) agent.lands / agent.games;
+                    }
+                }, "Land");
+        test.setGames(8000);
+        test.setSeed(1);
+
+        StratifiedGoldfish.Result result = test.call();
+
+        Assert.assertEquals(8, result.getStrata().size());
+        double probabilities = 0;
+        for (StratifiedGoldfish.Stratum stratum : result.getStrata()) {
+            probabilities += stratum.getProbability();
+            Assert.assertTrue(stratum.getGames() >= 200);
+            // Each stratum sees its lands plus 3 cards drawn from the rest
+            double expected = stratum.getKeys() + 3.0
+                    * (24 - stratum.getKeys()) / 53;
+            Assert.assertEquals(expected, stratum.getMean(), 0.15);
+        }
+        Assert.assertEquals(1, probabilities, 1e-9);
+        Assert.assertEquals(8000, result.getGames(), 10);
+        Assert.assertEquals(4.0, result.getEstimate(),
+                4 * result.getStandardError());
+        // Plain sampling has a standard deviation of 1.43 lands per game
+        Assert.assertTrue(result.getStandardError() < 0.8 * 1.43 / Math
+                .sqrt(8000));
+    }
+
+    @Test
+    public void testProbability() {
+        double noLand = 1;
+        for (int i = 0; i < 7; i++) {
+            noLand *= (36.0 - i) / (60 - i);
+        }
+        Assert.assertEquals(noLand,
+                StratifiedGoldfish.probability(60, 24, 7, 0), 1e-12);
+        Assert.assertEquals(0.0, StratifiedGoldfish.probability(60, 4, 7, 5));
+    }
+
+    /**
+     * Keeps every hand and counts the lands in hand on turn 3
+     */
+    static class LandAgent extends TestAgent {
+        private static final long serialVersionUID = 1L;
+
+        private int games;
+        private int lands;
+
+        LandAgent() {
+            super(3);
+        }
+
+        @Override
+        public void newGame() {
+            this.games++;
+        }
+
+        @Override
+        public void takeTurn(int turn, Library<String> library,
+                CardList<String> hand) {
+            super.takeTurn(turn, library, hand);
+            if (turn == 3) {
+                this.lands += hand.getCount("Land");
+            }
+        }
+    }
+
+}
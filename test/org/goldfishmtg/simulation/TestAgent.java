@@ -0,0 +1,71 @@
+package org.goldfishmtg.simulation;
+
+import java.io.Serializable;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+
+/**
+ * The base of the agents of the tests. It keeps every hand, plays a fixed
+ * number of turns each game and ignores every other callback, so that test
+ * agents only override what they observe. Subclasses overriding
+ * {@link #takeTurn(int, Library, CardList)} must call the super method. It is
+ * serializable so that cacheable agents can extend it.
+ *
+ * @author skaspersen
+ *
+ */
+public abstract class TestAgent implements Agent<String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int turns;
+    private int turn;
+
+    /**
+     * @param turns
+     *            the number of turns to play each game, the first turn is
+     *            always played
+     */
+    protected TestAgent(int turns) {
+        this.turns = turns;
+    }
+
+    @Override
+    public void simulationStarted() {
+    }
+
+    @Override
+    public void simulationDone() {
+    }
+
+    @Override
+    public void newGame() {
+    }
+
+    @Override
+    public void gameDone() {
+    }
+
+    @Override
+    public boolean keepOpeningHand(int cardCount, CardList<String> hand) {
+        return true;
+    }
+
+    @Override
+    public boolean simulateAnotherTurn() {
+        return this.turn < this.turns;
+    }
+
+    @Override
+    public void takeTurn(int turn, Library<String> library,
+            CardList<String> hand) {
+        this.turn = turn;
+    }
+
+    @Override
+    public String getReport() {
+        return "";
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.goldfishmtg.simulation;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.goldfishmtg.cards.CardList;
+import org.goldfishmtg.cards.Library;
+import org.junit.Test;
+
+public class WeightedEstimateTest {
+
+    @Test
+    public void testMerge() {
+        WeightedEstimate test = new WeightedEstimate();
+        WeightedEstimate other = new WeightedEstimate();
+        WeightedEstimate all = new WeightedEstimate();
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            double weight = random.nextDouble() * 2;
+            double value = random.nextInt(2);
+            (i < 30 ? test : other).add(weight, value);
+            all.add(weight, value);
+        }
+        test.merge(other);
+
+        Assert.assertEquals(100, test.getGames());
+        Assert.assertEquals(all.getMean(), test.getMean(), 1e-12);
+        Assert.assertEquals(all.getStandardError(), test.getStandardError(),
+                1e-12);
+        Assert.assertEquals(all.getEffectiveGames(), test.getEffectiveGames(),
+                1e-9);
+    }
+
+    /**
+     * Estimates the probability of missing every land in the opening hand
+     * and first 3 draws of a 17 land deck, which is below 1%
+     */
+    @Test
+    public void testRareEvent() throws Exception {
+        CardList<String> cards = new CardList<String>();
+        cards.addCards("Land", 17);
+        cards.addCards("Spell", 23);
+        double exact = 1;
+        for (int i = 0; i < 10; i++) {
+            exact *= (23.0 - i) / (40 - i);
+        }
+
+        Library<String> library = new Library<String>(new Random(2), cards);
+        library.setDrawWeight("Land", 0.2);
+        NoLandAgent agent = new NoLandAgent();
+        Goldfish<String, NoLandAgent> test = new Goldfish<>(library, agent);
+        test.setGames(20000);
+        test.call();
+
+        WeightedEstimate estimate = agent.estimate;
+        Assert.assertEquals(exact, estimate.getMean(),
+                4 * estimate.getStandardError());
+        Assert.assertTrue(estimate.getStandardError() < exact * 0.05);
+    }
+
+    /**
+     * Records whether no land was seen by turn 3 on the draw
+     */
+    static class NoLandAgent extends TestAgent implements
+            WeightedAgent<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final WeightedEstimate estimate = new WeightedEstimate();
+        private boolean landSeen;
+
+        NoLandAgent() {
+            super(3);
+        }
+
+        @Override
+        public void newGame() {
+            this.landSeen = false;
+        }
+
+        @Override
+        public void weighGame(double weight) {
+            this.estimate.add(weight, this.landSeen ? 0 : 1);
+        }
+
+        @Override
+        public void takeTurn(int turn, Library<String> library,
+                CardList<String> hand) {
+            super.takeTurn(turn, library, hand);
+            this.landSeen |= hand.getCount("Land") > 0;
+        }
+
+        @Override
+        public String getReport() {
+            return this.estimate.toString();
+        }
+    }
+
+}